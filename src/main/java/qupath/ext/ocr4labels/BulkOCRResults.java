@@ -0,0 +1,220 @@
+package qupath.ext.ocr4labels;
+
+import qupath.ext.ocr4labels.model.OCRResult;
+import qupath.ext.ocr4labels.service.BatchOCRPipeline;
+import qupath.lib.projects.ProjectImageEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Results of {@link OCR4Labels#runOCRForEntries}, filled in while the run progresses.
+ *
+ * <p>Iterating blocks until the next entry has finished, so a script can handle each
+ * result as soon as it is available; entries arrive in completion order, not project
+ * order. Iteration ends once every entry has finished and any metadata has been
+ * committed. The results may be iterated more than once; later iterations replay the
+ * entries already finished before waiting for new ones.</p>
+ *
+ * <pre>
+ * def results = OCR4Labels.runOCRForEntries(getProject().getImageList(), OCR4Labels.builder(), 4)
+ * for (r in results) {
+ *     println r.getEntry().getImageName() + ": " + r.getTexts()
+ * }
+ * </pre>
+ */
+public class BulkOCRResults implements Iterable<BulkOCRResults.EntryResult> {
+
+    private final int total;
+    private final List<EntryResult> completed = new ArrayList<>();
+    private boolean finished = false;
+    private int metadataChanged = 0;
+    private volatile BatchOCRPipeline<?> pipeline;
+
+    BulkOCRResults(int total) {
+        this.total = total;
+    }
+
+    /**
+     * Creates results that are already complete and hold no entries.
+     */
+    static BulkOCRResults empty() {
+        BulkOCRResults results = new BulkOCRResults(0);
+        results.finish(0);
+        return results;
+    }
+
+    void setPipeline(BatchOCRPipeline<?> pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    synchronized void add(EntryResult result) {
+        completed.add(result);
+        notifyAll();
+    }
+
+    synchronized void finish(int metadataChanged) {
+        this.metadataChanged = metadataChanged;
+        this.finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Gets the number of entries submitted.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the number of entries finished so far.
+     */
+    public synchronized int getCompletedCount() {
+        return completed.size();
+    }
+
+    /**
+     * Checks whether every entry has finished and metadata has been committed.
+     */
+    public synchronized boolean isDone() {
+        return finished;
+    }
+
+    /**
+     * Waits for the run to finish.
+     *
+     * @return All results, in completion order
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized List<EntryResult> await() throws InterruptedException {
+        while (!finished) {
+            wait();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(completed));
+    }
+
+    /**
+     * Gets the number of entries whose metadata changed in the final commit.
+     * Only meaningful once {@link #isDone()} is true.
+     */
+    public synchronized int getMetadataChangedCount() {
+        return metadataChanged;
+    }
+
+    /**
+     * Stops the run. Entries already finished are kept, and metadata staged for them
+     * is still committed.
+     */
+    public void cancel() {
+        BatchOCRPipeline<?> p = pipeline;
+        if (p != null) {
+            p.cancel();
+        }
+    }
+
+    @Override
+    public Iterator<EntryResult> iterator() {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                synchronized (BulkOCRResults.this) {
+                    try {
+                        while (next >= completed.size() && !finished) {
+                            BulkOCRResults.this.wait();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                    return next < completed.size();
+                }
+            }
+
+            @Override
+            public EntryResult next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                synchronized (BulkOCRResults.this) {
+                    return completed.get(next++);
+                }
+            }
+        };
+    }
+
+    /**
+     * Outcome for one project entry.
+     */
+    public static class EntryResult {
+        private final ProjectImageEntry<?> entry;
+        private final String status;
+        private final OCRResult result;
+        private final List<String> texts;
+        private final Map<String, String> metadata;
+        private final String error;
+
+        EntryResult(ProjectImageEntry<?> entry, String status, OCRResult result,
+                    List<String> texts, Map<String, String> metadata, String error) {
+            this.entry = entry;
+            this.status = status;
+            this.result = result;
+            this.texts = texts;
+            this.metadata = metadata;
+            this.error = error;
+        }
+
+        public ProjectImageEntry<?> getEntry() {
+            return entry;
+        }
+
+        /**
+         * Gets the outcome: "Done", "Error", "Timeout", or the reason the entry was skipped (e.g. "No label").
+         */
+        public String getStatus() {
+            return status;
+        }
+
+        public boolean isSuccess() {
+            return result != null;
+        }
+
+        /**
+         * Gets the detailed OCR result, or null if OCR did not run.
+         */
+        public OCRResult getResult() {
+            return result;
+        }
+
+        /**
+         * Gets the detected lines (or words, if there are no lines), as returned by {@link OCR4Labels#runOCR()}.
+         */
+        public List<String> getTexts() {
+            return texts;
+        }
+
+        /**
+         * Gets the metadata staged for this entry by the metadata callback.
+         */
+        public Map<String, String> getMetadata() {
+            return metadata;
+        }
+
+        /**
+         * Gets the error message, or null.
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("EntryResult[%s: %s, %d texts]", entry.getImageName(), status, texts.size());
+        }
+    }
+}
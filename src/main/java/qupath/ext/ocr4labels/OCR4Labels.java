@@ -4,17 +4,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.ocr4labels.model.OCRConfiguration;
 import qupath.ext.ocr4labels.model.OCRResult;
+import qupath.ext.ocr4labels.model.OCRTemplate;
 import qupath.ext.ocr4labels.model.TextBlock;
 import qupath.ext.ocr4labels.preferences.OCRPreferences;
+import qupath.ext.ocr4labels.service.BatchOCRPipeline;
 import qupath.ext.ocr4labels.service.OCREngine;
+import qupath.ext.ocr4labels.service.OCREnginePool;
+import qupath.ext.ocr4labels.service.OCRResultCache;
 import qupath.ext.ocr4labels.utilities.LabelImageUtility;
+import qupath.ext.ocr4labels.utilities.MetadataTransaction;
 import qupath.lib.images.ImageData;
+import qupath.lib.projects.Project;
 import qupath.lib.projects.ProjectImageEntry;
 import qupath.lib.scripting.QP;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +51,11 @@ import java.util.stream.Collectors;
  * if (results.size() > 0) {
  *     OCR4Labels.setMetadataValue("OCR_field_0", results[0])
  * }
+ *
+ * // Whole project in one call, with metadata committed once at the end
+ * def template = OCRTemplate.loadFromFile(new File("labels.json"))
+ * def run = OCR4Labels.runOCRForEntries(getProject().getImageList(), OCR4Labels.builder(), 4, template)
+ * run.each { println it.getEntry().getImageName() + ": " + it.getMetadata() }
  * </pre>
  *
  * @author Michael Nelson
@@ -51,9 +64,6 @@ public class OCR4Labels {
 
     private static final Logger logger = LoggerFactory.getLogger(OCR4Labels.class);
 
-    // Thread-local OCR engine for thread safety in batch processing
-    private static final ThreadLocal<OCREngine> engineThreadLocal = new ThreadLocal<>();
-
     // Store the last OCR result for metadata operations
     private static final ThreadLocal<List<String>> lastResultsThreadLocal = new ThreadLocal<>();
 
@@ -124,9 +134,9 @@ public class OCR4Labels {
             return OCRResult.empty();
         }
 
+        OCRResultCache.getShared().useProject(QP.getProject());
         try {
-            OCREngine engine = getOrCreateEngine();
-            return engine.processImage(labelImage, config);
+            return getEnginePool().withEngine(engine -> engine.processImage(labelImage, config));
         } catch (OCREngine.OCRException e) {
             logger.error("OCR processing failed: {}", e.getMessage());
             return OCRResult.empty();
@@ -234,6 +244,145 @@ public class OCR4Labels {
         }
     }
 
+    // ========== Project-Level Methods ==========
+
+    /**
+     * Decides the metadata to set for an entry from its OCR result.
+     * A Groovy closure taking {@code (entry, result, texts)} can be passed wherever one is expected.
+     */
+    @FunctionalInterface
+    public interface MetadataCallback {
+        /**
+         * @param entry  The project entry
+         * @param result The detailed OCR result
+         * @param texts  The detected lines, as returned by {@link #runOCR()}
+         * @return Metadata keys and values to set, or null for none
+         */
+        Map<String, String> apply(ProjectImageEntry<?> entry, OCRResult result, List<String> texts);
+    }
+
+    /**
+     * Run OCR on the labels of many project entries at once, without opening them in a viewer.
+     *
+     * @param entries     The entries to process, e.g. {@code getProject().getImageList()}
+     * @param builder     The OCR settings to use
+     * @param parallelism Number of entries recognized at the same time
+     * @return Results that fill in as entries finish
+     * @see #runOCRForEntries(Collection, OCRBuilder, int, MetadataCallback)
+     */
+    public static BulkOCRResults runOCRForEntries(Collection<? extends ProjectImageEntry<?>> entries,
+                                                  OCRBuilder builder, int parallelism) {
+        return runOCRForEntries(entries, builder, parallelism, (MetadataCallback) null);
+    }
+
+    /**
+     * Run OCR on many project entries and set metadata mapped by a template.
+     *
+     * @param entries     The entries to process
+     * @param builder     The OCR settings to use
+     * @param parallelism Number of entries recognized at the same time
+     * @param template    Template whose enabled field mappings decide the metadata
+     * @return Results that fill in as entries finish
+     */
+    public static BulkOCRResults runOCRForEntries(Collection<? extends ProjectImageEntry<?>> entries,
+                                                  OCRBuilder builder, int parallelism, OCRTemplate template) {
+        return runOCRForEntries(entries, builder, parallelism,
+                (entry, result, texts) -> template.mapFieldValues(OCRTemplate.getFieldTexts(result)));
+    }
+
+    /**
+     * Run OCR on many project entries, optionally setting metadata from each result.
+     *
+     * <p>Labels are read and recognized in parallel on pooled engines, and the call returns
+     * straight away. Metadata returned by the callback is staged as each entry finishes and
+     * written with a single project sync once all entries are done, so the project file is
+     * not rewritten per image. Iterating the returned results waits for each entry in turn,
+     * and finishes after the metadata has been committed.</p>
+     *
+     * @param entries     The entries to process
+     * @param builder     The OCR settings to use
+     * @param parallelism Number of entries recognized at the same time
+     * @param callback    Decides the metadata for each entry, can be null to set none
+     * @return Results that fill in as entries finish
+     */
+    public static BulkOCRResults runOCRForEntries(Collection<? extends ProjectImageEntry<?>> entries,
+                                                  OCRBuilder builder, int parallelism,
+                                                  MetadataCallback callback) {
+        List<ProjectImageEntry<?>> items = new ArrayList<>(entries);
+        OCREnginePool pool;
+        try {
+            pool = getEnginePool();
+        } catch (OCREngine.OCRException e) {
+            logger.error("OCR failed: {}", e.getMessage());
+            return BulkOCRResults.empty();
+        }
+
+        OCRConfiguration config = builder.build();
+        boolean invert = builder.isInvert();
+        Project<?> project = QP.getProject();
+        OCRResultCache.getShared().useProject(project);
+        MetadataTransaction transaction = callback != null ? new MetadataTransaction(project) : null;
+
+        BatchOCRPipeline<ProjectImageEntry<?>> pipeline = new BatchOCRPipeline<>(pool, config, entry -> {
+            BufferedImage image = LabelImageUtility.retrieveLabelImage(entry);
+            return image != null && invert ? invertImage(image) : image;
+        }, BatchOCRPipeline.DEFAULT_IO_THREADS, Math.max(1, parallelism), 0);
+        pipeline.setImageTimeout(OCRPreferences.getBatchImageTimeout() * 1000L);
+
+        BulkOCRResults results = new BulkOCRResults(items.size());
+        results.setPipeline(pipeline);
+
+        BatchOCRPipeline.Listener<ProjectImageEntry<?>> listener = new BatchOCRPipeline.Listener<>() {
+            @Override
+            public void onResult(ProjectImageEntry<?> entry, OCRResult result) {
+                List<String> texts = extractTextsFromResult(result);
+                Map<String, String> metadata = Collections.emptyMap();
+                if (callback != null) {
+                    try {
+                        Map<String, String> values = callback.apply(entry, result, texts);
+                        if (values != null && !values.isEmpty()) {
+                            transaction.putAll(entry, values);
+                            metadata = values;
+                        }
+                    } catch (RuntimeException e) {
+                        logger.warn("Metadata callback failed for {}: {}", entry.getImageName(), e.getMessage());
+                    }
+                }
+                results.add(new BulkOCRResults.EntryResult(entry, "Done", result, texts, metadata, null));
+            }
+
+            @Override
+            public void onSkipped(ProjectImageEntry<?> entry, String reason) {
+                results.add(new BulkOCRResults.EntryResult(entry, reason, null,
+                        Collections.emptyList(), Collections.emptyMap(), null));
+            }
+
+            @Override
+            public void onError(ProjectImageEntry<?> entry, Exception error) {
+                logger.warn("OCR failed for {}: {}", entry.getImageName(), error.getMessage());
+                results.add(new BulkOCRResults.EntryResult(entry, BatchOCRPipeline.errorStatus(error), null,
+                        Collections.emptyList(), Collections.emptyMap(), error.getMessage()));
+            }
+        };
+
+        Thread thread = new Thread(() -> {
+            int changed = 0;
+            try {
+                pipeline.run(items, listener);
+                if (transaction != null) {
+                    changed = transaction.commit(null);
+                }
+            } catch (IOException e) {
+                logger.error("Could not save metadata to the project: {}", e.getMessage());
+            } finally {
+                results.finish(changed);
+            }
+        }, "ocr-bulk-entries");
+        thread.setDaemon(true);
+        thread.start();
+        return results;
+    }
+
     // ========== Utility Methods ==========
 
     /**
@@ -335,26 +484,23 @@ public class OCR4Labels {
                 .build();
     }
 
-    private static OCREngine getOrCreateEngine() throws OCREngine.OCRException {
-        OCREngine engine = engineThreadLocal.get();
-        if (engine == null || !engine.isInitialized()) {
-            engine = new OCREngine();
-
-            String tessdataPath = OCRPreferences.getTessdataPath();
-            if (tessdataPath == null || tessdataPath.isEmpty()) {
-                throw new OCREngine.OCRException(
-                        "Tessdata path not configured. Please configure in Extensions > OCR for Labels > OCR Settings");
-            }
-
-            File tessdataDir = new File(tessdataPath);
-            if (!tessdataDir.exists()) {
-                throw new OCREngine.OCRException("Tessdata directory not found: " + tessdataPath);
-            }
+    /**
+     * Gets the shared engine pool for the configured tessdata path.
+     * Engines are borrowed per call, so scripts may run OCR from several threads at once.
+     */
+    static OCREnginePool getEnginePool() throws OCREngine.OCRException {
+        String tessdataPath = OCRPreferences.getTessdataPath();
+        if (tessdataPath == null || tessdataPath.isEmpty()) {
+            throw new OCREngine.OCRException(
+                    "Tessdata path not configured. Please configure in Extensions > OCR for Labels > OCR Settings");
+        }
 
-            engine.initialize(tessdataPath, OCRPreferences.getLanguage());
-            engineThreadLocal.set(engine);
+        File tessdataDir = new File(tessdataPath);
+        if (!tessdataDir.exists()) {
+            throw new OCREngine.OCRException("Tessdata directory not found: " + tessdataPath);
         }
-        return engine;
+
+        return OCREnginePool.getShared(tessdataPath, OCRPreferences.getLanguage());
     }
 
     private static List<String> extractTextsFromResult(OCRResult result) {
@@ -418,13 +564,9 @@ public class OCR4Labels {
     /**
      * Cleans up thread-local resources.
      * Should be called at end of batch processing if needed.
+     * Pooled OCR engines are released automatically once idle.
      */
     public static void cleanup() {
-        OCREngine engine = engineThreadLocal.get();
-        if (engine != null) {
-            engine.dispose();
-            engineThreadLocal.remove();
-        }
         lastResultsThreadLocal.remove();
     }
 }
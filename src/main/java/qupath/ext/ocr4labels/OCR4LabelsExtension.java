@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.ocr4labels.controller.OCRController;
 import qupath.ext.ocr4labels.preferences.OCRPreferences;
+import qupath.ext.ocr4labels.service.OCRResultCache;
 import qupath.ext.ocr4labels.utilities.LabelImageUtility;
 import qupath.lib.common.Version;
 import qupath.lib.gui.QuPathGUI;
@@ -77,6 +78,13 @@ public class OCR4LabelsExtension implements QuPathExtension, GitHubProject {
 
         // Register persistent preferences
         OCRPreferences.installPreferences();
+        OCRResultCache.getShared().setEnabled(OCRPreferences.isResultCache());
+        OCRPreferences.resultCacheProperty().addListener((obs, old, newVal) ->
+                OCRResultCache.getShared().setEnabled(newVal));
+        // Keep the disk tier of the result cache in the open project
+        OCRResultCache.getShared().useProject(qupath.getProject());
+        qupath.projectProperty().addListener((obs, old, newVal) ->
+                OCRResultCache.getShared().useProject(newVal));
 
         // Build menu on FX thread
         Platform.runLater(() -> addMenuItems(qupath));
@@ -4,13 +4,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.ocr4labels.model.OCRConfiguration;
 import qupath.ext.ocr4labels.model.OCRResult;
+import qupath.ext.ocr4labels.model.TextBlock;
 import qupath.ext.ocr4labels.preferences.OCRPreferences;
 import qupath.ext.ocr4labels.service.OCREngine;
 import qupath.ext.ocr4labels.utilities.LabelImageUtility;
 import qupath.lib.images.ImageData;
+import qupath.lib.projects.ProjectImageEntry;
 import qupath.lib.scripting.QP;
 
 import java.awt.image.BufferedImage;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -35,6 +38,10 @@ import java.util.List;
  *     .detectOrientation()    // Enable orientation detection
  *     .autoRotate()           // Auto-rotate if sideways
  *     .run()
+ *
+ * // Sweep confidence thresholds; low-confidence blocks are kept, so OCR runs once
+ * def result = OCR4Labels.builder().minConfidence(0.0).runDetailed()
+ * [0.3, 0.5, 0.7].each { println it + ": " + result.withMinConfidence(it).getFullText() }
  * </pre>
  *
  * @author Michael Nelson
@@ -47,6 +54,7 @@ public class OCRBuilder {
     private String language;
     private double minConfidence = 0.5;
     private boolean enhanceContrast = true;
+    private OCRConfiguration.ThresholdMethod thresholdMethod = OCRConfiguration.ThresholdMethod.MEAN;
     private boolean invertImage = false;
     private boolean detectOrientation = false;
     private boolean autoRotate = false;
@@ -160,6 +168,19 @@ public class OCRBuilder {
         return this;
     }
 
+    /**
+     * Enable image enhancement using a specific thresholding method.
+     * SAUVOLA copes better with uneven lighting; OTSU is a fast global threshold.
+     *
+     * @param method Thresholding method (default: MEAN)
+     * @return this builder
+     */
+    public OCRBuilder enhance(OCRConfiguration.ThresholdMethod method) {
+        this.enhanceContrast = true;
+        this.thresholdMethod = method != null ? method : OCRConfiguration.ThresholdMethod.MEAN;
+        return this;
+    }
+
     /**
      * Invert the image colors.
      * Use this for light text on dark backgrounds.
@@ -262,6 +283,7 @@ public class OCRBuilder {
                 .language(language)
                 .minConfidence(minConfidence)
                 .enhanceContrast(enhanceContrast)
+                .thresholdMethod(thresholdMethod)
                 .detectOrientation(detectOrientation)
                 .autoRotate(autoRotate)
                 .enablePreprocessing(true)
@@ -349,16 +371,12 @@ public class OCRBuilder {
 
         OCRConfiguration config = build();
         try {
-            OCREngine engine = new OCREngine();
-            String tessdataPath = OCRPreferences.getTessdataPath();
-            if (tessdataPath == null || tessdataPath.isEmpty()) {
-                logger.error("Tessdata path not configured");
-                return Collections.emptyList();
-            }
-            engine.initialize(tessdataPath, language);
-            OCRResult result = engine.processImage(processedImage, config);
+            OCRResult result = OCR4Labels.getEnginePool()
+                    .withEngine(engine -> engine.processImage(processedImage, config));
 
             return result.getTextBlocks().stream()
+                    .filter(block -> block.getType() == TextBlock.BlockType.WORD
+                            || block.getType() == TextBlock.BlockType.LINE)
                     .map(block -> block.getText())
                     .filter(text -> text != null && !text.isEmpty())
                     .distinct()
@@ -370,6 +388,25 @@ public class OCRBuilder {
         }
     }
 
+    /**
+     * Run OCR with the configured settings on the labels of many project entries.
+     *
+     * @param entries     The entries to process, e.g. {@code getProject().getImageList()}
+     * @param parallelism Number of entries recognized at the same time
+     * @return Results that fill in as entries finish
+     * @see OCR4Labels#runOCRForEntries(Collection, OCRBuilder, int, OCR4Labels.MetadataCallback)
+     */
+    public BulkOCRResults runForEntries(Collection<? extends ProjectImageEntry<?>> entries, int parallelism) {
+        return OCR4Labels.runOCRForEntries(entries, this, parallelism);
+    }
+
+    /**
+     * Whether label images are inverted before OCR.
+     */
+    boolean isInvert() {
+        return invertImage;
+    }
+
     /**
      * Generate a script representation of this builder's configuration.
      * Useful for workflow recording.
@@ -407,7 +444,10 @@ public class OCRBuilder {
         }
 
         // Preprocessing
-        if (enhanceContrast) {
+        if (enhanceContrast && thresholdMethod != OCRConfiguration.ThresholdMethod.MEAN) {
+            script.append("\n    .enhance(OCRConfiguration.ThresholdMethod.")
+                    .append(thresholdMethod.name()).append(")");
+        } else if (enhanceContrast) {
             script.append("\n    .enhance()");
         } else {
             script.append("\n    .noEnhance()");
@@ -0,0 +1,411 @@
+package qupath.ext.ocr4labels;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.ocr4labels.model.OCRConfiguration;
+import qupath.ext.ocr4labels.model.OCRResult;
+import qupath.ext.ocr4labels.model.OCRTemplate;
+import qupath.ext.ocr4labels.preferences.OCRPreferences;
+import qupath.ext.ocr4labels.service.BatchOCRPipeline;
+import qupath.ext.ocr4labels.service.OCREngine;
+import qupath.ext.ocr4labels.service.OCREnginePool;
+import qupath.ext.ocr4labels.service.OCRResultCache;
+import qupath.ext.ocr4labels.service.OCRResultStore;
+import qupath.ext.ocr4labels.utilities.BatchResultWriter;
+import qupath.ext.ocr4labels.utilities.LabelImageIndex;
+import qupath.ext.ocr4labels.utilities.LabelImageUtility;
+import qupath.ext.ocr4labels.utilities.MetadataTransaction;
+import qupath.lib.projects.Project;
+import qupath.lib.projects.ProjectIO;
+import qupath.lib.projects.ProjectImageEntry;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a template over every image of a project without a GUI.
+ *
+ * <p>The project is opened directly from its {@code .qpproj} file and each entry goes
+ * through a {@link BatchOCRPipeline} backed by its own {@link OCREnginePool}, so labels
+ * are read, recognized and mapped in parallel without opening any viewer or resolving
+ * entries through the current image. One row per image is streamed to a CSV or JSON Lines
+ * file as soon as the image completes (see {@link BatchResultWriter}), and results are
+ * saved to the project's {@link OCRResultStore}. Metadata can optionally be written to
+ * the project at the end, with a single project sync.</p>
+ *
+ * <p>From a script:</p>
+ * <pre>
+ * def summary = ProjectBatchRunner.builder()
+ *     .project(new File("/data/slides/project.qpproj"))
+ *     .template(new File("/data/templates/labels.json"))
+ *     .output(new File("/data/ocr/labels.csv"))
+ *     .parallelism(8)
+ *     .build()
+ *     .run()
+ * </pre>
+ *
+ * <p>From a shell, with QuPath's libraries and this extension on the class path:</p>
+ * <pre>
+ * java -cp "QuPath/lib/app/*:qupath-extension-ocr4labels.jar" qupath.ext.ocr4labels.ProjectBatchRunner \
+ *     project.qpproj labels.json --output labels.jsonl --parallelism 8 --tessdata /opt/tessdata
+ * </pre>
+ *
+ * <p>Images that take longer than the per-image timeout are abandoned and written with
+ * the status "Timeout"; they count as failed in the {@link Summary}.</p>
+ */
+public class ProjectBatchRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectBatchRunner.class);
+
+    private final File projectFile;
+    private final File templateFile;
+    private final File outputFile;
+    private final int parallelism;
+    private final String tessdataPath;
+    private final boolean applyMetadata;
+    private final int imageTimeoutSeconds;
+
+    private ProjectBatchRunner(Builder builder) {
+        this.projectFile = builder.projectFile;
+        this.templateFile = builder.templateFile;
+        this.outputFile = builder.outputFile;
+        this.parallelism = builder.parallelism;
+        this.tessdataPath = builder.tessdataPath;
+        this.applyMetadata = builder.applyMetadata;
+        this.imageTimeoutSeconds = builder.imageTimeoutSeconds;
+    }
+
+    /**
+     * Creates a builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Processes every entry of the project, blocking until all have finished.
+     *
+     * @return Counts of the outcomes
+     * @throws IOException             if the project, template or output file cannot be
+     *                                 read or written, or the project cannot be synced
+     * @throws OCREngine.OCRException  if no OCR engine can be created
+     */
+    public Summary run() throws IOException, OCREngine.OCRException {
+        long startTime = System.currentTimeMillis();
+
+        Project<BufferedImage> project = ProjectIO.loadProject(projectFile, BufferedImage.class);
+        OCRTemplate template = OCRTemplate.loadFromFile(templateFile);
+        if (template.getEnabledMappingCount() == 0) {
+            throw new IOException("Template has no enabled field mappings: " + templateFile);
+        }
+        OCRConfiguration config = template.getConfiguration() != null ? template.getConfiguration() :
+                OCRConfiguration.builder()
+                        .pageSegMode(OCRConfiguration.PageSegMode.SPARSE_TEXT)
+                        .language(OCRPreferences.getLanguage())
+                        .minConfidence(OCRPreferences.getMinConfidence())
+                        .enhanceContrast(OCRPreferences.isEnhanceContrast())
+                        .build();
+
+        List<String> keys = new ArrayList<>(template.mapFieldValues(Collections.emptyList()).keySet());
+        List<ProjectImageEntry<BufferedImage>> entries = project.getImageList();
+
+        LabelImageIndex index = LabelImageIndex.forProject(project);
+        OCRResultCache.getShared().useProject(project);
+        OCRResultStore store = OCRResultStore.forProject(project);
+        MetadataTransaction transaction = applyMetadata ? new MetadataTransaction(project) : null;
+        Map<ProjectImageEntry<BufferedImage>, Long> labelHashes = new ConcurrentHashMap<>();
+
+        logger.info("Running template {} over {} entries of {} with {} workers",
+                templateFile.getName(), entries.size(), projectFile, parallelism);
+
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<IOException> writeError = new AtomicReference<>();
+
+        try (OCREnginePool pool = new OCREnginePool(tessdataPath, config.getLanguage(),
+                     parallelism, OCREnginePool.DEFAULT_IDLE_TIMEOUT_MS);
+             BatchResultWriter writer = BatchResultWriter.open(outputFile, keys)) {
+
+            BatchOCRPipeline<ProjectImageEntry<BufferedImage>> pipeline = new BatchOCRPipeline<>(
+                    pool, config, entry -> {
+                        BufferedImage image = LabelImageUtility.retrieveLabelImage(entry);
+                        if (image != null) {
+                            labelHashes.put(entry, OCRResultCache.hashImage(image));
+                        }
+                        return image;
+                    },
+                    BatchOCRPipeline.DEFAULT_IO_THREADS, parallelism, 0);
+            pipeline.setImageTimeout(imageTimeoutSeconds * 1000L);
+
+            pipeline.run(entries, new BatchOCRPipeline.Listener<>() {
+                @Override
+                public void onResult(ProjectImageEntry<BufferedImage> entry, OCRResult result) {
+                    store.save(entry, result, config, labelHashes.getOrDefault(entry, 0L));
+                    Map<String, String> values = template.mapFieldValues(OCRTemplate.getFieldTexts(result));
+                    if (transaction != null) {
+                        transaction.putAll(entry, values);
+                    }
+                    write(entry, "Done", values, result.getProcessingTimeMs(), null);
+                    done.incrementAndGet();
+                }
+
+                @Override
+                public void onSkipped(ProjectImageEntry<BufferedImage> entry, String reason) {
+                    write(entry, reason, Collections.emptyMap(), -1, null);
+                    skipped.incrementAndGet();
+                }
+
+                @Override
+                public void onError(ProjectImageEntry<BufferedImage> entry, Exception error) {
+                    logger.warn("OCR failed for {}: {}", entry.getImageName(), error.getMessage());
+                    write(entry, BatchOCRPipeline.errorStatus(error), Collections.emptyMap(), -1, error.getMessage());
+                    failed.incrementAndGet();
+                }
+
+                private void write(ProjectImageEntry<BufferedImage> entry, String status,
+                                   Map<String, String> values, long processingTimeMs, String error) {
+                    labelHashes.remove(entry);
+                    try {
+                        writer.write(entry.getID(), entry.getImageName(), status, values, processingTimeMs, error);
+                    } catch (IOException e) {
+                        // Without output there is no point in continuing
+                        if (writeError.compareAndSet(null, e)) {
+                            pipeline.cancel();
+                        }
+                    }
+                    int completed = done.get() + skipped.get() + failed.get() + 1;
+                    logger.info("[{}/{}] {}: {}", completed, entries.size(), entry.getImageName(), status);
+                }
+            });
+        } finally {
+            index.save();
+        }
+
+        if (writeError.get() != null) {
+            throw writeError.get();
+        }
+        if (transaction != null) {
+            transaction.commit(null);
+        }
+
+        Summary summary = new Summary(entries.size(), done.get(), skipped.get(), failed.get(),
+                System.currentTimeMillis() - startTime);
+        logger.info("{}", summary);
+        return summary;
+    }
+
+    /**
+     * Command line entry point.
+     *
+     * <pre>
+     * ProjectBatchRunner &lt;project.qpproj&gt; &lt;template.json&gt; [--output file.csv|file.jsonl]
+     *     [--parallelism n] [--tessdata dir] [--timeout seconds] [--apply]
+     * </pre>
+     */
+    public static void main(String[] args) {
+        Builder builder = builder();
+        List<String> positional = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--output":
+                        builder.output(new File(args[++i]));
+                        break;
+                    case "--parallelism":
+                        builder.parallelism(Integer.parseInt(args[++i]));
+                        break;
+                    case "--tessdata":
+                        builder.tessdataPath(args[++i]);
+                        break;
+                    case "--timeout":
+                        builder.imageTimeout(Integer.parseInt(args[++i]));
+                        break;
+                    case "--apply":
+                        builder.applyMetadata(true);
+                        break;
+                    default:
+                        positional.add(args[i]);
+                        break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            positional.clear();
+        }
+        if (positional.size() != 2) {
+            System.err.println("Usage: ProjectBatchRunner <project.qpproj> <template.json> " +
+                    "[--output file.csv|file.jsonl] [--parallelism n] [--tessdata dir] [--timeout seconds] [--apply]");
+            System.exit(2);
+        }
+
+        try {
+            Summary summary = builder.project(new File(positional.get(0)))
+                    .template(new File(positional.get(1)))
+                    .build()
+                    .run();
+            System.out.println(summary);
+            System.exit(summary.getFailed() > 0 ? 1 : 0);
+        } catch (IOException | OCREngine.OCRException | IllegalArgumentException e) {
+            System.err.println("Batch OCR failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Outcome counts of a run.
+     */
+    public static class Summary {
+        private final int total;
+        private final int done;
+        private final int skipped;
+        private final int failed;
+        private final long elapsedMs;
+
+        private Summary(int total, int done, int skipped, int failed, long elapsedMs) {
+            this.total = total;
+            this.done = done;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getDone() {
+            return done;
+        }
+
+        /**
+         * Number of entries skipped, e.g. because they have no label image.
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Batch OCR of %d entries: %d done, %d skipped, %d failed in %.1fs",
+                    total, done, skipped, failed, elapsedMs / 1000.0);
+        }
+    }
+
+    /**
+     * Builder for {@link ProjectBatchRunner}.
+     */
+    public static class Builder {
+        private File projectFile;
+        private File templateFile;
+        private File outputFile;
+        private int parallelism = OCREnginePool.defaultPoolSize();
+        private String tessdataPath = OCRPreferences.getTessdataPath();
+        private boolean applyMetadata = false;
+        private int imageTimeoutSeconds = OCRPreferences.getBatchImageTimeout();
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the project file ({@code project.qpproj}).
+         */
+        public Builder project(File projectFile) {
+            this.projectFile = projectFile;
+            return this;
+        }
+
+        /**
+         * Sets the template file saved from the OCR dialog.
+         */
+        public Builder template(File templateFile) {
+            this.templateFile = templateFile;
+            return this;
+        }
+
+        /**
+         * Sets the output file. A {@code .jsonl} extension selects JSON Lines, anything else CSV.
+         * Defaults to {@code ocr_results.csv} in the project directory.
+         */
+        public Builder output(File outputFile) {
+            this.outputFile = outputFile;
+            return this;
+        }
+
+        /**
+         * Sets the number of OCR workers, which is also the number of engines created.
+         */
+        public Builder parallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the tessdata directory. Defaults to the one in the OCR preferences.
+         */
+        public Builder tessdataPath(String tessdataPath) {
+            this.tessdataPath = tessdataPath;
+            return this;
+        }
+
+        /**
+         * Whether to write the mapped fields to the project entries' metadata when the run ends.
+         */
+        public Builder applyMetadata(boolean applyMetadata) {
+            this.applyMetadata = applyMetadata;
+            return this;
+        }
+
+        /**
+         * Sets the time in seconds OCR may spend on one image, or 0 for no limit.
+         * Defaults to the one in the OCR preferences.
+         */
+        public Builder imageTimeout(int seconds) {
+            this.imageTimeoutSeconds = Math.max(0, seconds);
+            return this;
+        }
+
+        /**
+         * Builds the runner.
+         *
+         * @throws IllegalArgumentException if the project, template or tessdata path is
+         *                                  missing or the parallelism is less than 1
+         */
+        public ProjectBatchRunner build() {
+            Objects.requireNonNull(projectFile, "Project file cannot be null");
+            Objects.requireNonNull(templateFile, "Template file cannot be null");
+            if (!projectFile.isFile()) {
+                throw new IllegalArgumentException("Project file not found: " + projectFile);
+            }
+            if (!templateFile.isFile()) {
+                throw new IllegalArgumentException("Template file not found: " + templateFile);
+            }
+            if (tessdataPath == null || tessdataPath.isEmpty() || !new File(tessdataPath).isDirectory()) {
+                throw new IllegalArgumentException("Tessdata directory not found: " + tessdataPath);
+            }
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be at least 1");
+            }
+            if (outputFile == null) {
+                outputFile = new File(projectFile.getAbsoluteFile().getParentFile(), "ocr_results.csv");
+            }
+            return new ProjectBatchRunner(this);
+        }
+    }
+}
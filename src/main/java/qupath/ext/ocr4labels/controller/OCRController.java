@@ -7,17 +7,22 @@ import qupath.ext.ocr4labels.model.OCRConfiguration;
 import qupath.ext.ocr4labels.model.OCRResult;
 import qupath.ext.ocr4labels.preferences.OCRPreferences;
 import qupath.ext.ocr4labels.service.OCREngine;
+import qupath.ext.ocr4labels.service.OCREnginePool;
+import qupath.ext.ocr4labels.service.OCRExecutor;
+import qupath.ext.ocr4labels.service.OCRPriority;
+import qupath.ext.ocr4labels.service.OCRResultPublisher;
 import qupath.ext.ocr4labels.ui.BatchOCRDialog;
 import qupath.ext.ocr4labels.ui.OCRDialog;
 import qupath.ext.ocr4labels.ui.OCRSettingsDialog;
-import qupath.ext.ocr4labels.utilities.LabelImageUtility;
 import qupath.fx.dialogs.Dialogs;
 import qupath.lib.gui.QuPathGUI;
-import qupath.lib.images.ImageData;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * Main controller for OCR operations.
@@ -29,11 +34,12 @@ public class OCRController {
 
     private static OCRController instance;
 
-    private OCREngine ocrEngine;
-    private boolean engineInitialized = false;
+    // Regions handled per engine before region OCR is spread over another engine
+    private static final int REGIONS_PER_ENGINE = 4;
+
+    private OCREnginePool enginePool;
 
     private OCRController() {
-        this.ocrEngine = new OCREngine();
     }
 
     /**
@@ -76,7 +82,7 @@ public class OCRController {
         }
 
         // Show the OCR dialog (it handles project navigation internally)
-        OCRDialog.show(qupath, ocrEngine);
+        OCRDialog.show(qupath, enginePool);
     }
 
     /**
@@ -103,26 +109,8 @@ public class OCRController {
             return;
         }
 
-        // Count images with labels
-        long imagesWithLabels = project.getImageList().stream()
-                .filter(entry -> {
-                    try {
-                        ImageData<?> data = entry.readImageData();
-                        return data != null && LabelImageUtility.isLabelImageAvailable(data);
-                    } catch (Exception e) {
-                        return false;
-                    }
-                })
-                .count();
-
-        if (imagesWithLabels == 0) {
-            Dialogs.showWarningNotification("OCR Warning",
-                    "No images in the project have label images available.");
-            return;
-        }
-
-        // Show batch processing dialog
-        BatchOCRDialog.show(qupath, ocrEngine);
+        // Show batch processing dialog; it scans the project for labels in the background
+        BatchOCRDialog.show(qupath, enginePool);
     }
 
     /**
@@ -136,24 +124,99 @@ public class OCRController {
     }
 
     /**
-     * Performs OCR on an image asynchronously.
+     * Performs OCR on an image asynchronously on the shared {@link OCRExecutor}.
+     * If the OCR queue is full the future fails with a
+     * {@link java.util.concurrent.RejectedExecutionException}.
      *
      * @param image  The image to process
      * @param config The OCR configuration
      * @return CompletableFuture containing the OCR result
      */
     public CompletableFuture<OCRResult> performOCRAsync(BufferedImage image, OCRConfiguration config) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                if (!engineInitialized) {
-                    throw new OCREngine.OCRException("OCR engine not initialized");
-                }
-                return ocrEngine.processImage(image, config);
-            } catch (OCREngine.OCRException e) {
-                logger.error("OCR processing failed", e);
-                throw new RuntimeException(e);
-            }
+        CompletableFuture<OCRResult> future = OCRExecutor.getShared().submit(OCRPriority.INTERACTIVE,
+                () -> performOCR(image, config));
+        future.exceptionally(ex -> {
+            logger.error("OCR processing failed", ex);
+            return null;
+        });
+        return future;
+    }
+
+    /**
+     * Speculatively runs OCR on an image whose result is likely to be needed soon,
+     * so that a later run with the same settings is answered from the result cache.
+     * Prefetch work waits behind interactive requests and is dropped, rather than
+     * queued, when the OCR queue is full.
+     *
+     * @param image  The image to process
+     * @param config The OCR configuration
+     * @return CompletableFuture containing the OCR result
+     */
+    public CompletableFuture<OCRResult> prefetchOCR(BufferedImage image, OCRConfiguration config) {
+        return OCRExecutor.getShared().submit(OCRPriority.PREFETCH,
+                () -> requireEnginePool().withEngine(OCRPriority.PREFETCH,
+                        engine -> engine.processImage(image, config)));
+    }
+
+    /**
+     * Performs OCR on several regions of one image asynchronously.
+     * The image is uploaded once per engine and each region is recognized in turn;
+     * larger region sets are spread over a few pooled engines.
+     *
+     * @param image   The full image (e.g. the label)
+     * @param regions Regions to recognize, in image pixel coordinates
+     * @param config  The OCR configuration
+     * @return CompletableFuture containing one result per region, in order
+     */
+    public CompletableFuture<List<OCRResult>> performRegionOCRAsync(BufferedImage image,
+                                                                    List<Rectangle> regions,
+                                                                    OCRConfiguration config) {
+        CompletableFuture<List<OCRResult>> future = OCRExecutor.getShared().submit(OCRPriority.INTERACTIVE, () -> {
+            OCREnginePool pool = requireEnginePool();
+            int parallelism = (regions.size() + REGIONS_PER_ENGINE - 1) / REGIONS_PER_ENGINE;
+            return pool.processRegions(image, regions, config, parallelism);
+        });
+        future.exceptionally(ex -> {
+            logger.error("Region OCR processing failed", ex);
+            return null;
         });
+        return future;
+    }
+
+    /**
+     * Performs OCR on several images, publishing each result as soon as it completes.
+     * Results arrive in completion order. Recognition runs on the shared
+     * {@link OCRExecutor} at batch priority and follows the subscriber's demand, so a
+     * slow consumer holds back further work instead of buffering results.
+     *
+     * <pre>
+     * controller.publishOCR(images, config).subscribe(subscriber)
+     * </pre>
+     *
+     * @param images The images to process
+     * @param config The OCR configuration
+     * @return A single-use publisher of results
+     * @throws OCREngine.OCRException if the engine is not initialized
+     */
+    public Flow.Publisher<OCRResult> publishOCR(List<BufferedImage> images, OCRConfiguration config)
+            throws OCREngine.OCRException {
+        return publishOCR(images, config, OCRPriority.BATCH);
+    }
+
+    /**
+     * Performs OCR on several images at the given priority, publishing each result as
+     * soon as it completes.
+     *
+     * @param images   The images to process
+     * @param config   The OCR configuration
+     * @param priority Scheduling class of the work
+     * @return A single-use publisher of results
+     * @throws OCREngine.OCRException if the engine is not initialized
+     * @see #publishOCR(List, OCRConfiguration)
+     */
+    public Flow.Publisher<OCRResult> publishOCR(List<BufferedImage> images, OCRConfiguration config,
+                                                OCRPriority priority) throws OCREngine.OCRException {
+        return new OCRResultPublisher(requireEnginePool(), OCRExecutor.getShared(), images, config, priority, 0);
     }
 
     /**
@@ -166,10 +229,15 @@ public class OCRController {
      */
     public OCRResult performOCR(BufferedImage image, OCRConfiguration config)
             throws OCREngine.OCRException {
-        if (!engineInitialized) {
+        return requireEnginePool().withEngine(engine -> engine.processImage(image, config));
+    }
+
+    private OCREnginePool requireEnginePool() throws OCREngine.OCRException {
+        OCREnginePool pool = enginePool;
+        if (pool == null || pool.isClosed()) {
             throw new OCREngine.OCRException("OCR engine not initialized");
         }
-        return ocrEngine.processImage(image, config);
+        return pool;
     }
 
     /**
@@ -179,7 +247,7 @@ public class OCRController {
      * @return true if engine is ready, false otherwise
      */
     private boolean ensureEngineInitialized(QuPathGUI qupath) {
-        if (engineInitialized && ocrEngine.isInitialized()) {
+        if (isEngineInitialized()) {
             return true;
         }
 
@@ -242,11 +310,12 @@ public class OCRController {
             }
         }
 
-        // Initialize engine
+        // Initialize the engine pool, creating one engine up front so errors surface here
         try {
-            ocrEngine.initialize(tessdataPath, language);
-            engineInitialized = true;
-            logger.info("OCR engine initialized successfully");
+            OCREnginePool pool = OCREnginePool.getShared(tessdataPath, language);
+            pool.warmUp();
+            enginePool = pool;
+            logger.info("OCR engine pool initialized (max {} engines)", pool.getMaxSize());
             return true;
         } catch (OCREngine.OCRException e) {
             Dialogs.showErrorMessage("OCR Initialization Error",
@@ -303,17 +372,25 @@ public class OCRController {
      * Checks if the OCR engine is initialized.
      */
     public boolean isEngineInitialized() {
-        return engineInitialized && ocrEngine.isInitialized();
+        OCREnginePool pool = enginePool;
+        return pool != null && !pool.isClosed()
+                && pool.getTessdataPath().equals(OCRPreferences.getTessdataPath());
+    }
+
+    /**
+     * Gets the engine pool used for OCR, or null if not yet initialized.
+     */
+    public OCREnginePool getEnginePool() {
+        return enginePool;
     }
 
     /**
      * Disposes resources held by the controller.
      */
     public void dispose() {
-        if (ocrEngine != null) {
-            ocrEngine.dispose();
-        }
-        engineInitialized = false;
+        OCRExecutor.shutdownShared();
+        OCREnginePool.shutdownShared();
+        enginePool = null;
         logger.info("OCR controller disposed");
     }
 }
@@ -74,6 +74,19 @@ public class OCRConfiguration {
         }
     }
 
+    /**
+     * Binarization methods used when contrast enhancement is enabled.
+     * All methods produce black text (0) on a white background (255).
+     */
+    public enum ThresholdMethod {
+        /** Local mean minus a fixed offset (default) */
+        MEAN,
+        /** Sauvola local threshold, adapts to local contrast; good for uneven lighting */
+        SAUVOLA,
+        /** Single global Otsu threshold; fast, good for evenly lit labels */
+        OTSU
+    }
+
     private final PageSegMode pageSegMode;
     private final EngineMode engineMode;
     private final String language;
@@ -82,6 +95,7 @@ public class OCRConfiguration {
     private final boolean autoRotate;
     private final boolean enhanceContrast;
     private final boolean detectOrientation;
+    private final ThresholdMethod thresholdMethod;
 
     private OCRConfiguration(Builder builder) {
         this.pageSegMode = builder.pageSegMode;
@@ -92,6 +106,7 @@ public class OCRConfiguration {
         this.autoRotate = builder.autoRotate;
         this.enhanceContrast = builder.enhanceContrast;
         this.detectOrientation = builder.detectOrientation;
+        this.thresholdMethod = builder.thresholdMethod;
     }
 
     /**
@@ -120,7 +135,8 @@ public class OCRConfiguration {
                 .enablePreprocessing(enablePreprocessing)
                 .autoRotate(autoRotate)
                 .enhanceContrast(enhanceContrast)
-                .detectOrientation(detectOrientation);
+                .detectOrientation(detectOrientation)
+                .thresholdMethod(getThresholdMethod());
     }
 
     public PageSegMode getPageSegMode() {
@@ -155,6 +171,11 @@ public class OCRConfiguration {
         return detectOrientation;
     }
 
+    public ThresholdMethod getThresholdMethod() {
+        // Templates saved before this option existed deserialize with a null value
+        return thresholdMethod != null ? thresholdMethod : ThresholdMethod.MEAN;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -167,21 +188,34 @@ public class OCRConfiguration {
                detectOrientation == that.detectOrientation &&
                pageSegMode == that.pageSegMode &&
                engineMode == that.engineMode &&
+               getThresholdMethod() == that.getThresholdMethod() &&
                Objects.equals(language, that.language);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(pageSegMode, engineMode, language, minConfidence,
-                enablePreprocessing, autoRotate, enhanceContrast, detectOrientation);
+        // Enums are hashed by name so the value is the same in every session;
+        // it is part of the key for OCR results cached on disk
+        return Objects.hash(pageSegMode != null ? pageSegMode.name() : null,
+                engineMode != null ? engineMode.name() : null, language, minConfidence,
+                enablePreprocessing, autoRotate, enhanceContrast, detectOrientation,
+                getThresholdMethod().name());
+    }
+
+    /**
+     * Hash of the settings that affect recognition, i.e. everything except the minimum
+     * confidence, which only filters the recognized blocks.
+     */
+    public int getRecognitionHash() {
+        return toBuilder().minConfidence(0).build().hashCode();
     }
 
     @Override
     public String toString() {
         return String.format("OCRConfiguration[psm=%s, oem=%s, lang=%s, minConf=%.0f%%, " +
-                        "preprocess=%b, autoRotate=%b, contrast=%b, detectOrient=%b]",
+                        "preprocess=%b, autoRotate=%b, contrast=%b, threshold=%s, detectOrient=%b]",
                 pageSegMode, engineMode, language, minConfidence * 100,
-                enablePreprocessing, autoRotate, enhanceContrast, detectOrientation);
+                enablePreprocessing, autoRotate, enhanceContrast, getThresholdMethod(), detectOrientation);
     }
 
     /**
@@ -196,6 +230,7 @@ public class OCRConfiguration {
         private boolean autoRotate = true;
         private boolean enhanceContrast = true;
         private boolean detectOrientation = true;
+        private ThresholdMethod thresholdMethod = ThresholdMethod.MEAN;
 
         public Builder pageSegMode(PageSegMode mode) {
             this.pageSegMode = mode != null ? mode : PageSegMode.AUTO;
@@ -237,6 +272,11 @@ public class OCRConfiguration {
             return this;
         }
 
+        public Builder thresholdMethod(ThresholdMethod method) {
+            this.thresholdMethod = method != null ? method : ThresholdMethod.MEAN;
+            return this;
+        }
+
         public OCRConfiguration build() {
             return new OCRConfiguration(this);
         }
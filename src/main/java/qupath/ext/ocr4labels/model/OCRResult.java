@@ -9,10 +9,21 @@ import java.util.stream.Collectors;
 /**
  * Contains the results of OCR processing on a single image.
  * Holds all detected text blocks along with processing metadata.
+ *
+ * <p>Every block Tesseract recognized is kept, whatever its confidence. The result is a
+ * view of those blocks at a minimum confidence: {@link #getTextBlocks()} and the text and
+ * statistics methods only see blocks at or above it. They also only see words and lines;
+ * paragraph and block entries, which repeat the text of their lines, are available
+ * separately from {@link #getLayoutBlocks()}. {@link #withMinConfidence(double)}
+ * returns a view at another threshold without running OCR again, so confidence can be
+ * tuned interactively or swept from a script.</p>
  */
 public class OCRResult {
 
+    private final List<TextBlock> allBlocks;
     private final List<TextBlock> textBlocks;
+    private final List<TextBlock> layoutBlocks;
+    private final double minConfidence;
     private final long processingTimeMs;
     private final LocalDateTime timestamp;
     private final int originalImageWidth;
@@ -30,10 +41,34 @@ public class OCRResult {
      */
     public OCRResult(List<TextBlock> textBlocks, long processingTimeMs,
                      int imageWidth, int imageHeight, int detectedOrientation) {
-        this.textBlocks = textBlocks != null ?
-                new ArrayList<>(textBlocks) : new ArrayList<>();
+        this(textBlocks, 0.0, processingTimeMs, imageWidth, imageHeight, detectedOrientation);
+    }
+
+    /**
+     * Creates a new OCR result from all recognized blocks, viewed at a minimum confidence.
+     *
+     * @param allBlocks           All recognized text blocks, unfiltered
+     * @param minConfidence       Minimum confidence (0.0 to 1.0) of the blocks in this view
+     * @param processingTimeMs    Time taken for OCR processing in milliseconds
+     * @param imageWidth          Width of the processed image
+     * @param imageHeight         Height of the processed image
+     * @param detectedOrientation Detected orientation in degrees (0, 90, 180, 270)
+     */
+    public OCRResult(List<TextBlock> allBlocks, double minConfidence, long processingTimeMs,
+                     int imageWidth, int imageHeight, int detectedOrientation) {
+        this(allBlocks != null ? new ArrayList<>(allBlocks) : new ArrayList<>(), minConfidence,
+                processingTimeMs, LocalDateTime.now(), imageWidth, imageHeight, detectedOrientation);
+    }
+
+    private OCRResult(List<TextBlock> allBlocks, double minConfidence, long processingTimeMs,
+                      LocalDateTime timestamp, int imageWidth, int imageHeight, int detectedOrientation) {
+        this.allBlocks = allBlocks;
+        this.minConfidence = minConfidence;
+        List<TextBlock> visible = minConfidence > 0 ? filter(allBlocks, minConfidence) : allBlocks;
+        this.textBlocks = visible.stream().filter(OCRResult::isWordOrLine).collect(Collectors.toList());
+        this.layoutBlocks = visible.stream().filter(block -> !isWordOrLine(block)).collect(Collectors.toList());
         this.processingTimeMs = processingTimeMs;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = timestamp;
         this.originalImageWidth = imageWidth;
         this.originalImageHeight = imageHeight;
         this.detectedOrientation = detectedOrientation;
@@ -54,20 +89,67 @@ public class OCRResult {
     }
 
     /**
-     * Gets an unmodifiable view of all detected text blocks.
+     * Gets a view of the same recognized blocks at another minimum confidence.
+     * The blocks are shared, not copied, and no OCR is run.
+     *
+     * @param minConfidence Minimum confidence threshold (0.0 to 1.0)
+     * @return This result if the threshold is unchanged, otherwise a new view
+     */
+    public OCRResult withMinConfidence(double minConfidence) {
+        if (minConfidence == this.minConfidence) {
+            return this;
+        }
+        return new OCRResult(allBlocks, minConfidence, processingTimeMs, timestamp,
+                originalImageWidth, originalImageHeight, detectedOrientation);
+    }
+
+    /**
+     * Gets the confidence threshold of this view. Blocks below it are kept but hidden
+     * from {@link #getTextBlocks()}.
+     */
+    public double getConfidenceThreshold() {
+        return minConfidence;
+    }
+
+    /**
+     * Gets an unmodifiable view of the detected words and lines that meet this result's
+     * minimum confidence.
      */
     public List<TextBlock> getTextBlocks() {
         return Collections.unmodifiableList(textBlocks);
     }
 
     /**
-     * Gets text blocks filtered by minimum confidence.
+     * Gets an unmodifiable view of the paragraph and block entries that meet this
+     * result's minimum confidence. Their text repeats that of the lines they contain.
+     */
+    public List<TextBlock> getLayoutBlocks() {
+        return Collections.unmodifiableList(layoutBlocks);
+    }
+
+    /**
+     * Gets an unmodifiable view of every recognized text block at every level,
+     * regardless of confidence.
+     */
+    public List<TextBlock> getAllTextBlocks() {
+        return Collections.unmodifiableList(allBlocks);
+    }
+
+    /**
+     * Gets words and lines filtered by minimum confidence. The threshold is applied to all
+     * recognized blocks, so it may be lower than this result's own minimum confidence.
      *
      * @param minConfidence Minimum confidence threshold (0.0 to 1.0)
      * @return List of text blocks meeting the threshold
      */
     public List<TextBlock> getTextBlocksAboveConfidence(double minConfidence) {
-        return textBlocks.stream()
+        return filter(allBlocks, minConfidence).stream()
+                .filter(OCRResult::isWordOrLine)
+                .collect(Collectors.toList());
+    }
+
+    private static List<TextBlock> filter(List<TextBlock> blocks, double minConfidence) {
+        return blocks.stream()
                 .filter(block -> block.meetsConfidenceThreshold(minConfidence))
                 .collect(Collectors.toList());
     }
@@ -76,7 +158,9 @@ public class OCRResult {
      * Gets text blocks of a specific type.
      */
     public List<TextBlock> getTextBlocksByType(TextBlock.BlockType type) {
-        return textBlocks.stream()
+        List<TextBlock> blocks = type == TextBlock.BlockType.WORD || type == TextBlock.BlockType.LINE
+                ? textBlocks : layoutBlocks;
+        return blocks.stream()
                 .filter(block -> block.getType() == type)
                 .collect(Collectors.toList());
     }
@@ -116,6 +200,14 @@ public class OCRResult {
         return sb.toString();
     }
 
+    /**
+     * Paragraph and block entries repeat the text of their lines, so the text and
+     * statistics methods only use words and lines.
+     */
+    private static boolean isWordOrLine(TextBlock block) {
+        return block.getType() == TextBlock.BlockType.WORD || block.getType() == TextBlock.BlockType.LINE;
+    }
+
     /**
      * Gets the number of detected text blocks.
      */
@@ -7,7 +7,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -263,6 +265,68 @@ public class OCRTemplate {
         return (int) fieldMappings.stream().filter(FieldMapping::isEnabled).count();
     }
 
+    /**
+     * Gets the texts that field indices refer to: the non-empty lines of a result or,
+     * if it has no lines, its non-empty words.
+     *
+     * @param result The OCR result
+     * @return Field texts in detection order
+     */
+    public static List<String> getFieldTexts(OCRResult result) {
+        List<String> texts = new ArrayList<>();
+        for (TextBlock block : result.getTextBlocks()) {
+            if (block.getType() == TextBlock.BlockType.LINE && !block.isEmpty()) {
+                texts.add(block.getText());
+            }
+        }
+        if (texts.isEmpty()) {
+            for (TextBlock block : result.getTextBlocks()) {
+                if (block.getType() == TextBlock.BlockType.WORD && !block.isEmpty()) {
+                    texts.add(block.getText());
+                }
+            }
+        }
+        return texts;
+    }
+
+    /**
+     * Maps field texts to metadata values using the enabled field mappings.
+     *
+     * @param fieldTexts Texts from {@link #getFieldTexts(OCRResult)}
+     * @return Values by metadata key, in mapping order; fields beyond the detected
+     *         texts have an empty value
+     */
+    public Map<String, String> mapFieldValues(List<String> fieldTexts) {
+        Map<String, String> values = new LinkedHashMap<>();
+        if (fieldMappings == null) return values;
+        for (FieldMapping mapping : fieldMappings) {
+            if (!mapping.isEnabled()) continue;
+            int idx = mapping.getFieldIndex();
+            values.put(mapping.getMetadataKey(), idx >= 0 && idx < fieldTexts.size() ? fieldTexts.get(idx) : "");
+        }
+        return values;
+    }
+
+    /**
+     * Gets a hash of everything that decides how OCR text is mapped to metadata: the
+     * enabled field mappings and the fixed-position settings. Names, descriptions and
+     * example texts are left out. The OCR configuration is hashed separately.
+     */
+    public int getMappingHash() {
+        List<Object> parts = new ArrayList<>();
+        if (fieldMappings != null) {
+            for (FieldMapping mapping : fieldMappings) {
+                if (!mapping.isEnabled()) continue;
+                parts.add(Objects.hash(mapping.getFieldIndex(), mapping.getMetadataKey(),
+                        mapping.hasBoundingBox(), mapping.getNormalizedX(), mapping.getNormalizedY(),
+                        mapping.getNormalizedWidth(), mapping.getNormalizedHeight()));
+            }
+        }
+        parts.add(useFixedPositions);
+        parts.add(dilationFactor);
+        return parts.hashCode();
+    }
+
     /**
      * Saves this template to a JSON file.
      *
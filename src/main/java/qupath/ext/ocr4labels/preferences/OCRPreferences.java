@@ -30,6 +30,10 @@ public class OCRPreferences {
     private static final String DEFAULT_METADATA_PREFIX = "OCR_";
     private static final String DEFAULT_LABEL_IMAGE_KEYWORDS = "label,barcode";
     private static final boolean DEFAULT_AUTO_RUN_ON_ENTRY_SWITCH = false;
+    private static final int DEFAULT_BATCH_THREADS = 0; // 0 = one per pooled OCR engine
+    private static final boolean DEFAULT_RESULT_CACHE = true;
+    private static final boolean DEFAULT_BATCH_INCREMENTAL = false;
+    private static final int DEFAULT_BATCH_IMAGE_TIMEOUT = 60; // seconds, 0 = no limit
 
     // Properties
     private static StringProperty languageProperty;
@@ -42,6 +46,10 @@ public class OCRPreferences {
     private static StringProperty metadataPrefixProperty;
     private static StringProperty labelImageKeywordsProperty;
     private static BooleanProperty autoRunOnEntrySwitchProperty;
+    private static IntegerProperty batchThreadsProperty;
+    private static BooleanProperty resultCacheProperty;
+    private static BooleanProperty batchIncrementalProperty;
+    private static IntegerProperty batchImageTimeoutProperty;
 
     // Window size properties for remembering dialog sizes
     private static DoubleProperty dialogWidthProperty;
@@ -89,6 +97,18 @@ public class OCRPreferences {
         autoRunOnEntrySwitchProperty = PathPrefs.createPersistentPreference(
                 PREFIX + "autoRunOnEntrySwitch", DEFAULT_AUTO_RUN_ON_ENTRY_SWITCH);
 
+        batchThreadsProperty = PathPrefs.createPersistentPreference(
+                PREFIX + "batchThreads", DEFAULT_BATCH_THREADS);
+
+        resultCacheProperty = PathPrefs.createPersistentPreference(
+                PREFIX + "resultCache", DEFAULT_RESULT_CACHE);
+
+        batchIncrementalProperty = PathPrefs.createPersistentPreference(
+                PREFIX + "batchIncremental", DEFAULT_BATCH_INCREMENTAL);
+
+        batchImageTimeoutProperty = PathPrefs.createPersistentPreference(
+                PREFIX + "batchImageTimeout", DEFAULT_BATCH_IMAGE_TIMEOUT);
+
         // Dialog size properties
         dialogWidthProperty = PathPrefs.createPersistentPreference(
                 PREFIX + "dialogWidth", 1000.0);
@@ -251,6 +271,77 @@ public class OCRPreferences {
         }
     }
 
+    public static IntegerProperty batchThreadsProperty() {
+        return batchThreadsProperty;
+    }
+
+    /**
+     * Gets the number of parallel OCR workers for batch processing.
+     * 0 means one worker per pooled OCR engine.
+     */
+    public static int getBatchThreads() {
+        return batchThreadsProperty != null ? batchThreadsProperty.get() : DEFAULT_BATCH_THREADS;
+    }
+
+    public static void setBatchThreads(int threads) {
+        if (batchThreadsProperty != null) {
+            batchThreadsProperty.set(Math.max(0, threads));
+        }
+    }
+
+    public static BooleanProperty resultCacheProperty() {
+        return resultCacheProperty;
+    }
+
+    /**
+     * Whether OCR results are cached and reused for unchanged label pixels and settings.
+     */
+    public static boolean isResultCache() {
+        return resultCacheProperty != null ? resultCacheProperty.get() : DEFAULT_RESULT_CACHE;
+    }
+
+    public static void setResultCache(boolean enabled) {
+        if (resultCacheProperty != null) {
+            resultCacheProperty.set(enabled);
+        }
+    }
+
+    public static BooleanProperty batchIncrementalProperty() {
+        return batchIncrementalProperty;
+    }
+
+    /**
+     * Whether batch OCR only processes entries that are new or whose label, OCR settings
+     * or template changed since metadata was last applied.
+     */
+    public static boolean isBatchIncremental() {
+        return batchIncrementalProperty != null ? batchIncrementalProperty.get() : DEFAULT_BATCH_INCREMENTAL;
+    }
+
+    public static void setBatchIncremental(boolean incremental) {
+        if (batchIncrementalProperty != null) {
+            batchIncrementalProperty.set(incremental);
+        }
+    }
+
+    public static IntegerProperty batchImageTimeoutProperty() {
+        return batchImageTimeoutProperty;
+    }
+
+    /**
+     * Gets the time in seconds batch OCR may spend on one image before it is abandoned
+     * and marked "Timeout". 0 means no limit.
+     */
+    public static int getBatchImageTimeout() {
+        return batchImageTimeoutProperty != null ? batchImageTimeoutProperty.get() : DEFAULT_BATCH_IMAGE_TIMEOUT;
+    }
+
+    public static void setBatchImageTimeout(int seconds) {
+        if (batchImageTimeoutProperty != null) {
+            batchImageTimeoutProperty.set(Math.max(0, seconds));
+        }
+    }
+
     public static double getDialogWidth() {
         return dialogWidthProperty != null ? dialogWidthProperty.get() : 1000.0;
     }
@@ -284,6 +375,10 @@ public class OCRPreferences {
         setPageSegMode(DEFAULT_PAGE_SEG_MODE);
         setMetadataPrefix(DEFAULT_METADATA_PREFIX);
         setLabelImageKeywords(DEFAULT_LABEL_IMAGE_KEYWORDS);
+        setBatchThreads(DEFAULT_BATCH_THREADS);
+        setBatchImageTimeout(DEFAULT_BATCH_IMAGE_TIMEOUT);
+        setResultCache(DEFAULT_RESULT_CACHE);
+        setBatchIncremental(DEFAULT_BATCH_INCREMENTAL);
         logger.info("OCR preferences reset to defaults");
     }
 }
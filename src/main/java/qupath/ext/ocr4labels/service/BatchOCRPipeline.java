@@ -0,0 +1,382 @@
+package qupath.ext.ocr4labels.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.ocr4labels.model.OCRConfiguration;
+import qupath.ext.ocr4labels.model.OCRResult;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Staged pipeline for running OCR over many items (typically project entries).
+ *
+ * <p>Three stages are connected by bounded queues:</p>
+ * <ol>
+ *     <li><b>Load</b> - a few I/O threads read label images ahead of the OCR stage</li>
+ *     <li><b>OCR</b> - worker threads run recognition on engines borrowed from an {@link OCREnginePool}
+ *     at {@link OCRPriority#BATCH} priority, one image per lease, so interactive requests
+ *     get the next free engine between images</li>
+ *     <li><b>Mapping</b> - the thread that called {@link #run} hands each outcome to the {@link Listener}</li>
+ * </ol>
+ *
+ * <p>The queue capacity limits how many decoded label images are held at once. Outcomes
+ * are delivered as soon as each item finishes, so they may arrive out of input order.
+ * {@link #cancel()} stops all stages, including images already inside Tesseract, which
+ * stop at the next word and are discarded. With {@link #setImageTimeout(long)}, an image
+ * that takes too long is abandoned and reported to {@link Listener#onError} with an
+ * {@link OCREngine.OCRTimeoutException}, so one pathological label cannot hold up a
+ * worker for the rest of the run. With {@link #setStoredResults(StoredResults)}, a loaded
+ * label that already has a result from an earlier run goes straight to the mapping stage
+ * without OCR.</p>
+ *
+ * @param <T> The item type, e.g. a project entry
+ */
+public class BatchOCRPipeline<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchOCRPipeline.class);
+
+    /** Default number of label-loading threads. */
+    public static final int DEFAULT_IO_THREADS = 2;
+
+    private final OCREnginePool enginePool;
+    private final OCRConfiguration config;
+    private final LabelLoader<T> loader;
+    private final int ioThreads;
+    private final int ocrThreads;
+    private final int queueCapacity;
+
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+    private final CancellationToken cancelToken = new CancellationToken();
+    private volatile long imageTimeoutMs = 0;
+    private volatile StoredResults<T> storedResults;
+    private volatile ExecutorService loadExecutor;
+    private volatile ExecutorService ocrExecutor;
+
+    /**
+     * Creates a pipeline.
+     *
+     * @param enginePool    Pool to borrow OCR engines from
+     * @param config        OCR configuration applied to every item
+     * @param loader        Loads the label image for an item
+     * @param ioThreads     Number of label-loading threads
+     * @param ocrThreads    Number of OCR worker threads; 0 uses the pool size
+     * @param queueCapacity Capacity of each inter-stage queue; 0 uses twice the OCR threads
+     */
+    public BatchOCRPipeline(OCREnginePool enginePool, OCRConfiguration config, LabelLoader<T> loader,
+                            int ioThreads, int ocrThreads, int queueCapacity) {
+        this.enginePool = Objects.requireNonNull(enginePool, "Engine pool cannot be null");
+        this.config = Objects.requireNonNull(config, "Configuration cannot be null");
+        this.loader = Objects.requireNonNull(loader, "Label loader cannot be null");
+        this.ioThreads = Math.max(1, ioThreads);
+        this.ocrThreads = ocrThreads > 0 ? ocrThreads : enginePool.getMaxSize();
+        this.queueCapacity = queueCapacity > 0 ? queueCapacity : this.ocrThreads * 2;
+    }
+
+    /**
+     * Creates a pipeline with default thread counts and queue sizes.
+     */
+    public BatchOCRPipeline(OCREnginePool enginePool, OCRConfiguration config, LabelLoader<T> loader) {
+        this(enginePool, config, loader, DEFAULT_IO_THREADS, 0, 0);
+    }
+
+    /**
+     * Sets the time OCR may spend on one image before it is abandoned.
+     *
+     * @param timeoutMs Time limit in milliseconds, or 0 for no limit
+     */
+    public void setImageTimeout(long timeoutMs) {
+        this.imageTimeoutMs = Math.max(0, timeoutMs);
+    }
+
+    /**
+     * Sets where to look for results saved by earlier runs. Each loaded label is checked
+     * before OCR; when a result is found, it is passed to {@link Listener#onResult}
+     * and the item is not recognized again.
+     *
+     * @param storedResults Lookup of stored results, or null to run OCR on every label
+     */
+    public void setStoredResults(StoredResults<T> storedResults) {
+        this.storedResults = storedResults;
+    }
+
+    /**
+     * Gets the status to show for an item that failed: "Timeout" if it ran past the
+     * image time limit, otherwise "Error".
+     *
+     * @param error The error passed to {@link Listener#onError}
+     */
+    public static String errorStatus(Exception error) {
+        return error instanceof OCREngine.OCRTimeoutException ? "Timeout" : "Error";
+    }
+
+    /**
+     * Processes all items, blocking until every item has produced an outcome or the
+     * pipeline is cancelled. Listener callbacks run on the calling thread, except
+     * {@link Listener#onStarted}, which runs on an OCR worker thread.
+     *
+     * @param items    Items to process
+     * @param listener Receives per-item outcomes
+     * @return The number of items that produced an outcome
+     */
+    public int run(List<T> items, Listener<T> listener) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        BlockingQueue<Stage<T>> loadedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Stage<T>> resultQueue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger nextIndex = new AtomicInteger(0);
+        AtomicInteger activeLoaders = new AtomicInteger(ioThreads);
+        StoredResults<T> stored = storedResults;
+
+        loadExecutor = Executors.newFixedThreadPool(ioThreads, namedThreads("ocr-batch-load"));
+        ocrExecutor = Executors.newFixedThreadPool(ocrThreads, namedThreads("ocr-batch-ocr"));
+        if (cancelled.get()) {
+            shutdownNow();
+            return 0;
+        }
+
+        // Stage 1: load label images ahead of OCR
+        for (int i = 0; i < ioThreads; i++) {
+            loadExecutor.execute(() -> {
+                try {
+                    int index;
+                    while (!cancelled.get() && (index = nextIndex.getAndIncrement()) < items.size()) {
+                        T item = items.get(index);
+                        Stage<T> stage = new Stage<>(item);
+                        try {
+                            stage.image = loader.load(item);
+                            if (stage.image == null) {
+                                stage.skipReason = "No label";
+                            } else if (stored != null) {
+                                stage.result = stored.find(item, stage.image);
+                                if (stage.result != null) {
+                                    stage.image = null;
+                                }
+                            }
+                        } catch (Throwable e) {
+                            // Every item must reach the mapping stage, even after an Error
+                            stage.error = asException(e);
+                            stage.image = null;
+                        }
+                        // Failed, skipped and already recognized items go straight to the mapping stage
+                        if (stage.image == null) {
+                            resultQueue.put(stage);
+                        } else {
+                            loadedQueue.put(stage);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    // The last loader to finish tells every OCR worker to stop
+                    if (activeLoaders.decrementAndGet() == 0) {
+                        for (int w = 0; w < ocrThreads; w++) {
+                            loadedQueue.offer(Stage.poison());
+                        }
+                    }
+                }
+            });
+        }
+
+        // Stage 2: OCR on pooled engines
+        for (int i = 0; i < ocrThreads; i++) {
+            ocrExecutor.execute(() -> {
+                try {
+                    while (true) {
+                        Stage<T> stage = loadedQueue.take();
+                        if (stage.isPoison() || cancelled.get()) {
+                            return;
+                        }
+                        try {
+                            listener.onStarted(stage.item);
+                            BufferedImage image = stage.image;
+                            long timeoutMs = imageTimeoutMs;
+                            stage.result = enginePool.withEngine(OCRPriority.BATCH,
+                                    engine -> engine.processImage(image, config, timeoutMs, cancelToken));
+                        } catch (Throwable e) {
+                            // e.g. OutOfMemoryError on a huge label, or a native Error from Tesseract
+                            stage.error = asException(e);
+                        }
+                        stage.image = null;
+                        resultQueue.put(stage);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        // Stage 3: mapping on the calling thread
+        int completed = 0;
+        try {
+            while (completed < items.size() && !cancelled.get()) {
+                Stage<T> stage = resultQueue.poll(200, TimeUnit.MILLISECONDS);
+                if (stage == null) {
+                    continue;
+                }
+                completed++;
+                try {
+                    if (stage.error != null) {
+                        listener.onError(stage.item, stage.error);
+                    } else if (stage.result == null) {
+                        listener.onSkipped(stage.item, stage.skipReason);
+                    } else {
+                        listener.onResult(stage.item, stage.result);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Batch OCR listener failed: {}", e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled.set(true);
+        } finally {
+            shutdownNow();
+            loadedQueue.clear();
+            resultQueue.clear();
+        }
+
+        logger.info("Batch OCR pipeline finished: {} of {} items{}",
+                completed, items.size(), cancelled.get() ? " (cancelled)" : "");
+        return completed;
+    }
+
+    /**
+     * Cancels processing. Safe to call from any thread.
+     */
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            logger.info("Batch OCR pipeline cancelled");
+            cancelToken.cancel();
+            shutdownNow();
+        }
+    }
+
+    /**
+     * Checks whether {@link #cancel()} has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    private void shutdownNow() {
+        ExecutorService load = loadExecutor;
+        if (load != null) {
+            load.shutdownNow();
+        }
+        ExecutorService ocr = ocrExecutor;
+        if (ocr != null) {
+            ocr.shutdownNow();
+        }
+    }
+
+    /**
+     * Wraps anything that is not an Exception so it can be reported through {@link Listener#onError}.
+     */
+    private static Exception asException(Throwable e) {
+        if (e instanceof Exception) {
+            return (Exception) e;
+        }
+        return new OCREngine.OCRException("OCR failed: " + e, e);
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger(0);
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Loads the label image for an item.
+     */
+    @FunctionalInterface
+    public interface LabelLoader<T> {
+        /**
+         * @return The label image, or null if the item has no label
+         */
+        BufferedImage load(T item) throws Exception;
+    }
+
+    /**
+     * Finds the result saved for an item by an earlier run.
+     */
+    @FunctionalInterface
+    public interface StoredResults<T> {
+        /**
+         * Called on a loading thread after the label image for an item has been read.
+         *
+         * @param item  The item
+         * @param label Its label image
+         * @return The stored result if it is still valid for this label, otherwise null
+         */
+        OCRResult find(T item, BufferedImage label) throws Exception;
+    }
+
+    /**
+     * Receives per-item outcomes from the pipeline.
+     */
+    public interface Listener<T> {
+        /**
+         * Called on an OCR worker thread just before recognition starts for an item.
+         */
+        default void onStarted(T item) {
+        }
+
+        /**
+         * Called when OCR completed for an item.
+         */
+        void onResult(T item, OCRResult result);
+
+        /**
+         * Called when an item was skipped (for example, it has no label image).
+         */
+        default void onSkipped(T item, String reason) {
+        }
+
+        /**
+         * Called when loading or OCR failed for an item.
+         */
+        default void onError(T item, Exception error) {
+        }
+    }
+
+    /**
+     * An item travelling through the pipeline.
+     */
+    private static class Stage<T> {
+        private static final Stage<?> POISON = new Stage<>(null);
+
+        final T item;
+        BufferedImage image;
+        OCRResult result;
+        Exception error;
+        String skipReason;
+
+        Stage(T item) {
+            this.item = item;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Stage<T> poison() {
+            return (Stage<T>) POISON;
+        }
+
+        boolean isPoison() {
+            return this == POISON;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package qupath.ext.ocr4labels.service;
+
+/**
+ * Flag used to stop OCR work that is already running.
+ *
+ * <p>Pass a token to {@link OCREngine#processImage(java.awt.image.BufferedImage,
+ * qupath.ext.ocr4labels.model.OCRConfiguration, long, CancellationToken)} and call
+ * {@link #cancel()} from any thread; Tesseract checks it between words and stops,
+ * and the engine then throws an {@link OCREngine.OCRCancelledException}. A token
+ * cannot be reset, so use a new one for each run.</p>
+ */
+public class CancellationToken {
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * Requests cancellation. Safe to call from any thread, and more than once.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether {@link #cancel()} has been called.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -1,44 +1,82 @@
 package qupath.ext.ocr4labels.service;
 
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.PointerByReference;
 import net.sourceforge.tess4j.ITessAPI;
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
-import net.sourceforge.tess4j.Word;
+import net.sourceforge.tess4j.TessAPI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.ext.ocr4labels.model.BoundingBox;
 import qupath.ext.ocr4labels.model.OCRConfiguration;
 import qupath.ext.ocr4labels.model.OCRResult;
 import qupath.ext.ocr4labels.model.TextBlock;
+import qupath.ext.ocr4labels.utilities.ImageThresholding;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.awt.image.RescaleOp;
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * OCR engine that wraps Tess4J for text detection on label images.
  * Handles preprocessing, orientation detection, and text extraction.
+ *
+ * <p>The native Tesseract API is initialized once in {@link #initialize(String, String)}
+ * and kept alive across images, so the traineddata is only reloaded when the language
+ * or engine mode actually changes. Call {@link #dispose()} to release the native handle.
+ * An engine instance must not be used from multiple threads at the same time.</p>
+ *
+ * <p>{@link #processImage(BufferedImage, OCRConfiguration, long, CancellationToken)}
+ * can bound the time spent on one image. Tesseract polls a cancel callback between
+ * words during recognition; once the deadline passes or the token is cancelled it
+ * stops early, and the engine throws {@link OCRTimeoutException} or
+ * {@link OCRCancelledException}. The engine stays usable afterwards.</p>
  */
 public class OCREngine {
 
     private static final Logger logger = LoggerFactory.getLogger(OCREngine.class);
 
-    private final ITesseract tesseract;
+    private static final String OSD_LANGUAGE = "osd";
+
+    private final TessAPI api;
+    private ITessAPI.TessBaseAPI handle;
+    private ITessAPI.TessBaseAPI osdHandle;
     private boolean initialized = false;
     private String tessdataPath;
+    private String loadedLanguage;
+    private int loadedEngineMode = -1;
     private int currentPageSegMode = ITessAPI.TessPageSegMode.PSM_AUTO;
     private boolean osdAvailable = false;
+    private String engineVersion;
+
+    // Reusable direct buffer holding the image currently staged for Tesseract
+    private ByteBuffer imageBuffer;
+    private int stagedWidth;
+    private int stagedHeight;
+    private int stagedBytesPerPixel;
+
+    // Source image and settings behind the staged buffer, so region OCR can reuse it
+    private BufferedImage stagedSource;
+    private OCRConfiguration stagedConfig;
+
+    // Limits for the image being processed; 0 and null mean none
+    private long deadlineNanos;
+    private long timeoutMs;
+    private CancellationToken cancelToken;
 
     /**
      * Creates a new OCR engine instance.
      */
     public OCREngine() {
-        this.tesseract = new Tesseract();
+        this.api = TessAPI.INSTANCE;
     }
 
     /**
@@ -49,10 +87,8 @@ public class OCREngine {
      * @param language     Language code (e.g., "eng" for English)
      * @throws OCRException if initialization fails
      */
-    public void initialize(String tessdataPath, String language) throws OCRException {
+    public synchronized void initialize(String tessdataPath, String language) throws OCRException {
         try {
-            this.tessdataPath = tessdataPath;
-
             // Verify tessdata path exists
             File tessdataDir = new File(tessdataPath);
             if (!tessdataDir.exists() || !tessdataDir.isDirectory()) {
@@ -67,8 +103,11 @@ public class OCREngine {
                         "https://github.com/tesseract-ocr/tessdata");
             }
 
-            tesseract.setDatapath(tessdataPath);
-            tesseract.setLanguage(language);
+            // A different tessdata directory invalidates any loaded models
+            if (this.tessdataPath != null && !this.tessdataPath.equals(tessdataPath)) {
+                releaseNativeHandles();
+            }
+            this.tessdataPath = tessdataPath;
 
             // Check for OSD (orientation/script detection) data file
             File osdFile = new File(tessdataDir, "osd.traineddata");
@@ -78,15 +117,19 @@ public class OCREngine {
                         "Download from https://github.com/tesseract-ocr/tessdata_fast/raw/main/osd.traineddata");
             }
 
-            // Default settings optimized for label images - use Sparse Text mode
-            tesseract.setOcrEngineMode(ITessAPI.TessOcrEngineMode.OEM_LSTM_ONLY);
-            tesseract.setPageSegMode(ITessAPI.TessPageSegMode.PSM_SPARSE_TEXT);
+            // Default settings optimized for label images - LSTM with Sparse Text mode
+            ensureModelLoaded(language, ITessAPI.TessOcrEngineMode.OEM_LSTM_ONLY);
+            currentPageSegMode = ITessAPI.TessPageSegMode.PSM_SPARSE_TEXT;
+            api.TessBaseAPISetPageSegMode(handle, currentPageSegMode);
 
             initialized = true;
             logger.info("OCR engine initialized with tessdata: {}, language: {}, OSD available: {}",
                     tessdataPath, language, osdAvailable);
 
-        } catch (Exception e) {
+        } catch (OCRException e) {
+            initialized = false;
+            throw e;
+        } catch (Exception | UnsatisfiedLinkError e) {
             initialized = false;
             throw new OCRException("Failed to initialize OCR engine: " + e.getMessage(), e);
         }
@@ -95,7 +138,7 @@ public class OCREngine {
     /**
      * Checks if the engine is initialized and ready to process images.
      */
-    public boolean isInitialized() {
+    public synchronized boolean isInitialized() {
         return initialized;
     }
 
@@ -108,6 +151,25 @@ public class OCREngine {
      * @throws OCRException if processing fails
      */
     public OCRResult processImage(BufferedImage image, OCRConfiguration config) throws OCRException {
+        return processImage(image, config, 0, null);
+    }
+
+    /**
+     * Processes an image and extracts text blocks, giving up once a time limit has passed
+     * or the token is cancelled. The limit covers preprocessing, orientation detection and
+     * recognition; cached results are returned regardless.
+     *
+     * @param image     The image to process
+     * @param config    OCR configuration settings
+     * @param timeoutMs Maximum time for this image in milliseconds, or 0 for no limit
+     * @param token     Token that stops recognition when cancelled, or null
+     * @return OCR result containing detected text blocks
+     * @throws OCRTimeoutException   if the time limit passed first
+     * @throws OCRCancelledException if the token was cancelled first
+     * @throws OCRException          if processing fails
+     */
+    public synchronized OCRResult processImage(BufferedImage image, OCRConfiguration config,
+                                               long timeoutMs, CancellationToken token) throws OCRException {
         if (!initialized) {
             throw new OCRException("OCR engine not initialized. Call initialize() first.");
         }
@@ -118,7 +180,26 @@ public class OCREngine {
 
         long startTime = System.currentTimeMillis();
 
+        // Identical pixels and settings give identical results, so reuse any cached run
+        OCRResultCache cache = OCRResultCache.getShared();
+        OCRResultCache.Key cacheKey = null;
+        if (cache.isEnabled()) {
+            cacheKey = cacheKey(image, config);
+            OCRResult cached = cache.get(cacheKey);
+            if (cached != null) {
+                cached = cached.withMinConfidence(config.getMinConfidence());
+                logger.info("OCR result reused from cache: {} blocks", cached.getBlockCount());
+                return cached;
+            }
+        }
+
+        this.timeoutMs = Math.max(0, timeoutMs);
+        this.deadlineNanos = timeoutMs > 0 ? System.nanoTime() + timeoutMs * 1_000_000L : 0;
+        this.cancelToken = token;
+
         try {
+            checkLimits();
+
             // Apply configuration
             applyConfiguration(config);
 
@@ -130,23 +211,33 @@ public class OCREngine {
                 processedImage = preprocessImage(image, config);
             }
 
+            // Stage the pixels once; OSD and recognition share the same buffer
+            stageImage(processedImage);
+            stagedSource = image;
+            stagedConfig = config;
+
             // Detect and correct orientation if enabled
             if (config.isDetectOrientation()) {
-                OrientationResult orientation = detectOrientation(processedImage);
+                checkLimits();
+                OrientationResult orientation = detectOrientation();
                 detectedOrientation = orientation.degrees;
                 if (orientation.degrees != 0 && config.isAutoRotate()) {
                     processedImage = rotateImage(processedImage, orientation.degrees);
+                    stageImage(processedImage);
                     logger.info("Image rotated by {} degrees", orientation.degrees);
                 }
             }
 
             // Extract text blocks
-            List<TextBlock> textBlocks = extractTextBlocks(processedImage, config);
+            checkLimits();
+            setStagedImage(handle);
+            List<TextBlock> textBlocks = extractTextBlocks();
 
             long processingTime = System.currentTimeMillis() - startTime;
 
             OCRResult result = new OCRResult(
                     textBlocks,
+                    config.getMinConfidence(),
                     processingTime,
                     image.getWidth(),
                     image.getHeight(),
@@ -154,13 +245,129 @@ public class OCREngine {
             );
 
             logger.info("OCR complete: {} blocks detected in {}ms", textBlocks.size(), processingTime);
+            if (cacheKey != null) {
+                cache.put(cacheKey, result);
+            }
             return result;
 
-        } catch (TesseractException e) {
-            throw new OCRException("Tesseract processing failed: " + e.getMessage(), e);
+        } finally {
+            this.deadlineNanos = 0;
+            this.timeoutMs = 0;
+            this.cancelToken = null;
+            api.TessBaseAPIClear(handle);
+        }
+    }
+
+    /**
+     * Recognizes several rectangular regions of one image.
+     * The image is preprocessed and uploaded once, then each region is recognized in
+     * turn with {@code SetRectangle}. If this engine last processed the same image
+     * instance with the same preprocessing settings, the already-staged pixels are reused.
+     * Orientation detection and rotation are not applied, since the regions are given
+     * in the coordinates of the unrotated image.
+     *
+     * <p>Bounding boxes in the results are in full-image coordinates, and each result
+     * reports the full image size. The image must not be modified in place between calls.</p>
+     *
+     * @param image   The full image (e.g. a label)
+     * @param regions Regions to recognize, in image pixel coordinates
+     * @param config  OCR configuration settings
+     * @return One result per region, in the same order as {@code regions}
+     * @throws OCRException if processing fails
+     */
+    public synchronized List<OCRResult> processRegions(BufferedImage image, List<Rectangle> regions,
+                                                       OCRConfiguration config) throws OCRException {
+        if (!initialized) {
+            throw new OCRException("OCR engine not initialized. Call initialize() first.");
+        }
+
+        if (image == null) {
+            throw new OCRException("Image cannot be null");
+        }
+
+        // Look up every region first; if all are cached, nothing needs to be staged
+        Rectangle bounds = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+        OCRResultCache cache = OCRResultCache.getShared();
+        OCRResultCache.Key imageKey = cache.isEnabled() ? cacheKey(image, config) : null;
+        OCRResult[] cached = new OCRResult[regions.size()];
+        int misses = 0;
+        for (int i = 0; i < cached.length; i++) {
+            Rectangle clipped = regions.get(i).intersection(bounds);
+            if (imageKey != null && !clipped.isEmpty()) {
+                cached[i] = cache.get(imageKey.forRegion(clipped));
+                if (cached[i] != null) {
+                    cached[i] = cached[i].withMinConfidence(config.getMinConfidence());
+                }
+            }
+            if (cached[i] == null) {
+                misses++;
+            }
+        }
+        if (misses == 0) {
+            logger.debug("Region OCR results all reused from cache: {} regions", regions.size());
+            return new ArrayList<>(Arrays.asList(cached));
+        }
+
+        try {
+            applyConfiguration(config);
+
+            if (stagedSource != image || !samePreprocessing(stagedConfig, config)) {
+                BufferedImage processedImage = image;
+                if (config.isEnablePreprocessing()) {
+                    processedImage = preprocessImage(image, config);
+                }
+                stageImage(processedImage);
+                stagedSource = image;
+                stagedConfig = config;
+            } else {
+                logger.debug("Reusing staged image for region OCR");
+            }
+            setStagedImage(handle);
+
+            List<OCRResult> results = new ArrayList<>(regions.size());
+            for (int i = 0; i < cached.length; i++) {
+                if (cached[i] != null) {
+                    results.add(cached[i]);
+                    continue;
+                }
+                long startTime = System.currentTimeMillis();
+                Rectangle clipped = regions.get(i).intersection(bounds);
+                if (clipped.isEmpty()) {
+                    results.add(new OCRResult(new ArrayList<>(), 0, image.getWidth(), image.getHeight(), 0));
+                    continue;
+                }
+
+                api.TessBaseAPISetRectangle(handle, clipped.x, clipped.y, clipped.width, clipped.height);
+                List<TextBlock> textBlocks = extractTextBlocks();
+                OCRResult result = new OCRResult(textBlocks, config.getMinConfidence(),
+                        System.currentTimeMillis() - startTime, image.getWidth(), image.getHeight(), 0);
+                if (imageKey != null) {
+                    cache.put(imageKey.forRegion(clipped), result);
+                }
+                results.add(result);
+            }
+
+            logger.debug("Region OCR complete: {} regions, {} recognized", regions.size(), misses);
+            return results;
+
+        } finally {
+            api.TessBaseAPIClear(handle);
         }
     }
 
+    /**
+     * Computes the result cache key for an image processed with the given configuration
+     * by this engine's tessdata and Tesseract version.
+     */
+    private OCRResultCache.Key cacheKey(BufferedImage image, OCRConfiguration config) {
+        String language = config.getLanguage() != null && !config.getLanguage().isEmpty()
+                ? config.getLanguage() : loadedLanguage;
+        if (engineVersion == null) {
+            engineVersion = api.TessVersion();
+        }
+        return OCRResultCache.keyFor(image, config, tessdataPath, language, engineVersion);
+    }
+
     /**
      * Performs simple OCR and returns only the full text.
      *
@@ -169,7 +376,7 @@ public class OCREngine {
      * @return Extracted text as a string
      * @throws OCRException if processing fails
      */
-    public String extractText(BufferedImage image, OCRConfiguration config) throws OCRException {
+    public synchronized String extractText(BufferedImage image, OCRConfiguration config) throws OCRException {
         if (!initialized) {
             throw new OCRException("OCR engine not initialized. Call initialize() first.");
         }
@@ -182,30 +389,201 @@ public class OCREngine {
                 processedImage = preprocessImage(image, config);
             }
 
+            stageImage(processedImage);
+
             if (config.isDetectOrientation() && config.isAutoRotate()) {
-                OrientationResult orientation = detectOrientation(processedImage);
+                OrientationResult orientation = detectOrientation();
                 if (orientation.degrees != 0) {
                     processedImage = rotateImage(processedImage, orientation.degrees);
+                    stageImage(processedImage);
                 }
             }
 
-            return tesseract.doOCR(processedImage).trim();
+            setStagedImage(handle);
+            recognize();
+
+            Pointer textPtr = api.TessBaseAPIGetUTF8Text(handle);
+            if (textPtr == null) {
+                return "";
+            }
+            try {
+                return textPtr.getString(0, "UTF-8").trim();
+            } finally {
+                api.TessDeleteText(textPtr);
+            }
 
-        } catch (TesseractException e) {
-            throw new OCRException("Text extraction failed: " + e.getMessage(), e);
+        } finally {
+            api.TessBaseAPIClear(handle);
         }
     }
 
     /**
-     * Applies configuration settings to the Tesseract instance.
+     * Applies configuration settings to the native Tesseract handle.
+     * The traineddata is only reloaded if the language or engine mode changed.
      */
-    private void applyConfiguration(OCRConfiguration config) {
+    private void applyConfiguration(OCRConfiguration config) throws OCRException {
+        String language = loadedLanguage;
+        if (config.getLanguage() != null && !config.getLanguage().isEmpty()) {
+            language = config.getLanguage();
+        }
+        ensureModelLoaded(language, config.getEngineMode().getValue());
+
         currentPageSegMode = config.getPageSegMode().getValue();
-        tesseract.setPageSegMode(currentPageSegMode);
-        tesseract.setOcrEngineMode(config.getEngineMode().getValue());
+        api.TessBaseAPISetPageSegMode(handle, currentPageSegMode);
+    }
 
-        if (config.getLanguage() != null && !config.getLanguage().isEmpty()) {
-            tesseract.setLanguage(config.getLanguage());
+    /**
+     * Makes sure the main handle has the requested language and engine mode loaded.
+     * Creates the native handle on first use; re-initializes only on an actual change.
+     */
+    private void ensureModelLoaded(String language, int engineMode) throws OCRException {
+        if (handle != null && language.equals(loadedLanguage) && engineMode == loadedEngineMode) {
+            return;
+        }
+
+        if (handle == null) {
+            handle = api.TessBaseAPICreate();
+        } else {
+            api.TessBaseAPIEnd(handle);
+        }
+
+        long start = System.currentTimeMillis();
+        if (api.TessBaseAPIInit2(handle, tessdataPath, language, engineMode) != 0) {
+            loadedLanguage = null;
+            loadedEngineMode = -1;
+            throw new OCRException("Failed to load Tesseract language '" + language +
+                    "' (engine mode " + engineMode + ") from " + tessdataPath);
+        }
+        loadedLanguage = language;
+        loadedEngineMode = engineMode;
+        logger.debug("Loaded traineddata '{}' (oem={}) in {}ms",
+                language, engineMode, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Lazily creates the handle used for orientation detection.
+     * OSD needs the legacy "osd" model, so it lives in its own long-lived handle.
+     */
+    private ITessAPI.TessBaseAPI getOsdHandle() {
+        if (osdHandle == null) {
+            ITessAPI.TessBaseAPI osd = api.TessBaseAPICreate();
+            if (api.TessBaseAPIInit2(osd, tessdataPath, OSD_LANGUAGE,
+                    ITessAPI.TessOcrEngineMode.OEM_TESSERACT_ONLY) != 0) {
+                api.TessBaseAPIDelete(osd);
+                logger.warn("Failed to load osd.traineddata - orientation detection disabled");
+                osdAvailable = false;
+                return null;
+            }
+            api.TessBaseAPISetPageSegMode(osd, ITessAPI.TessPageSegMode.PSM_OSD_ONLY);
+            osdHandle = osd;
+        }
+        return osdHandle;
+    }
+
+    /**
+     * Copies an image into the reusable direct buffer that is handed to Tesseract.
+     * 8-bit grayscale rasters (the output of preprocessing) are copied in one bulk
+     * transfer at 1 byte per pixel; other images are packed as 24-bit RGB.
+     * The staged image can then be given to several handles without re-encoding.
+     */
+    private void stageImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean gray = image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+        int bytesPerPixel = gray ? 1 : 3;
+        int capacity = width * height * bytesPerPixel;
+
+        // Keep one direct buffer per engine and only grow it; Tesseract copies on SetImage
+        if (imageBuffer == null || imageBuffer.capacity() < capacity) {
+            imageBuffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        }
+        imageBuffer.clear();
+
+        if (gray) {
+            imageBuffer.put(ImageThresholding.toGrayBytes(image));
+        } else {
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                for (int rgb : row) {
+                    imageBuffer.put((byte) (rgb >> 16));
+                    imageBuffer.put((byte) (rgb >> 8));
+                    imageBuffer.put((byte) rgb);
+                }
+            }
+        }
+        imageBuffer.flip();
+
+        stagedSource = null;
+        stagedConfig = null;
+        stagedWidth = width;
+        stagedHeight = height;
+        stagedBytesPerPixel = bytesPerPixel;
+    }
+
+    /**
+     * Checks whether two configurations would produce the same preprocessed image.
+     */
+    private static boolean samePreprocessing(OCRConfiguration a, OCRConfiguration b) {
+        return a != null && b != null
+                && a.isEnablePreprocessing() == b.isEnablePreprocessing()
+                && a.isEnhanceContrast() == b.isEnhanceContrast()
+                && a.getThresholdMethod() == b.getThresholdMethod();
+    }
+
+    /**
+     * Sets the currently staged image on a native handle.
+     */
+    private void setStagedImage(ITessAPI.TessBaseAPI target) {
+        api.TessBaseAPISetImage(target, imageBuffer, stagedWidth, stagedHeight,
+                stagedBytesPerPixel, stagedWidth * stagedBytesPerPixel);
+    }
+
+    /**
+     * Runs recognition on the image currently set on the main handle.
+     * If a deadline or cancellation token is active, Tesseract is given a progress
+     * monitor whose cancel callback checks them between words.
+     */
+    private void recognize() throws OCRException {
+        ITessAPI.ETEXT_DESC monitor = null;
+        ITessAPI.CANCEL_FUNC cancelFunc = null;
+        if (deadlineNanos != 0 || cancelToken != null) {
+            // The monitor's end_time is left unset: its layout differs between Tesseract
+            // versions, so the deadline is enforced from the callback instead
+            cancelFunc = new ITessAPI.CANCEL_FUNC() {
+                @Override
+                public boolean invoke(Pointer cancelThis, int words) {
+                    return isLimitReached();
+                }
+            };
+            monitor = new ITessAPI.ETEXT_DESC();
+            monitor.cancel = cancelFunc;
+        }
+        int status = api.TessBaseAPIRecognize(handle, monitor);
+        if (cancelFunc != null) {
+            checkLimits();
+        }
+        if (status != 0) {
+            throw new OCRException("Tesseract recognition failed");
+        }
+    }
+
+    private boolean isLimitReached() {
+        CancellationToken token = cancelToken;
+        return (token != null && token.isCancelled())
+                || (deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0);
+    }
+
+    /**
+     * Throws if the current image's token has been cancelled or its deadline has passed.
+     */
+    private void checkLimits() throws OCRException {
+        CancellationToken token = cancelToken;
+        if (token != null && token.isCancelled()) {
+            throw new OCRCancelledException("OCR cancelled");
+        }
+        if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos >= 0) {
+            throw new OCRTimeoutException("OCR timed out after " + timeoutMs + "ms");
         }
     }
 
@@ -227,7 +605,7 @@ public class OCREngine {
 
         // Enhance contrast if enabled - use adaptive thresholding
         if (config.isEnhanceContrast()) {
-            result = applyAdaptiveThreshold(result);
+            result = applyAdaptiveThreshold(result, config.getThresholdMethod());
         }
 
         return result;
@@ -237,7 +615,7 @@ public class OCREngine {
      * Applies adaptive thresholding to improve text contrast.
      * This is much better than simple contrast enhancement for OCR.
      */
-    private BufferedImage applyAdaptiveThreshold(BufferedImage image) {
+    private BufferedImage applyAdaptiveThreshold(BufferedImage image, OCRConfiguration.ThresholdMethod method) {
         int width = image.getWidth();
         int height = image.getHeight();
 
@@ -245,50 +623,22 @@ public class OCREngine {
         int blockSize = Math.max(15, Math.min(width, height) / 20);
         if (blockSize % 2 == 0) blockSize++; // Must be odd
 
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
-
-        // Get pixel data
-        int[] pixels = new int[width * height];
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                int gray = (rgb >> 16) & 0xFF; // Already grayscale, just get one channel
-                pixels[y * width + x] = gray;
-            }
-        }
-
-        // Apply adaptive threshold using mean of local neighborhood
-        int halfBlock = blockSize / 2;
-        int offset = 10; // Threshold offset - adjust sensitivity
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                // Calculate local mean
-                int sum = 0;
-                int count = 0;
-
-                for (int dy = -halfBlock; dy <= halfBlock; dy++) {
-                    for (int dx = -halfBlock; dx <= halfBlock; dx++) {
-                        int nx = x + dx;
-                        int ny = y + dy;
-
-                        if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
-                            sum += pixels[ny * width + nx];
-                            count++;
-                        }
-                    }
-                }
-
-                int localMean = sum / count;
-                int pixelValue = pixels[y * width + x];
-
-                // Apply threshold: if pixel is darker than local mean minus offset, make it black
-                int outputValue = (pixelValue < localMean - offset) ? 0 : 255;
-                result.setRGB(x, y, (outputValue << 16) | (outputValue << 8) | outputValue);
-            }
+        BufferedImage result;
+        switch (method) {
+            case SAUVOLA:
+                result = ImageThresholding.sauvolaThreshold(image, blockSize);
+                break;
+            case OTSU:
+                result = ImageThresholding.otsuThreshold(image);
+                break;
+            case MEAN:
+            default:
+                // Threshold offset of 10 - pixel must be this much darker than the local mean
+                result = ImageThresholding.meanThreshold(image, blockSize, 10);
+                break;
         }
 
-        logger.debug("Applied adaptive threshold with block size {}", blockSize);
+        logger.debug("Applied {} threshold with block size {}", method, blockSize);
         return result;
     }
 
@@ -303,45 +653,43 @@ public class OCREngine {
     }
 
     /**
-     * Detects the orientation of text in the image.
+     * Detects the orientation of text in the staged image.
      */
-    private OrientationResult detectOrientation(BufferedImage image) {
+    private OrientationResult detectOrientation() {
         // Skip if OSD data not available
         if (!osdAvailable) {
             logger.debug("Skipping orientation detection - osd.traineddata not available");
             return new OrientationResult(0, 0.0f);
         }
 
+        ITessAPI.TessBaseAPI osd = getOsdHandle();
+        if (osd == null) {
+            return new OrientationResult(0, 0.0f);
+        }
+
         try {
-            // Use Tesseract's OSD mode to detect orientation
-            int originalPsm = currentPageSegMode;
-            tesseract.setPageSegMode(ITessAPI.TessPageSegMode.PSM_OSD_ONLY);
-
-            String osdResult = tesseract.doOCR(image);
-
-            // Restore original PSM
-            tesseract.setPageSegMode(originalPsm);
-            currentPageSegMode = originalPsm;
-
-            // Parse orientation from OSD output
-            // Output contains lines like "Orientation in degrees: 90"
-            int orientation = 0;
-            for (String line : osdResult.split("\n")) {
-                if (line.contains("Orientation in degrees:")) {
-                    String[] parts = line.split(":");
-                    if (parts.length > 1) {
-                        orientation = Integer.parseInt(parts[1].trim());
-                    }
-                    break;
-                }
+            setStagedImage(osd);
+
+            IntBuffer orientDeg = IntBuffer.allocate(1);
+            FloatBuffer orientConf = FloatBuffer.allocate(1);
+            PointerByReference scriptName = new PointerByReference();
+            FloatBuffer scriptConf = FloatBuffer.allocate(1);
+
+            if (api.TessBaseAPIDetectOrientationScript(osd, orientDeg, orientConf,
+                    scriptName, scriptConf) == ITessAPI.FALSE) {
+                logger.debug("Orientation detection found too little text, assuming upright");
+                return new OrientationResult(0, 0.0f);
             }
 
-            logger.debug("Detected orientation: {} degrees", orientation);
-            return new OrientationResult(orientation, 1.0f);
+            int orientation = orientDeg.get(0);
+            logger.debug("Detected orientation: {} degrees (confidence {})", orientation, orientConf.get(0));
+            return new OrientationResult(orientation, orientConf.get(0));
 
         } catch (Exception e) {
             logger.warn("Orientation detection failed, assuming upright: {}", e.getMessage());
             return new OrientationResult(0, 0.0f);
+        } finally {
+            api.TessBaseAPIClear(osd);
         }
     }
 
@@ -392,69 +740,116 @@ public class OCREngine {
     }
 
     /**
-     * Extracts text blocks with bounding boxes from the image.
+     * Extracts text blocks with bounding boxes from the image set on the main handle.
+     * Recognition runs once; the result iterator is then walked word by word, and the
+     * enclosing line, paragraph and block are read whenever the iterator enters one.
+     * Blocks are returned grouped by level: words, then lines, paragraphs and blocks.
      */
-    private List<TextBlock> extractTextBlocks(BufferedImage image, OCRConfiguration config)
-            throws TesseractException {
-
-        List<TextBlock> blocks = new ArrayList<>();
-
-        // Get words with bounding boxes
-        List<Word> words = tesseract.getWords(image, ITessAPI.TessPageIteratorLevel.RIL_WORD);
+    private List<TextBlock> extractTextBlocks() throws OCRException {
 
-        for (Word word : words) {
-            String text = word.getText();
-            if (text == null || text.trim().isEmpty()) {
-                continue;
-            }
-
-            Rectangle rect = word.getBoundingBox();
-            float confidence = word.getConfidence() / 100.0f; // Convert from 0-100 to 0-1
+        recognize();
 
-            // Filter by minimum confidence
-            if (confidence < config.getMinConfidence()) {
-                logger.debug("Skipping low-confidence word: '{}' ({}%)", text, confidence * 100);
-                continue;
-            }
+        List<TextBlock> words = new ArrayList<>();
+        List<TextBlock> lines = new ArrayList<>();
+        List<TextBlock> paragraphs = new ArrayList<>();
+        List<TextBlock> regions = new ArrayList<>();
 
-            BoundingBox bbox = new BoundingBox(rect.x, rect.y, rect.width, rect.height);
-            TextBlock block = TextBlock.word(text.trim(), bbox, confidence);
-            blocks.add(block);
+        ITessAPI.TessResultIterator ri = api.TessBaseAPIGetIterator(handle);
+        if (ri == null) {
+            return words;
         }
 
-        // Also try to get lines for better grouping
         try {
-            List<Word> lines = tesseract.getWords(image, ITessAPI.TessPageIteratorLevel.RIL_TEXTLINE);
-            for (Word line : lines) {
-                String text = line.getText();
-                if (text == null || text.trim().isEmpty()) {
-                    continue;
-                }
+            ITessAPI.TessPageIterator pi = api.TessResultIteratorGetPageIterator(ri);
+            api.TessPageIteratorBegin(pi);
 
-                Rectangle rect = line.getBoundingBox();
-                float confidence = line.getConfidence() / 100.0f;
+            IntBuffer[] box = {IntBuffer.allocate(1), IntBuffer.allocate(1),
+                    IntBuffer.allocate(1), IntBuffer.allocate(1)};
 
-                if (confidence >= config.getMinConfidence()) {
-                    BoundingBox bbox = new BoundingBox(rect.x, rect.y, rect.width, rect.height);
-                    TextBlock block = TextBlock.line(text.trim(), bbox, confidence);
-                    blocks.add(block);
+            do {
+                if (api.TessPageIteratorIsAtBeginningOf(pi, ITessAPI.TessPageIteratorLevel.RIL_BLOCK) == ITessAPI.TRUE) {
+                    addBlock(regions, ri, pi, ITessAPI.TessPageIteratorLevel.RIL_BLOCK,
+                            TextBlock.BlockType.BLOCK, box);
                 }
-            }
-        } catch (Exception e) {
-            logger.debug("Could not extract lines: {}", e.getMessage());
+                if (api.TessPageIteratorIsAtBeginningOf(pi, ITessAPI.TessPageIteratorLevel.RIL_PARA) == ITessAPI.TRUE) {
+                    addBlock(paragraphs, ri, pi, ITessAPI.TessPageIteratorLevel.RIL_PARA,
+                            TextBlock.BlockType.PARAGRAPH, box);
+                }
+                if (api.TessPageIteratorIsAtBeginningOf(pi, ITessAPI.TessPageIteratorLevel.RIL_TEXTLINE) == ITessAPI.TRUE) {
+                    addBlock(lines, ri, pi, ITessAPI.TessPageIteratorLevel.RIL_TEXTLINE,
+                            TextBlock.BlockType.LINE, box);
+                }
+                addBlock(words, ri, pi, ITessAPI.TessPageIteratorLevel.RIL_WORD,
+                        TextBlock.BlockType.WORD, box);
+            } while (api.TessPageIteratorNext(pi, ITessAPI.TessPageIteratorLevel.RIL_WORD) == ITessAPI.TRUE);
+
+        } finally {
+            api.TessResultIteratorDelete(ri);
         }
 
+        List<TextBlock> blocks = new ArrayList<>(
+                words.size() + lines.size() + paragraphs.size() + regions.size());
+        blocks.addAll(words);
+        blocks.addAll(lines);
+        blocks.addAll(paragraphs);
+        blocks.addAll(regions);
         return blocks;
     }
 
     /**
-     * Releases resources held by this engine.
+     * Reads the element at the iterator's current position for one level and adds it
+     * to the list if it has text.
      */
-    public void dispose() {
+    private void addBlock(List<TextBlock> target, ITessAPI.TessResultIterator ri,
+                          ITessAPI.TessPageIterator pi, int level, TextBlock.BlockType type,
+                          IntBuffer[] box) {
+        Pointer textPtr = api.TessResultIteratorGetUTF8Text(ri, level);
+        if (textPtr == null) {
+            return;
+        }
+        String text = textPtr.getString(0, "UTF-8").trim();
+        api.TessDeleteText(textPtr);
+        if (text.isEmpty()) {
+            return;
+        }
+
+        // Low-confidence blocks are kept; OCRResult filters them by the configured minimum
+        float confidence = api.TessResultIteratorConfidence(ri, level) / 100.0f; // 0-100 to 0-1
+
+        api.TessPageIteratorBoundingBox(pi, level, box[0], box[1], box[2], box[3]);
+        BoundingBox bbox = new BoundingBox(box[0].get(0), box[1].get(0),
+                box[2].get(0) - box[0].get(0), box[3].get(0) - box[1].get(0));
+
+        target.add(new TextBlock(text, bbox, confidence, type));
+    }
+
+    /**
+     * Releases resources held by this engine, including the native Tesseract handles.
+     */
+    public synchronized void dispose() {
         initialized = false;
+        releaseNativeHandles();
+        imageBuffer = null;
+        stagedSource = null;
+        stagedConfig = null;
         logger.debug("OCR engine disposed");
     }
 
+    private void releaseNativeHandles() {
+        if (handle != null) {
+            api.TessBaseAPIEnd(handle);
+            api.TessBaseAPIDelete(handle);
+            handle = null;
+        }
+        if (osdHandle != null) {
+            api.TessBaseAPIEnd(osdHandle);
+            api.TessBaseAPIDelete(osdHandle);
+            osdHandle = null;
+        }
+        loadedLanguage = null;
+        loadedEngineMode = -1;
+    }
+
     /**
      * Gets the path to tessdata directory.
      */
@@ -462,6 +857,13 @@ public class OCREngine {
         return tessdataPath;
     }
 
+    /**
+     * Gets the language currently loaded into the native engine.
+     */
+    public synchronized String getLoadedLanguage() {
+        return loadedLanguage;
+    }
+
     /**
      * Checks if orientation/script detection (OSD) is available.
      * Requires osd.traineddata file in tessdata directory.
@@ -495,4 +897,22 @@ public class OCREngine {
             super(message, cause);
         }
     }
+
+    /**
+     * Thrown when an image takes longer than its time limit.
+     */
+    public static class OCRTimeoutException extends OCRException {
+        public OCRTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown when processing is stopped through a {@link CancellationToken}.
+     */
+    public static class OCRCancelledException extends OCRException {
+        public OCRCancelledException(String message) {
+            super(message);
+        }
+    }
 }
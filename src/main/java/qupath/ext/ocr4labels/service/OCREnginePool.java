@@ -0,0 +1,518 @@
+package qupath.ext.ocr4labels.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.ocr4labels.model.OCRConfiguration;
+import qupath.ext.ocr4labels.model.OCRResult;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded pool of initialized {@link OCREngine} instances.
+ *
+ * <p>An OCREngine holds a native Tesseract handle and must only be used by one thread
+ * at a time. The pool hands out engines through {@link Lease}s so independent images
+ * can be processed in parallel, while capping how many native handles (and how much
+ * traineddata memory) exist at once. Engines are created lazily, reused most-recently-
+ * returned first, and disposed after sitting idle for longer than the idle timeout.</p>
+ *
+ * <p>When every engine is leased, a returned engine goes to the waiting request with the
+ * highest {@link OCRPriority}, so an interactive run gets the next free engine ahead of
+ * queued batch work. Batch workers borrow an engine per image, which makes them yield to
+ * interactive and prefetch requests between images.</p>
+ *
+ * <p>Typical use:</p>
+ * <pre>
+ * OCRResult result = pool.withEngine(engine -&gt; engine.processImage(image, config));
+ * </pre>
+ */
+public class OCREnginePool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OCREnginePool.class);
+
+    /** Default time an unused engine is kept before its native handle is released. */
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 60_000;
+
+    /** Upper bound for the default size; each engine keeps its own copy of the model. */
+    private static final int MAX_DEFAULT_SIZE = 8;
+
+    // Application-wide pool for the current tessdata path
+    private static OCREnginePool sharedPool;
+
+    private final String tessdataPath;
+    private final String language;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final PriorityPermits permits;
+    private final Deque<IdleEngine> idleEngines = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private int liveEngines = 0;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a pool with the default size and idle timeout.
+     *
+     * @param tessdataPath Path to the tessdata directory
+     * @param language     Language code used to initialize new engines
+     */
+    public OCREnginePool(String tessdataPath, String language) {
+        this(tessdataPath, language, defaultPoolSize(), DEFAULT_IDLE_TIMEOUT_MS);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param tessdataPath  Path to the tessdata directory
+     * @param language      Language code used to initialize new engines
+     * @param maxSize       Maximum number of engines that may exist at once
+     * @param idleTimeoutMs How long an unused engine is kept before being disposed
+     */
+    public OCREnginePool(String tessdataPath, String language, int maxSize, long idleTimeoutMs) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.tessdataPath = Objects.requireNonNull(tessdataPath, "Tessdata path cannot be null");
+        this.language = Objects.requireNonNull(language, "Language cannot be null");
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.permits = new PriorityPermits(maxSize);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ocr-engine-pool-evictor");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMs / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        logger.debug("Created OCR engine pool (max {} engines, idle timeout {}ms)", maxSize, idleTimeoutMs);
+    }
+
+    /**
+     * Default pool size: one engine per spare core, bounded to keep native memory in check.
+     */
+    public static int defaultPoolSize() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(cores - 1, MAX_DEFAULT_SIZE));
+    }
+
+    /**
+     * Gets the application-wide pool for the given tessdata path.
+     *
+     * <p>One pool serves every language: engines switch to the language of each request's
+     * configuration, so asking for another language (e.g. from a script) reuses the pool
+     * a running batch is using. When the tessdata path changes, the pool for the old path
+     * is closed; engines it has leased out finish their current image first.</p>
+     *
+     * @param tessdataPath Path to the tessdata directory
+     * @param language     Language code used to initialize engines if a new pool is created
+     * @return The shared pool
+     */
+    public static synchronized OCREnginePool getShared(String tessdataPath, String language) {
+        if (sharedPool != null && !sharedPool.isClosed() && sharedPool.getTessdataPath().equals(tessdataPath)) {
+            return sharedPool;
+        }
+        if (sharedPool != null && !sharedPool.isClosed()) {
+            logger.info("Tessdata path changed to {}; closing OCR engine pool for {}",
+                    tessdataPath, sharedPool.getTessdataPath());
+            sharedPool.close();
+        }
+        sharedPool = new OCREnginePool(tessdataPath, language);
+        return sharedPool;
+    }
+
+    /**
+     * Closes the application-wide pool.
+     */
+    public static synchronized void shutdownShared() {
+        if (sharedPool != null) {
+            sharedPool.close();
+            sharedPool = null;
+        }
+    }
+
+    /**
+     * Borrows an engine at interactive priority, blocking until one is available.
+     * The lease must be closed to return the engine to the pool.
+     *
+     * @return A lease on an initialized engine
+     * @throws OCREngine.OCRException if the pool is closed, the wait is interrupted,
+     *                                or a new engine could not be initialized
+     */
+    public Lease acquire() throws OCREngine.OCRException {
+        return acquire(OCRPriority.INTERACTIVE);
+    }
+
+    /**
+     * Borrows an engine, blocking until one is available. Waiting requests are served
+     * by priority, then in arrival order.
+     * The lease must be closed to return the engine to the pool.
+     *
+     * @param priority Scheduling class of the request
+     * @return A lease on an initialized engine
+     * @throws OCREngine.OCRException if the pool is closed, the wait is interrupted,
+     *                                or a new engine could not be initialized
+     */
+    public Lease acquire(OCRPriority priority) throws OCREngine.OCRException {
+        if (closed) {
+            throw new OCREngine.OCRException("OCR engine pool has been closed");
+        }
+
+        try {
+            permits.acquire(priority);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OCREngine.OCRException("Interrupted while waiting for an OCR engine", e);
+        }
+
+        OCREngine engine;
+        synchronized (this) {
+            IdleEngine idle = idleEngines.pollFirst();
+            engine = idle != null ? idle.engine : null;
+            if (engine == null) {
+                liveEngines++;
+            }
+        }
+
+        if (engine == null) {
+            try {
+                engine = new OCREngine();
+                engine.initialize(tessdataPath, language);
+                logger.debug("Created pooled OCR engine ({} of {})", getLiveCount(), maxSize);
+            } catch (OCREngine.OCRException | RuntimeException e) {
+                if (engine != null) {
+                    engine.dispose();
+                }
+                synchronized (this) {
+                    liveEngines--;
+                }
+                permits.release();
+                throw e;
+            }
+        }
+
+        return new Lease(engine);
+    }
+
+    /**
+     * Runs a task with an engine borrowed at interactive priority and returns the engine afterwards.
+     *
+     * @param task The work to perform
+     * @return The task's result
+     * @throws OCREngine.OCRException if no engine could be obtained or the task fails
+     */
+    public <T> T withEngine(EngineTask<T> task) throws OCREngine.OCRException {
+        return withEngine(OCRPriority.INTERACTIVE, task);
+    }
+
+    /**
+     * Runs a task with a borrowed engine and returns the engine afterwards.
+     *
+     * @param priority Scheduling class of the request
+     * @param task     The work to perform
+     * @return The task's result
+     * @throws OCREngine.OCRException if no engine could be obtained or the task fails
+     */
+    public <T> T withEngine(OCRPriority priority, EngineTask<T> task) throws OCREngine.OCRException {
+        try (Lease lease = acquire(priority)) {
+            return task.apply(lease.engine());
+        }
+    }
+
+    /**
+     * Recognizes several regions of one image, optionally spread across pooled engines.
+     * Regions are split into contiguous groups, one per engine; each engine uploads the
+     * image once and recognizes its group with {@link OCREngine#processRegions}.
+     *
+     * @param image       The full image
+     * @param regions     Regions to recognize, in image pixel coordinates
+     * @param config      OCR configuration settings
+     * @param parallelism Maximum number of engines to use
+     * @return One result per region, in the same order as {@code regions}
+     * @throws OCREngine.OCRException if any region group fails
+     */
+    public List<OCRResult> processRegions(BufferedImage image, List<Rectangle> regions,
+                                          OCRConfiguration config, int parallelism)
+            throws OCREngine.OCRException {
+        int workers = Math.max(1, Math.min(parallelism, Math.min(maxSize, regions.size())));
+        if (workers == 1) {
+            return withEngine(engine -> engine.processRegions(image, regions, config));
+        }
+
+        // Groups run on the shared OCR executor; any group no worker has started yet is
+        // run by the calling thread, so waiting here can never deadlock a full executor
+        List<CompletableFuture<List<OCRResult>>> parts = new ArrayList<>(workers);
+        List<Runnable> inline = new ArrayList<>(workers);
+        int groupSize = (regions.size() + workers - 1) / workers;
+        for (int from = 0; from < regions.size(); from += groupSize) {
+            List<Rectangle> group = regions.subList(from, Math.min(regions.size(), from + groupSize));
+            CompletableFuture<List<OCRResult>> part = new CompletableFuture<>();
+            AtomicBoolean claimed = new AtomicBoolean(false);
+            Runnable task = () -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return;
+                }
+                try {
+                    part.complete(withEngine(engine -> engine.processRegions(image, group, config)));
+                } catch (Throwable e) {
+                    part.completeExceptionally(e);
+                }
+            };
+            OCRExecutor.getShared().submit(OCRPriority.INTERACTIVE, () -> {
+                task.run();
+                return null;
+            });
+            parts.add(part);
+            inline.add(task);
+        }
+        inline.forEach(Runnable::run);
+
+        List<OCRResult> results = new ArrayList<>(regions.size());
+        for (CompletableFuture<List<OCRResult>> part : parts) {
+            try {
+                results.addAll(part.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof OCREngine.OCRException) {
+                    throw (OCREngine.OCRException) e.getCause();
+                }
+                throw new OCREngine.OCRException("Region OCR failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Initializes one engine so configuration errors surface immediately.
+     * The engine is left idle in the pool for the first job.
+     *
+     * @throws OCREngine.OCRException if the engine could not be initialized
+     */
+    public void warmUp() throws OCREngine.OCRException {
+        acquire().close();
+    }
+
+    private void release(OCREngine engine) {
+        boolean dispose;
+        synchronized (this) {
+            dispose = closed || !engine.isInitialized();
+            if (dispose) {
+                liveEngines--;
+            } else {
+                idleEngines.addFirst(new IdleEngine(engine, System.currentTimeMillis()));
+            }
+        }
+        if (dispose) {
+            engine.dispose();
+        }
+        permits.release();
+    }
+
+    /**
+     * Disposes engines that have been idle longer than the idle timeout.
+     */
+    void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        Deque<OCREngine> expired = new ArrayDeque<>();
+        synchronized (this) {
+            Iterator<IdleEngine> it = idleEngines.descendingIterator();
+            while (it.hasNext()) {
+                IdleEngine idle = it.next();
+                if (idle.returnedAt > cutoff) {
+                    break;
+                }
+                it.remove();
+                liveEngines--;
+                expired.add(idle.engine);
+            }
+        }
+        for (OCREngine engine : expired) {
+            engine.dispose();
+        }
+        if (!expired.isEmpty()) {
+            logger.debug("Evicted {} idle OCR engine(s)", expired.size());
+        }
+    }
+
+    /**
+     * Gets the maximum number of engines this pool will create.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of engines currently alive (leased or idle).
+     */
+    public synchronized int getLiveCount() {
+        return liveEngines;
+    }
+
+    /**
+     * Gets the number of engines currently idle in the pool.
+     */
+    public synchronized int getIdleCount() {
+        return idleEngines.size();
+    }
+
+    /**
+     * Gets the tessdata path used to initialize engines.
+     */
+    public String getTessdataPath() {
+        return tessdataPath;
+    }
+
+    /**
+     * Checks whether the pool has been closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the pool. Idle engines are disposed immediately; leased engines
+     * are disposed when they are returned.
+     */
+    @Override
+    public void close() {
+        Deque<IdleEngine> toDispose;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toDispose = new ArrayDeque<>(idleEngines);
+            liveEngines -= idleEngines.size();
+            idleEngines.clear();
+        }
+        evictor.shutdownNow();
+        for (IdleEngine idle : toDispose) {
+            idle.engine.dispose();
+        }
+        logger.debug("OCR engine pool closed");
+    }
+
+    /**
+     * Work to run against a borrowed engine.
+     */
+    @FunctionalInterface
+    public interface EngineTask<T> {
+        T apply(OCREngine engine) throws OCREngine.OCRException;
+    }
+
+    /**
+     * A borrowed engine. Closing the lease returns the engine to the pool.
+     */
+    public final class Lease implements AutoCloseable {
+        private OCREngine engine;
+
+        private Lease(OCREngine engine) {
+            this.engine = engine;
+        }
+
+        /**
+         * Gets the leased engine.
+         */
+        public OCREngine engine() {
+            if (engine == null) {
+                throw new IllegalStateException("Lease has already been returned");
+            }
+            return engine;
+        }
+
+        @Override
+        public void close() {
+            if (engine != null) {
+                OCREngine returned = engine;
+                engine = null;
+                release(returned);
+            }
+        }
+    }
+
+    /**
+     * Counting permits handed to waiters by priority, then arrival order.
+     * While any request is waiting, no permit is left available.
+     */
+    private static class PriorityPermits {
+        private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+        private int available;
+        private long sequence = 0;
+
+        PriorityPermits(int permits) {
+            this.available = permits;
+        }
+
+        synchronized void acquire(OCRPriority priority) throws InterruptedException {
+            if (available > 0) {
+                available--;
+                return;
+            }
+            Waiter waiter = new Waiter(priority, sequence++);
+            waiters.add(waiter);
+            try {
+                while (!waiter.granted) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    // Granted while being interrupted: pass the permit on
+                    release();
+                } else {
+                    waiters.remove(waiter);
+                }
+                throw e;
+            }
+        }
+
+        synchronized void release() {
+            Waiter next = waiters.poll();
+            if (next != null) {
+                next.granted = true;
+                notifyAll();
+            } else {
+                available++;
+            }
+        }
+    }
+
+    private static class Waiter implements Comparable<Waiter> {
+        final OCRPriority priority;
+        final long sequence;
+        boolean granted = false;
+
+        Waiter(OCRPriority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static class IdleEngine {
+        final OCREngine engine;
+        final long returnedAt;
+
+        IdleEngine(OCREngine engine, long returnedAt) {
+            this.engine = engine;
+            this.returnedAt = returnedAt;
+        }
+    }
+}
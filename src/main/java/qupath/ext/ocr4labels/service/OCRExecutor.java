@@ -0,0 +1,235 @@
+package qupath.ext.ocr4labels.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded executor for OCR work, kept apart from {@code ForkJoinPool.commonPool()} so
+ * Tesseract calls do not compete with QuPath's own parallel streams.
+ *
+ * <p>A fixed number of named daemon threads take tasks from a bounded queue. Backpressure
+ * is explicit: {@link #submit} never blocks and fails the returned future with a
+ * {@link RejectedExecutionException} when every thread is busy and the queue is full,
+ * which suits the FX thread; {@link #submitBlocking} waits for room instead, which
+ * suits scripts and other producers that should be slowed down. Non-blocking producers
+ * can use {@link #whenAvailable()} to retry once room frees up.</p>
+ *
+ * <p>Queued tasks are started by {@link OCRPriority}, then in submission order, so an
+ * interactive run overtakes queued prefetch and batch tasks. Running tasks are not
+ * interrupted.</p>
+ */
+public class OCRExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OCRExecutor.class);
+
+    /** Default number of tasks that may wait for a thread, per thread. */
+    public static final int DEFAULT_QUEUE_PER_THREAD = 8;
+
+    private static OCRExecutor sharedExecutor;
+
+    private final String name;
+    private final int threads;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Creates an executor.
+     *
+     * @param name          Thread name prefix
+     * @param threads       Number of worker threads
+     * @param queueCapacity Number of tasks that may wait for a free thread
+     */
+    public OCRExecutor(String name, int threads, int queueCapacity) {
+        this.name = name;
+        this.threads = Math.max(1, threads);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.slots = new Semaphore(this.threads + this.queueCapacity);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                // Unbounded by itself; the slots bound how many tasks can be queued
+                new PriorityBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Gets the application-wide executor, sized to match {@link OCREnginePool#defaultPoolSize()}.
+     */
+    public static synchronized OCRExecutor getShared() {
+        if (sharedExecutor == null || sharedExecutor.isShutdown()) {
+            int threads = OCREnginePool.defaultPoolSize();
+            sharedExecutor = new OCRExecutor("ocr-worker", threads, threads * DEFAULT_QUEUE_PER_THREAD);
+            logger.debug("Created shared OCR executor ({} threads)", threads);
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Shuts down the application-wide executor, if one exists. Queued tasks still run.
+     */
+    public static synchronized void shutdownShared() {
+        if (sharedExecutor != null) {
+            sharedExecutor.shutdown();
+            sharedExecutor = null;
+        }
+    }
+
+    /**
+     * Submits an interactive task without blocking.
+     *
+     * @see #submit(OCRPriority, Callable)
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submit(OCRPriority.INTERACTIVE, task);
+    }
+
+    /**
+     * Submits a task without blocking.
+     *
+     * @param priority Scheduling class of the task
+     * @param task     The task
+     * @return Future completed with the task's result or exception; failed with a
+     *         {@link RejectedExecutionException} if the queue is full or the executor is shut down
+     */
+    public <T> CompletableFuture<T> submit(OCRPriority priority, Callable<T> task) {
+        if (!slots.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    "OCR queue is full (" + queueCapacity + " waiting tasks)"));
+        }
+        return execute(priority, task);
+    }
+
+    /**
+     * Submits a task, waiting for room in the queue first.
+     *
+     * @param priority Scheduling class of the task
+     * @param task     The task
+     * @return Future completed with the task's result or exception
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    public <T> CompletableFuture<T> submitBlocking(OCRPriority priority, Callable<T> task) throws InterruptedException {
+        slots.acquire();
+        return execute(priority, task);
+    }
+
+    /**
+     * Gets a future that completes once the queue has room. Room is not reserved, so a
+     * following {@link #submit} may still be rejected when several producers are waiting.
+     */
+    public CompletableFuture<Void> whenAvailable() {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        if (slots.availablePermits() > 0) {
+            signalWaiters();
+        }
+        return waiter;
+    }
+
+    private <T> CompletableFuture<T> execute(OCRPriority priority, Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(new PrioritizedTask(priority, sequence.getAndIncrement(), () -> {
+                try {
+                    if (!future.isDone()) {
+                        future.complete(task.call());
+                    }
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    releaseSlot();
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            releaseSlot();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private void releaseSlot() {
+        slots.release();
+        signalWaiters();
+    }
+
+    private void signalWaiters() {
+        // Stop once the queue is full again: a woken producer whose retry is rejected
+        // registers again, and waking it at once would spin on this thread
+        CompletableFuture<Void> waiter;
+        while (slots.availablePermits() > 0 && (waiter = waiters.poll()) != null) {
+            waiter.complete(null);
+        }
+    }
+
+    /**
+     * Gets the number of worker threads.
+     */
+    public int getThreadCount() {
+        return threads;
+    }
+
+    /**
+     * Gets the number of tasks running or waiting.
+     */
+    public int getPendingCount() {
+        return threads + queueCapacity - slots.availablePermits();
+    }
+
+    /**
+     * Checks whether a non-blocking submission would currently be rejected.
+     */
+    public boolean isSaturated() {
+        return slots.availablePermits() == 0;
+    }
+
+    /**
+     * Stops accepting tasks; tasks already submitted still run.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        logger.debug("OCR executor '{}' shut down", name);
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final OCRPriority priority;
+        private final long sequence;
+        private final Runnable task;
+
+        private PrioritizedTask(OCRPriority priority, long sequence, Runnable task) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package qupath.ext.ocr4labels.service;
+
+/**
+ * Scheduling class of an OCR request. When engines or executor threads are scarce,
+ * waiting work is served in this order, and in submission order within a class.
+ */
+public enum OCRPriority {
+
+    /** Work a user is waiting on: dialog runs and region scans. */
+    INTERACTIVE,
+
+    /** Speculative work whose result may be needed soon, e.g. the next image in a list. */
+    PREFETCH,
+
+    /** Background batch work over many images. */
+    BATCH
+}
@@ -0,0 +1,613 @@
+package qupath.ext.ocr4labels.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.ocr4labels.model.BoundingBox;
+import qupath.ext.ocr4labels.model.OCRConfiguration;
+import qupath.ext.ocr4labels.model.OCRResult;
+import qupath.ext.ocr4labels.model.TextBlock;
+import qupath.ext.ocr4labels.utilities.LabelImageIndex;
+import qupath.lib.projects.Project;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Content-addressed cache of OCR results.
+ *
+ * <p>Results are keyed by a 64-bit hash of the image pixels, {@link OCRConfiguration#hashCode()},
+ * a checksum of the traineddata files for the configured language and the Tesseract version,
+ * so a result is reused only when recognition would see exactly the same input. The minimum
+ * confidence is left out of the key: results hold every recognized block, and a hit is
+ * returned as a view at the caller's threshold. Region results from
+ * {@link OCREngine#processRegions} also include the region in the key, so after a template
+ * tweak only regions that actually moved are recognized again.</p>
+ *
+ * <p>There are two tiers: an in-memory LRU map, and one small JSON file per result in the
+ * project directory ({@code ocr4labels/ocr_cache}), which survives restarts. The disk tier
+ * is only used while a project is set with {@link #useProject(Project)}, and holds at most
+ * {@link #setMaxDiskEntries(int) a fixed number} of results per project; once full, the
+ * results least recently stored or read are deleted first. Results are
+ * stored with their full, unfiltered {@link TextBlock} lists, so a hit is indistinguishable
+ * from a fresh run apart from the processing time it reports, which is that of the original run.</p>
+ *
+ * <p>{@link OCREngine} consults the shared cache transparently; callers do not need to
+ * change anything to benefit from it.</p>
+ */
+public class OCRResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(OCRResultCache.class);
+
+    /** Number of results kept in memory by the shared cache. */
+    public static final int DEFAULT_MEMORY_ENTRIES = 512;
+
+    /** Number of results kept on disk, per project, by the shared cache. */
+    public static final int DEFAULT_DISK_ENTRIES = 10_000;
+
+    private static final String CACHE_DIRECTORY = "ocr_cache";
+    private static final int CACHE_VERSION = 3;
+    private static final Gson GSON = new Gson();
+
+    private static final OCRResultCache SHARED = new OCRResultCache(DEFAULT_MEMORY_ENTRIES);
+
+    /** Traineddata checksums, keyed by path and revalidated by size and modification time. */
+    private static final Map<String, long[]> MODEL_CHECKSUMS = new ConcurrentHashMap<>();
+
+    private final Map<Key, OCRResult> memory;
+    private volatile boolean enabled = true;
+    private volatile File directory;
+    private volatile int maxDiskEntries = DEFAULT_DISK_ENTRIES;
+
+    private final Object diskLock = new Object();
+    // Number of result files in the directory, or -1 until counted; guarded by diskLock
+    private int diskEntries = -1;
+
+    /**
+     * Creates a cache holding up to {@code memoryEntries} results in memory.
+     */
+    public OCRResultCache(int memoryEntries) {
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, OCRResult> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the cache used by all OCR engines.
+     */
+    public static OCRResultCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Stores results on disk in the given project's directory from now on. Call this
+     * whenever the current project changes, including with null when it is closed, so
+     * results are never read from or written to another project.
+     *
+     * @param project The project, or null to keep results in memory only
+     */
+    public void useProject(Project<?> project) {
+        File dir = null;
+        if (project != null && project.getPath() != null) {
+            File projectDir = project.getPath().toFile().getParentFile();
+            dir = new File(new File(projectDir, LabelImageIndex.DATA_DIRECTORY), CACHE_DIRECTORY);
+        }
+        synchronized (diskLock) {
+            if (!Objects.equals(dir, directory)) {
+                directory = dir;
+                diskEntries = -1;
+            }
+        }
+    }
+
+    /**
+     * Gets the maximum number of results kept on disk for a project.
+     */
+    public int getMaxDiskEntries() {
+        return maxDiskEntries;
+    }
+
+    /**
+     * Sets the maximum number of results kept on disk for a project. The limit is
+     * applied on the next store.
+     */
+    public void setMaxDiskEntries(int maxDiskEntries) {
+        this.maxDiskEntries = Math.max(0, maxDiskEntries);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables lookups and stores. Disabling does not discard cached results.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Computes the key for an image and configuration.
+     *
+     * @param image         The image as passed to the engine, before preprocessing
+     * @param config        The OCR configuration
+     * @param tessdataPath  Tessdata directory used by the engine
+     * @param language      Language(s) used, e.g. "eng" or "eng+deu"
+     * @param engineVersion Tesseract version string
+     */
+    public static Key keyFor(BufferedImage image, OCRConfiguration config,
+                             String tessdataPath, String language, String engineVersion) {
+        // Confidence filtering happens after recognition, so it must not split the key
+        int configHash = config.getRecognitionHash();
+        return new Key(hashImage(image), configHash,
+                modelChecksum(tessdataPath, language), Objects.toString(engineVersion, ""),
+                -1, -1, -1, -1);
+    }
+
+    /**
+     * Gets a cached result, checking memory first and then disk.
+     *
+     * @return The result, or null on a miss or when the cache is disabled
+     */
+    public OCRResult get(Key key) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (memory) {
+            OCRResult result = memory.get(key);
+            if (result != null) {
+                return result;
+            }
+        }
+
+        OCRResult result = readFromDisk(key);
+        if (result != null) {
+            synchronized (memory) {
+                memory.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores a result in memory and, if a project is set, on disk.
+     */
+    public void put(Key key, OCRResult result) {
+        if (!enabled || result == null) {
+            return;
+        }
+        synchronized (memory) {
+            memory.put(key, result);
+        }
+        writeToDisk(key, result);
+    }
+
+    /**
+     * Removes all results from memory and from the current project's cache directory.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        synchronized (diskLock) {
+            File dir = directory;
+            if (dir != null) {
+                for (File file : listStored(dir)) {
+                    if (!file.delete()) {
+                        logger.debug("Could not delete cached OCR result {}", file);
+                    }
+                }
+            }
+            diskEntries = -1;
+        }
+    }
+
+    /**
+     * Number of results held in memory.
+     */
+    public int memorySize() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    private OCRResult readFromDisk(Key key) {
+        File dir = directory;
+        if (dir == null) {
+            return null;
+        }
+        File file = new File(dir, key.fileName());
+        if (!file.isFile()) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            StoredResult stored = GSON.fromJson(reader, StoredResult.class);
+            if (stored == null || !stored.matches(key)) {
+                return null;
+            }
+            // Eviction goes by modification time, so mark the result as recently used
+            file.setLastModified(System.currentTimeMillis());
+            return stored.toResult();
+        } catch (IOException | JsonParseException | IllegalArgumentException e) {
+            logger.debug("Could not read cached OCR result {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(Key key, OCRResult result) {
+        File dir = directory;
+        if (dir == null) {
+            return;
+        }
+        File file = new File(dir, key.fileName());
+        File tmp = new File(dir, key.fileName() + ".tmp");
+        try {
+            Files.createDirectories(dir.toPath());
+            try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+                GSON.toJson(new StoredResult(key, result), writer);
+            }
+            boolean added = !file.exists();
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if (added) {
+                countStored(dir);
+            }
+        } catch (IOException e) {
+            logger.debug("Could not write cached OCR result {}: {}", file, e.getMessage());
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Counts a newly stored result and, when the directory is over its limit, deletes
+     * the least recently used results down to 90% of the limit, so pruning is not
+     * repeated on every store.
+     */
+    private void countStored(File dir) {
+        synchronized (diskLock) {
+            if (!dir.equals(directory)) {
+                return;
+            }
+            diskEntries = diskEntries < 0 ? listStored(dir).length : diskEntries + 1;
+            int max = maxDiskEntries;
+            if (diskEntries <= max) {
+                return;
+            }
+            File[] files = listStored(dir);
+            long[] modified = new long[files.length];
+            Integer[] order = new Integer[files.length];
+            for (int i = 0; i < files.length; i++) {
+                modified[i] = files[i].lastModified();
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingLong(i -> modified[i]));
+            int remaining = files.length;
+            int target = max - max / 10;
+            for (int i = 0; i < order.length && remaining > target; i++) {
+                if (files[order[i]].delete()) {
+                    remaining--;
+                } else {
+                    logger.debug("Could not delete cached OCR result {}", files[order[i]]);
+                }
+            }
+            logger.debug("Pruned OCR result cache {} from {} to {} results", dir, files.length, remaining);
+            diskEntries = remaining;
+        }
+    }
+
+    private static File[] listStored(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+        return files != null ? files : new File[0];
+    }
+
+    // ========== Hashing ==========
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Fast 64-bit hash of an image's pixels, dimensions and type. Standard rasters are
+     * hashed straight from their backing arrays, eight bytes at a time; anything else
+     * (sub-images, multi-bank or unusual buffers) is hashed through {@code getRGB}.
+     */
+    public static long hashImage(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long h = round(round(P4, image.getType()), ((long) width << 32) | height);
+
+        WritableRaster raster = image.getRaster();
+        DataBuffer buffer = raster.getDataBuffer();
+        boolean whole = raster.getParent() == null
+                && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && buffer.getNumBanks() == 1 && buffer.getOffset() == 0;
+
+        if (whole && buffer instanceof DataBufferByte) {
+            h = hashBytes(h, ((DataBufferByte) buffer).getData());
+        } else if (whole && buffer instanceof DataBufferInt) {
+            h = hashInts(h, ((DataBufferInt) buffer).getData(), ((DataBufferInt) buffer).getData().length);
+        } else if (whole && buffer instanceof DataBufferUShort) {
+            short[] data = ((DataBufferUShort) buffer).getData();
+            int i = 0;
+            for (; i + 4 <= data.length; i += 4) {
+                h = round(h, (data[i] & 0xFFFFL) | (data[i + 1] & 0xFFFFL) << 16
+                        | (data[i + 2] & 0xFFFFL) << 32 | (data[i + 3] & 0xFFFFL) << 48);
+            }
+            for (; i < data.length; i++) {
+                h = round(h, data[i]);
+            }
+            h ^= data.length;
+        } else {
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, row, 0, width);
+                h = hashInts(h, row, width);
+            }
+        }
+        return fmix(h);
+    }
+
+    private static long hashBytes(long h, byte[] data) {
+        int i = 0;
+        for (; i + Long.BYTES <= data.length; i += Long.BYTES) {
+            h = round(h, (long) LONGS.get(data, i));
+        }
+        long tail = 0;
+        for (int shift = 0; i < data.length; i++, shift += 8) {
+            tail |= (data[i] & 0xFFL) << shift;
+        }
+        return round(h, tail) ^ data.length;
+    }
+
+    private static long hashInts(long h, int[] data, int length) {
+        int i = 0;
+        for (; i + 2 <= length; i += 2) {
+            h = round(h, (data[i] & 0xFFFFFFFFL) | ((long) data[i + 1] << 32));
+        }
+        if (i < length) {
+            h = round(h, data[i] & 0xFFFFFFFFL);
+        }
+        return h ^ length;
+    }
+
+    private static long round(long h, long k) {
+        k *= P2;
+        k = Long.rotateLeft(k, 31);
+        k *= P1;
+        h ^= k;
+        return Long.rotateLeft(h, 27) * P1 + P4;
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * CRC32C over the traineddata files for each language in a "+"-separated list.
+     * Checksums are cached per file until its size or modification time changes.
+     */
+    static long modelChecksum(String tessdataPath, String language) {
+        if (tessdataPath == null || language == null) {
+            return 0;
+        }
+        long h = P4;
+        for (String lang : language.split("\\+")) {
+            File file = new File(tessdataPath, lang.trim() + ".traineddata");
+            long size = file.length();
+            long modified = file.lastModified();
+            long[] cached = MODEL_CHECKSUMS.get(file.getPath());
+            if (cached == null || cached[0] != size || cached[1] != modified) {
+                cached = new long[]{size, modified, checksumFile(file)};
+                MODEL_CHECKSUMS.put(file.getPath(), cached);
+            }
+            h = round(h, cached[2]);
+        }
+        return fmix(h);
+    }
+
+    private static long checksumFile(File file) {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long region = Integer.MAX_VALUE;
+            for (long position = 0; position < size; position += region) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(region, size - position)));
+            }
+            return crc.getValue();
+        } catch (IOException e) {
+            logger.debug("Could not checksum {}: {}", file, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Identifies one OCR input: image pixels, configuration, model and engine version,
+     * and optionally a region of the image.
+     */
+    public static final class Key {
+        private final long imageHash;
+        private final int configHash;
+        private final long modelChecksum;
+        private final String engineVersion;
+        private final int regionX;
+        private final int regionY;
+        private final int regionWidth;
+        private final int regionHeight;
+
+        private Key(long imageHash, int configHash, long modelChecksum, String engineVersion,
+                    int regionX, int regionY, int regionWidth, int regionHeight) {
+            this.imageHash = imageHash;
+            this.configHash = configHash;
+            this.modelChecksum = modelChecksum;
+            this.engineVersion = engineVersion;
+            this.regionX = regionX;
+            this.regionY = regionY;
+            this.regionWidth = regionWidth;
+            this.regionHeight = regionHeight;
+        }
+
+        /**
+         * Gets the key for a region of the same image with the same settings.
+         */
+        public Key forRegion(Rectangle region) {
+            return new Key(imageHash, configHash, modelChecksum, engineVersion,
+                    region.x, region.y, region.width, region.height);
+        }
+
+        String fileName() {
+            long h = round(P4, imageHash);
+            h = round(h, configHash);
+            h = round(h, modelChecksum);
+            h = round(h, engineVersion.hashCode());
+            h = round(h, ((long) regionX << 32) | (regionY & 0xFFFFFFFFL));
+            h = round(h, ((long) regionWidth << 32) | (regionHeight & 0xFFFFFFFFL));
+            return String.format("%016x-%016x.json", imageHash, fmix(h));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return imageHash == key.imageHash && configHash == key.configHash
+                    && modelChecksum == key.modelChecksum && engineVersion.equals(key.engineVersion)
+                    && regionX == key.regionX && regionY == key.regionY
+                    && regionWidth == key.regionWidth && regionHeight == key.regionHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(imageHash) * 31 + Objects.hash(configHash, modelChecksum, engineVersion,
+                    regionX, regionY, regionWidth, regionHeight);
+        }
+    }
+
+    /**
+     * JSON form of a cached result, including the full key so that a file-name
+     * collision is never mistaken for a hit.
+     */
+    private static final class StoredResult {
+        int version;
+        long imageHash;
+        int configHash;
+        long modelChecksum;
+        String engineVersion;
+        int[] region;
+        long processingTimeMs;
+        int imageWidth;
+        int imageHeight;
+        int detectedOrientation;
+        List<StoredBlock> blocks;
+
+        StoredResult(Key key, OCRResult result) {
+            this.version = CACHE_VERSION;
+            this.imageHash = key.imageHash;
+            this.configHash = key.configHash;
+            this.modelChecksum = key.modelChecksum;
+            this.engineVersion = key.engineVersion;
+            this.region = new int[]{key.regionX, key.regionY, key.regionWidth, key.regionHeight};
+            this.processingTimeMs = result.getProcessingTimeMs();
+            this.imageWidth = result.getOriginalImageWidth();
+            this.imageHeight = result.getOriginalImageHeight();
+            this.detectedOrientation = result.getDetectedOrientation();
+            this.blocks = StoredBlock.fromBlocks(result.getAllTextBlocks());
+        }
+
+        boolean matches(Key key) {
+            return version == CACHE_VERSION && imageHash == key.imageHash
+                    && configHash == key.configHash && modelChecksum == key.modelChecksum
+                    && key.engineVersion.equals(engineVersion)
+                    && region != null && region.length == 4
+                    && region[0] == key.regionX && region[1] == key.regionY
+                    && region[2] == key.regionWidth && region[3] == key.regionHeight;
+        }
+
+        OCRResult toResult() {
+            return new OCRResult(StoredBlock.toBlocks(blocks), processingTimeMs,
+                    imageWidth, imageHeight, detectedOrientation);
+        }
+    }
+
+    /**
+     * JSON form of a {@link TextBlock}, shared with {@link OCRResultStore}.
+     */
+    static final class StoredBlock {
+        String text;
+        int x;
+        int y;
+        int width;
+        int height;
+        float confidence;
+        String type;
+
+        StoredBlock(TextBlock block) {
+            this.text = block.getText();
+            this.x = block.getBoundingBox().getX();
+            this.y = block.getBoundingBox().getY();
+            this.width = block.getBoundingBox().getWidth();
+            this.height = block.getBoundingBox().getHeight();
+            this.confidence = block.getConfidence();
+            this.type = block.getType().name();
+        }
+
+        TextBlock toTextBlock() {
+            return new TextBlock(text, new BoundingBox(x, y, width, height), confidence,
+                    TextBlock.BlockType.valueOf(type));
+        }
+
+        static List<StoredBlock> fromBlocks(List<TextBlock> blocks) {
+            List<StoredBlock> stored = new ArrayList<>(blocks.size());
+            for (TextBlock block : blocks) {
+                stored.add(new StoredBlock(block));
+            }
+            return stored;
+        }
+
+        static List<TextBlock> toBlocks(List<StoredBlock> stored) {
+            List<TextBlock> blocks = new ArrayList<>();
+            if (stored != null) {
+                for (StoredBlock block : stored) {
+                    blocks.add(block.toTextBlock());
+                }
+            }
+            return blocks;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package qupath.ext.ocr4labels.service;
+
+import qupath.ext.ocr4labels.model.OCRConfiguration;
+import qupath.ext.ocr4labels.model.OCRResult;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes OCR results for several images as each one completes.
+ *
+ * <p>Images are recognized on an {@link OCRExecutor} with engines borrowed from an
+ * {@link OCREnginePool}, and results are delivered in completion order, not input order.
+ * Work follows the subscriber's demand: no more images are in progress than have been
+ * requested and not yet delivered, and at most {@code maxInFlight} at a time. When the
+ * executor's queue is full, submission waits for room rather than failing. The first
+ * OCR error ends the stream with {@code onError}; cancelling stops further submissions.</p>
+ *
+ * <p>The publisher is single-use and accepts one subscriber.</p>
+ */
+public class OCRResultPublisher implements Flow.Publisher<OCRResult> {
+
+    private final OCREnginePool enginePool;
+    private final OCRExecutor executor;
+    private final List<BufferedImage> images;
+    private final OCRConfiguration config;
+    private final OCRPriority priority;
+    private final int maxInFlight;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    /**
+     * Creates a publisher.
+     *
+     * @param enginePool  Pool to borrow OCR engines from
+     * @param executor    Executor to run recognition on
+     * @param images      Images to recognize
+     * @param config      OCR configuration applied to every image
+     * @param priority    Scheduling class for both the executor and the engine pool
+     * @param maxInFlight Maximum number of images in progress at once; 0 uses the executor's thread count
+     */
+    public OCRResultPublisher(OCREnginePool enginePool, OCRExecutor executor,
+                              List<BufferedImage> images, OCRConfiguration config,
+                              OCRPriority priority, int maxInFlight) {
+        this.enginePool = Objects.requireNonNull(enginePool, "Engine pool cannot be null");
+        this.executor = Objects.requireNonNull(executor, "Executor cannot be null");
+        this.images = new ArrayList<>(Objects.requireNonNull(images, "Images cannot be null"));
+        this.config = Objects.requireNonNull(config, "Configuration cannot be null");
+        this.priority = Objects.requireNonNull(priority, "Priority cannot be null");
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight : executor.getThreadCount();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super OCRResult> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber cannot be null");
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("OCR result publisher already has a subscriber"));
+            return;
+        }
+        Run run = new Run(subscriber);
+        subscriber.onSubscribe(run);
+        run.drain();
+    }
+
+    private class Run implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super OCRResult> subscriber;
+        private final ArrayDeque<OCRResult> ready = new ArrayDeque<>();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // Guarded by this
+        private final ArrayDeque<Integer> retries = new ArrayDeque<>();
+        private long requested = 0;
+        private int nextImage = 0;
+        private int inFlight = 0;
+        private boolean waitingForRoom = false;
+        private Throwable error;
+
+        // Only touched inside drain()
+        private boolean terminated = false;
+        private volatile boolean cancelled = false;
+
+        private Run(Flow.Subscriber<? super OCRResult> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("Requested count must be positive: " + n);
+                } else {
+                    requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void submitNext(int index) {
+            BufferedImage image = images.get(index);
+            executor.submit(priority, () -> enginePool.withEngine(priority, engine -> engine.processImage(image, config)))
+                    .whenComplete((result, ex) -> {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        boolean waitForRoom = false;
+                        synchronized (this) {
+                            inFlight--;
+                            if (cause instanceof RejectedExecutionException && !executor.isShutdown()) {
+                                // Queue full: hand the image back and retry once there is room
+                                retries.add(index);
+                                waitForRoom = !waitingForRoom;
+                                waitingForRoom = true;
+                            } else if (cause != null) {
+                                if (error == null) {
+                                    error = cause;
+                                }
+                            } else {
+                                ready.add(result);
+                            }
+                        }
+                        if (waitForRoom) {
+                            executor.whenAvailable().thenRun(() -> {
+                                synchronized (this) {
+                                    waitingForRoom = false;
+                                }
+                                drain();
+                            });
+                        }
+                        drain();
+                    });
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (terminated) {
+                    return;
+                }
+                if (cancelled) {
+                    terminated = true;
+                    synchronized (this) {
+                        ready.clear();
+                        retries.clear();
+                    }
+                    return;
+                }
+
+                // Deliver finished results, up to the outstanding demand
+                while (true) {
+                    OCRResult next;
+                    Throwable failure;
+                    synchronized (this) {
+                        failure = error;
+                        next = failure == null && requested > 0 ? ready.poll() : null;
+                        if (next != null && requested != Long.MAX_VALUE) {
+                            requested--;
+                        }
+                    }
+                    if (failure != null) {
+                        terminated = true;
+                        subscriber.onError(failure);
+                        return;
+                    }
+                    if (next == null) {
+                        break;
+                    }
+                    subscriber.onNext(next);
+                    if (cancelled) {
+                        break;
+                    }
+                }
+
+                // Start more images while there is unmet demand and room in flight
+                boolean complete;
+                List<Integer> toSubmit = new ArrayList<>();
+                synchronized (this) {
+                    while (!cancelled && !waitingForRoom && inFlight < maxInFlight
+                            && inFlight + ready.size() < requested
+                            && (!retries.isEmpty() || nextImage < images.size())) {
+                        toSubmit.add(!retries.isEmpty() ? retries.poll() : nextImage++);
+                        inFlight++;
+                    }
+                    complete = nextImage >= images.size() && retries.isEmpty()
+                            && inFlight == 0 && ready.isEmpty() && toSubmit.isEmpty();
+                }
+                for (int index : toSubmit) {
+                    submitNext(index);
+                }
+                if (complete && !cancelled) {
+                    terminated = true;
+                    subscriber.onComplete();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package qupath.ext.ocr4labels.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.ocr4labels.model.OCRConfiguration;
+import qupath.ext.ocr4labels.model.OCRResult;
+import qupath.ext.ocr4labels.utilities.LabelImageIndex;
+import qupath.lib.projects.Project;
+import qupath.lib.projects.ProjectImageEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-entry store of the last full-label OCR result for each project image.
+ *
+ * <p>Each result is written as a small JSON file named after the entry ID in the project
+ * directory ({@code ocr4labels/ocr_results}). It holds every recognized block with its
+ * bounding box and confidence, plus the orientation, image size, processing time and the
+ * confidence threshold the result was shown at. Template field mappings and vocabulary
+ * corrections can then be re-derived for a whole project from these files, without
+ * opening any image.</p>
+ *
+ * <p>A stored result is only returned while the entry's image URI and (for local files)
+ * the image file's modification time are unchanged. Each record also keeps a hash of the
+ * label pixels, the {@link OCRConfiguration#getRecognitionHash() recognition settings} and
+ * the template last applied from it, so incremental batch runs can tell which entries
+ * need OCR again.</p>
+ */
+public class OCRResultStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OCRResultStore.class);
+
+    private static final String RESULTS_DIRECTORY = "ocr_results";
+    private static final int STORE_VERSION = 1;
+    private static final Gson GSON = new Gson();
+
+    private final File directory;
+
+    private OCRResultStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the store for a project.
+     *
+     * @param project The project
+     * @return The project's result store
+     */
+    public static OCRResultStore forProject(Project<?> project) {
+        File projectDir = project.getPath().toFile().getParentFile();
+        return new OCRResultStore(new File(new File(projectDir, LabelImageIndex.DATA_DIRECTORY), RESULTS_DIRECTORY));
+    }
+
+    /**
+     * Saves the result for an entry, replacing any previous one. Failures are logged
+     * and otherwise ignored.
+     *
+     * @param entry     The project entry the label belongs to
+     * @param result    The full-label OCR result
+     * @param config    The configuration the result was produced with
+     * @param labelHash Hash of the label image pixels, from {@link OCRResultCache#hashImage}
+     */
+    public void save(ProjectImageEntry<?> entry, OCRResult result, OCRConfiguration config, long labelHash) {
+        write(entry, new Record(entry, result, config, labelHash));
+    }
+
+    /**
+     * Records that metadata mapped from an entry's stored result has been written to the
+     * project with the given template. Does nothing if the entry has no stored result.
+     *
+     * @param entry        The project entry
+     * @param templateHash Hash of the template and threshold used for the mapping
+     */
+    public void markApplied(ProjectImageEntry<?> entry, int templateHash) {
+        Record record = lookup(entry);
+        if (record != null) {
+            record.templateHash = templateHash;
+            record.appliedTimestamp = System.currentTimeMillis();
+            write(entry, record);
+        }
+    }
+
+    /**
+     * Gets the stored record for an entry.
+     *
+     * @param entry The project entry
+     * @return The record, or null if there is no stored result or the entry's image has changed since
+     */
+    public Record lookup(ProjectImageEntry<?> entry) {
+        File file = fileFor(entry);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            Record record = GSON.fromJson(reader, Record.class);
+            if (record == null || !record.matches(entry)) {
+                logger.debug("Stored OCR result is out of date: {}", file);
+                return null;
+            }
+            return record;
+        } catch (IOException | JsonParseException | IllegalArgumentException e) {
+            logger.debug("Could not read stored OCR result {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Loads the stored result for an entry.
+     *
+     * @param entry The project entry
+     * @return The result at the confidence threshold it was saved with, or null if there
+     *         is no stored result or the entry's image has changed since
+     */
+    public OCRResult load(ProjectImageEntry<?> entry) {
+        Record record = lookup(entry);
+        return record != null ? record.getResult() : null;
+    }
+
+    /**
+     * Gets the stored records for many entries, reading files in parallel.
+     *
+     * @param entries The project entries
+     * @return Records by entry; entries without a valid stored result are absent
+     */
+    public <T extends ProjectImageEntry<?>> Map<T, Record> lookupAll(Collection<T> entries) {
+        Map<T, Record> records = new ConcurrentHashMap<>();
+        entries.parallelStream().forEach(entry -> {
+            Record record = lookup(entry);
+            if (record != null) {
+                records.put(entry, record);
+            }
+        });
+        logger.debug("Loaded {} stored OCR results for {} entries", records.size(), entries.size());
+        return records;
+    }
+
+    /**
+     * Deletes the stored result for an entry, if there is one.
+     */
+    public void remove(ProjectImageEntry<?> entry) {
+        File file = fileFor(entry);
+        if (file.exists() && !file.delete()) {
+            logger.debug("Could not delete stored OCR result {}", file);
+        }
+    }
+
+    private void write(ProjectImageEntry<?> entry, Record record) {
+        File file = fileFor(entry);
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            Files.createDirectories(directory.toPath());
+            try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+                GSON.toJson(record, writer);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Could not save OCR result for {}: {}", entry.getImageName(), e.getMessage());
+            tmp.delete();
+        }
+    }
+
+    private File fileFor(ProjectImageEntry<?> entry) {
+        return new File(directory, entry.getID() + ".json");
+    }
+
+    /**
+     * Stored OCR result of one project entry, with the hashes of the inputs it came from.
+     */
+    public static class Record {
+        private int version;
+        private String entryId;
+        private String uri;
+        private long sourceModified;
+        private long labelHash;
+        private int recognitionHash;
+        private String language;
+        private long savedTimestamp;
+        private int templateHash;
+        private long appliedTimestamp;
+        private double minConfidence;
+        private long processingTimeMs;
+        private int imageWidth;
+        private int imageHeight;
+        private int detectedOrientation;
+        private List<OCRResultCache.StoredBlock> blocks;
+
+        private Record(ProjectImageEntry<?> entry, OCRResult result, OCRConfiguration config, long labelHash) {
+            this.version = STORE_VERSION;
+            this.entryId = entry.getID();
+            this.uri = LabelImageIndex.primaryUri(entry);
+            this.sourceModified = LabelImageIndex.sourceModified(uri);
+            this.labelHash = labelHash;
+            this.recognitionHash = config.getRecognitionHash();
+            this.language = config.getLanguage();
+            this.savedTimestamp = System.currentTimeMillis();
+            this.minConfidence = result.getConfidenceThreshold();
+            this.processingTimeMs = result.getProcessingTimeMs();
+            this.imageWidth = result.getOriginalImageWidth();
+            this.imageHeight = result.getOriginalImageHeight();
+            this.detectedOrientation = result.getDetectedOrientation();
+            this.blocks = OCRResultCache.StoredBlock.fromBlocks(result.getAllTextBlocks());
+        }
+
+        private boolean matches(ProjectImageEntry<?> entry) {
+            String currentUri = LabelImageIndex.primaryUri(entry);
+            return version == STORE_VERSION && entry.getID().equals(entryId)
+                    && currentUri != null && currentUri.equals(uri)
+                    && LabelImageIndex.sourceModified(uri) == sourceModified;
+        }
+
+        /**
+         * Gets the result at the confidence threshold it was saved with.
+         */
+        public OCRResult getResult() {
+            return new OCRResult(OCRResultCache.StoredBlock.toBlocks(blocks), minConfidence,
+                    processingTimeMs, imageWidth, imageHeight, detectedOrientation);
+        }
+
+        public long getLabelHash() {
+            return labelHash;
+        }
+
+        /**
+         * Gets {@link OCRConfiguration#getRecognitionHash()} of the configuration used.
+         */
+        public int getRecognitionHash() {
+            return recognitionHash;
+        }
+
+        /**
+         * Whether the image is a local file whose modification time is tracked. For these
+         * entries a valid record implies an unchanged label, without reading the image.
+         */
+        public boolean isSourceTracked() {
+            return sourceModified >= 0;
+        }
+
+        /**
+         * Whether metadata mapped with the given template hash has been applied since the
+         * result was saved.
+         */
+        public boolean isAppliedWith(int templateHash) {
+            return appliedTimestamp > 0 && this.templateHash == templateHash;
+        }
+
+        public long getSavedTimestamp() {
+            return savedTimestamp;
+        }
+    }
+}
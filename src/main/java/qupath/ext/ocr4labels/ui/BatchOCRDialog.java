@@ -21,14 +21,19 @@ import qupath.ext.ocr4labels.model.OCRResult;
 import qupath.ext.ocr4labels.model.OCRTemplate;
 import qupath.ext.ocr4labels.model.TextBlock;
 import qupath.ext.ocr4labels.preferences.OCRPreferences;
-import qupath.ext.ocr4labels.service.OCREngine;
+import qupath.ext.ocr4labels.service.BatchOCRPipeline;
+import qupath.ext.ocr4labels.service.OCREnginePool;
+import qupath.ext.ocr4labels.service.OCRResultCache;
+import qupath.ext.ocr4labels.service.OCRResultStore;
+import qupath.ext.ocr4labels.utilities.LabelImageIndex;
 import qupath.ext.ocr4labels.utilities.LabelImageUtility;
+import qupath.ext.ocr4labels.utilities.MetadataTransaction;
 import qupath.ext.ocr4labels.utilities.OCRMetadataManager;
 import qupath.ext.ocr4labels.utilities.TextFilters;
 import qupath.ext.ocr4labels.utilities.TextMatcher;
+import qupath.ext.ocr4labels.utilities.VocabularyTable;
 import qupath.fx.dialogs.Dialogs;
 import qupath.lib.gui.QuPathGUI;
-import qupath.lib.images.ImageData;
 import qupath.lib.projects.Project;
 import qupath.lib.projects.ProjectImageEntry;
 
@@ -36,8 +41,11 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Dialog for batch OCR processing across all images in a project.
@@ -47,10 +55,14 @@ public class BatchOCRDialog {
 
     private static final Logger logger = LoggerFactory.getLogger(BatchOCRDialog.class);
 
+    /** Threads used to check project entries for label images; the work is mostly I/O. */
+    private static final int LABEL_SCAN_THREADS = 4;
+
     private final QuPathGUI qupath;
     private final Project<?> project;
-    private final OCREngine ocrEngine;
-    private final List<ProjectImageEntry<?>> imagesWithLabels;
+    private final OCREnginePool enginePool;
+    private final OCRResultStore resultStore;
+    private final List<ProjectImageEntry<?>> imagesWithLabels = new ArrayList<>();
 
     private Stage stage;
     private OCRTemplate currentTemplate;
@@ -61,50 +73,45 @@ public class BatchOCRDialog {
     private TableView<ImageProcessingEntry> resultsTable;
     private ProgressBar progressBar;
     private Label statusLabel;
+    private Label infoLabel;
     private Button processButton;
+    private Button remapButton;
     private Button applyButton;
+    private CheckBox incrementalCheckBox;
     private AtomicBoolean processingCancelled;
+    private volatile BatchOCRPipeline<ImageProcessingEntry> activePipeline;
+    private CompletableFuture<List<ProjectImageEntry<?>>> labelScan;
+    // Template hash of the current field values, recorded in the result store once applied
+    private int mappedTemplateHash;
 
     // Vocabulary matching for OCR correction
     private TextMatcher textMatcher;
     private Label vocabularyStatusLabel;
     private CheckBox ocrWeightsCheckBox;
+    // CSV/TSV list that may also be used as a multi-column table, and the table once
+    // built; it is only built, off the FX thread, when a joint match needs it
+    private File vocabularyTableFile;
+    private VocabularyTable vocabularyTable;
+    private CompletableFuture<VocabularyMatches> vocabularyMatch;
 
     /**
      * Shows the batch OCR dialog.
      */
-    public static void show(QuPathGUI qupath, OCREngine ocrEngine) {
-        new BatchOCRDialog(qupath, ocrEngine).showDialog();
+    public static void show(QuPathGUI qupath, OCREnginePool enginePool) {
+        new BatchOCRDialog(qupath, enginePool).showDialog();
     }
 
-    private BatchOCRDialog(QuPathGUI qupath, OCREngine ocrEngine) {
+    private BatchOCRDialog(QuPathGUI qupath, OCREnginePool enginePool) {
         this.qupath = qupath;
         this.project = qupath.getProject();
-        this.ocrEngine = ocrEngine;
-        this.imagesWithLabels = findImagesWithLabels();
+        this.enginePool = enginePool;
+        this.resultStore = project != null ? OCRResultStore.forProject(project) : null;
         this.imageEntries = FXCollections.observableArrayList();
         this.processingCancelled = new AtomicBoolean(false);
     }
 
-    private List<ProjectImageEntry<?>> findImagesWithLabels() {
-        List<ProjectImageEntry<?>> result = new ArrayList<>();
-        if (project == null) return result;
-
-        for (ProjectImageEntry<?> entry : project.getImageList()) {
-            try {
-                ImageData<?> imageData = entry.readImageData();
-                if (imageData != null && LabelImageUtility.isLabelImageAvailable(imageData)) {
-                    result.add(entry);
-                }
-            } catch (Exception e) {
-                logger.debug("Could not check image for label: {}", entry.getImageName());
-            }
-        }
-        return result;
-    }
-
     private void showDialog() {
-        if (imagesWithLabels.isEmpty()) {
+        if (project == null || project.getImageList().isEmpty()) {
             Dialogs.showWarningNotification("No Labels Found",
                     "No images in the project have label images available.");
             return;
@@ -114,6 +121,7 @@ public class BatchOCRDialog {
         stage.setTitle("Batch OCR Processing");
         stage.initOwner(qupath.getStage());
         stage.initModality(Modality.WINDOW_MODAL);
+        stage.setOnHidden(e -> stopLabelScan());
 
         BorderPane root = new BorderPane();
         root.setTop(createHeaderPane());
@@ -124,12 +132,79 @@ public class BatchOCRDialog {
         stage.setScene(scene);
         stage.show();
 
-        // Initialize image entries
-        for (ProjectImageEntry<?> entry : imagesWithLabels) {
-            imageEntries.add(new ImageProcessingEntry(entry));
+        startLabelScan();
+    }
+
+    /**
+     * Finds images with labels in the background, listing them as they are found.
+     * Entries with a valid record in the project's label index are listed without
+     * opening their image server.
+     */
+    private void startLabelScan() {
+        List<ProjectImageEntry<?>> entries = project.getImageList();
+        int total = entries.size();
+        LabelImageIndex index = LabelImageIndex.forProject(project);
+        OCRResultCache.getShared().useProject(project);
+
+        statusLabel.setText("Scanning project for label images...");
+        progressBar.setVisible(true);
+        progressBar.setProgress(0);
+
+        labelScan = index.scanAsync(entries, LABEL_SCAN_THREADS,
+                entry -> Platform.runLater(() -> {
+                    imagesWithLabels.add(entry);
+                    imageEntries.add(new ImageProcessingEntry(entry));
+                    updateInfoLabel();
+                }),
+                checked -> Platform.runLater(() -> {
+                    if (labelScan != null && !labelScan.isDone()) {
+                        progressBar.setProgress((double) checked / total);
+                    }
+                }));
+
+        labelScan.thenAccept(found -> Platform.runLater(() -> {
+            progressBar.setVisible(false);
+            // Re-list in project order now that the scan is complete
+            imagesWithLabels.clear();
+            imagesWithLabels.addAll(found);
+            Map<ProjectImageEntry<?>, ImageProcessingEntry> listed = new HashMap<>();
+            for (ImageProcessingEntry entry : imageEntries) {
+                listed.put(entry.getProjectEntry(), entry);
+            }
+            List<ImageProcessingEntry> ordered = new ArrayList<>();
+            for (ProjectImageEntry<?> entry : found) {
+                ordered.add(listed.getOrDefault(entry, new ImageProcessingEntry(entry)));
+            }
+            imageEntries.setAll(ordered);
+            updateInfoLabel();
+
+            if (found.isEmpty()) {
+                statusLabel.setText("No images in the project have label images available.");
+                Dialogs.showWarningNotification("No Labels Found",
+                        "No images in the project have label images available.");
+            } else {
+                statusLabel.setText(String.format("Found %d images with labels.", found.size()));
+            }
+        }));
+    }
+
+    private void stopLabelScan() {
+        CompletableFuture<?> scan = labelScan;
+        if (scan != null) {
+            scan.cancel(false);
         }
     }
 
+    private boolean isLabelScanRunning() {
+        return labelScan != null && !labelScan.isDone();
+    }
+
+    private void updateInfoLabel() {
+        infoLabel.setText(String.format(
+                "Found %d images with labels out of %d total images in project.",
+                imagesWithLabels.size(), project.getImageList().size()));
+    }
+
     private VBox createHeaderPane() {
         VBox header = new VBox(10);
         header.setPadding(new Insets(15));
@@ -138,9 +213,8 @@ public class BatchOCRDialog {
         Label titleLabel = new Label("Batch OCR Processing");
         titleLabel.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
 
-        Label infoLabel = new Label(String.format(
-                "Found %d images with labels out of %d total images in project.",
-                imagesWithLabels.size(), project.getImageList().size()));
+        infoLabel = new Label(String.format(
+                "Scanning %d images in project for labels...", project.getImageList().size()));
 
         Label instructionLabel = new Label(
                 "1. Create a template by running OCR on a sample image, or load a saved template.\n" +
@@ -496,6 +570,12 @@ public class BatchOCRDialog {
             }
             textMatcher.loadVocabularyFromFile(file);
 
+            // Tables with several named columns are also used to match whole labels at once;
+            // the table is built on the first match that maps enough fields to it
+            vocabularyTable = null;
+            String name = file.getName().toLowerCase();
+            vocabularyTableFile = name.endsWith(".csv") || name.endsWith(".tsv") ? file : null;
+
             // Update UI to show vocabulary is loaded
             int count = textMatcher.getVocabularySize();
             vocabularyStatusLabel.setText(String.format("(%d entries)", count));
@@ -541,44 +621,182 @@ public class BatchOCRDialog {
             return;
         }
 
-        // Apply OCR weights setting from checkbox
-        textMatcher.setUseOCRWeights(ocrWeightsCheckBox.isSelected());
+        if (vocabularyMatch != null) {
+            Dialogs.showWarningNotification("Matching In Progress",
+                    "Vocabulary matching is already running.");
+            return;
+        }
 
-        int totalCorrected = 0;
-        int totalExact = 0;
-        int totalNoMatch = 0;
-        int entriesModified = 0;
+        // OCR weights setting from checkbox, applied to the snapshots only
+        boolean useOCRWeights = ocrWeightsCheckBox.isSelected();
 
+        // Collect every processed label; repeated values are only searched once
+        List<ImageProcessingEntry> entries = new ArrayList<>();
+        List<Map<String, String>> labels = new ArrayList<>();
         for (ImageProcessingEntry entry : imageEntries) {
             if (!"Done".equals(entry.getStatus()) && !"Applied".equals(entry.getStatus())) {
                 continue;
             }
-
             Map<String, String> metadata = entry.getMetadata();
-            if (metadata == null) continue;
+            if (metadata != null) {
+                entries.add(entry);
+                labels.add(new LinkedHashMap<>(metadata));
+            }
+        }
+
+        // Fields the template fills in, used to decide whether the table is worth building
+        Set<String> fields = new LinkedHashSet<>();
+        if (currentTemplate != null) {
+            for (OCRTemplate.FieldMapping mapping : currentTemplate.getFieldMappings()) {
+                if (mapping.isEnabled() && mapping.getMetadataKey() != null) {
+                    fields.add(mapping.getMetadataKey());
+                }
+            }
+        }
+
+        // Snapshot the matchers and search off the FX thread, since a snapshot may have to
+        // build an index over the whole vocabulary; then apply all corrections in a single
+        // table update. Only plain settings are read from the controls here.
+        TextMatcher matcher = textMatcher;
+        VocabularyTable table = vocabularyTable != null
+                && vocabularyTable.countMappedColumns(fields) >= VocabularyTable.MIN_JOINT_FIELDS
+                ? vocabularyTable : null;
+        File tableFile = vocabularyTable == null ? vocabularyTableFile : null;
+        statusLabel.setText(String.format("Matching %d labels against vocabulary...", labels.size()));
+        vocabularyMatch = CompletableFuture.supplyAsync(
+                () -> findVocabularyMatches(matcher, table, tableFile, fields, useOCRWeights, labels),
+                ForkJoinPool.commonPool());
+        vocabularyMatch.whenComplete((matches, error) -> Platform.runLater(() -> {
+            vocabularyMatch = null;
+            if (error == null && matches.table != null && tableFile != null
+                    && tableFile.equals(vocabularyTableFile)) {
+                // Keep the table for later matches, unless another list was loaded meanwhile
+                vocabularyTable = matches.table;
+                vocabularyStatusLabel.setText(String.format("(%d entries, %d rows x %d columns)",
+                        textMatcher.getVocabularySize(), vocabularyTable.getRowCount(),
+                        vocabularyTable.getColumnCount()));
+            }
+            if (error != null) {
+                logger.error("Vocabulary matching failed", error);
+                statusLabel.setText("Vocabulary matching failed.");
+                Dialogs.showErrorMessage("Matching Error",
+                        "Vocabulary matching failed: " +
+                                (error.getCause() != null ? error.getCause().getMessage() : error.getMessage()));
+                return;
+            }
+            applyVocabularyMatches(entries, labels, matches, useOCRWeights);
+        }));
+    }
+
+    /**
+     * Matches labels against the vocabulary. When a multi-column table is available, each
+     * label is first matched to a whole row; fields not covered by a row match are then
+     * matched individually against the single-column vocabulary.
+     * Runs on a background thread.
+     *
+     * @param matcher   The single-column vocabulary, only used through a snapshot
+     * @param table     The table built by an earlier match, or null; only used through a snapshot
+     * @param tableFile File to build the table from if it is not built yet, or null;
+     *                  it is only built when enough template fields map to its columns
+     * @param fields    Metadata keys filled in by the template
+     */
+    private static VocabularyMatches findVocabularyMatches(TextMatcher matcher, VocabularyTable table,
+                                                           File tableFile, Set<String> fields,
+                                                           boolean useOCRWeights,
+                                                           List<Map<String, String>> labels) {
+        VocabularyTable built = tableFile != null ? loadVocabularyTable(tableFile, fields) : null;
+        VocabularyTable.Snapshot tableSnapshot = built != null ? built.snapshot(useOCRWeights)
+                : table != null ? table.snapshot(useOCRWeights) : null;
+
+        List<VocabularyTable.RowMatch> rows = tableSnapshot != null
+                ? tableSnapshot.matchRows(labels, ForkJoinPool.commonPool())
+                : Collections.nCopies(labels.size(), null);
+
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < labels.size(); i++) {
+            VocabularyTable.RowMatch row = rows.get(i);
+            for (Map.Entry<String, String> field : labels.get(i).entrySet()) {
+                if (row == null || !row.getCorrections().containsKey(field.getKey())) {
+                    values.add(field.getValue());
+                }
+            }
+        }
+        Map<String, TextMatcher.MatchResult> fieldMatches =
+                matcher.snapshot(useOCRWeights).findBestMatches(values, ForkJoinPool.commonPool());
+        return new VocabularyMatches(rows, fieldMatches, built);
+    }
+
+    /**
+     * Builds the table from a CSV/TSV list if at least {@link VocabularyTable#MIN_JOINT_FIELDS}
+     * of the fields map to its columns; otherwise only the header is read.
+     *
+     * @return The table, or null if it would not be used or cannot be read
+     */
+    private static VocabularyTable loadVocabularyTable(File file, Set<String> fields) {
+        try {
+            List<String> header = VocabularyTable.readHeader(file);
+            if (VocabularyTable.countMappedColumns(header, fields) < VocabularyTable.MIN_JOINT_FIELDS) {
+                return null;
+            }
+            return VocabularyTable.load(file);
+        } catch (IOException e) {
+            logger.warn("Could not load vocabulary table from {}: {}", file.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes vocabulary matches back to the processed entries and reports a summary.
+     *
+     * @param entries       Entries that were matched
+     * @param labels        Field values of each entry at the time matching started
+     * @param matches       Row and field matches for those values
+     * @param useOCRWeights Whether OCR-weighted matching was used
+     */
+    private void applyVocabularyMatches(List<ImageProcessingEntry> entries, List<Map<String, String>> labels,
+                                        VocabularyMatches matches, boolean useOCRWeights) {
+        int totalCorrected = 0;
+        int totalExact = 0;
+        int totalNoMatch = 0;
+        int entriesModified = 0;
+        int rowMatched = 0;
+
+        for (int i = 0; i < entries.size(); i++) {
+            ImageProcessingEntry entry = entries.get(i);
+            VocabularyTable.RowMatch row = matches.rows.get(i);
+            if (row != null) {
+                rowMatched++;
+            }
 
             boolean entryModified = false;
 
-            for (Map.Entry<String, String> field : metadata.entrySet()) {
+            for (Map.Entry<String, String> field : labels.get(i).entrySet()) {
                 String original = field.getValue();
                 if (original == null || original.isEmpty()) {
                     totalNoMatch++;
                     continue;
                 }
 
-                TextMatcher.MatchResult match = textMatcher.findBestMatch(original);
+                String corrected;
+                if (row != null && row.getCorrections().containsKey(field.getKey())) {
+                    corrected = row.getCorrections().get(field.getKey());
+                } else {
+                    TextMatcher.MatchResult match = matches.fields.get(original);
+                    // Exact matches (ignoring case, if set) are left as detected
+                    corrected = match == null ? null : match.isExactMatch() ? original : match.getMatchedValue();
+                }
 
-                if (match == null) {
+                if (corrected == null) {
                     totalNoMatch++;
-                } else if (match.isExactMatch()) {
+                } else if (corrected.equals(original)) {
                     totalExact++;
                 } else {
                     // Found a fuzzy match - apply correction
-                    entry.setFieldValue(field.getKey(), match.getMatchedValue());
+                    entry.setFieldValue(field.getKey(), corrected);
                     totalCorrected++;
                     entryModified = true;
                     logger.debug("Corrected '{}' -> '{}' in {}",
-                            original, match.getMatchedValue(), entry.getImageName());
+                            original, corrected, entry.getImageName());
                 }
             }
 
@@ -592,9 +810,10 @@ public class BatchOCRDialog {
         }
 
         // Log what mode was used
-        String modeInfo = ocrWeightsCheckBox.isSelected() ? "OCR-weighted" : "standard";
-        logger.info("Batch vocabulary matching ({}): corrected={}, exact={}, noMatch={}, entriesModified={}",
-                modeInfo, totalCorrected, totalExact, totalNoMatch, entriesModified);
+        String modeInfo = useOCRWeights ? "OCR-weighted" : "standard";
+        logger.info("Batch vocabulary matching ({}): corrected={}, exact={}, noMatch={}, entriesModified={}, rowMatched={}",
+                modeInfo, totalCorrected, totalExact, totalNoMatch, entriesModified, rowMatched);
+        statusLabel.setText(String.format("Vocabulary matching corrected %d field(s).", totalCorrected));
 
         // Show summary
         if (totalCorrected > 0) {
@@ -627,6 +846,20 @@ public class BatchOCRDialog {
         processButton.setOnAction(e -> processAllImages());
         processButton.setDisable(true); // Enabled when template is loaded
 
+        remapButton = new Button("Re-map Saved");
+        remapButton.setTooltip(new Tooltip(
+                "Apply the current template to the OCR results saved by earlier runs, without re-running OCR"));
+        remapButton.setOnAction(e -> remapStoredResults());
+        remapButton.setDisable(true); // Enabled when template is loaded
+
+        incrementalCheckBox = new CheckBox("Only new or changed");
+        incrementalCheckBox.setTooltip(new Tooltip(
+                "Skip OCR for images whose label, OCR settings and template are unchanged\n" +
+                "since metadata was last applied"));
+        incrementalCheckBox.setSelected(OCRPreferences.isBatchIncremental());
+        incrementalCheckBox.selectedProperty().addListener((obs, old, selected) ->
+                OCRPreferences.setBatchIncremental(selected));
+
         applyButton = new Button("Apply Metadata");
         applyButton.setTooltip(new Tooltip("Save the detected metadata to all processed images"));
         applyButton.setOnAction(e -> applyAllMetadata());
@@ -635,10 +868,16 @@ public class BatchOCRDialog {
         Button cancelButton = new Button("Cancel");
         cancelButton.setOnAction(e -> {
             processingCancelled.set(true);
+            stopLabelScan();
+            BatchOCRPipeline<ImageProcessingEntry> pipeline = activePipeline;
+            if (pipeline != null) {
+                pipeline.cancel();
+            }
             stage.close();
         });
 
-        buttonBar.getChildren().addAll(spacer, processButton, applyButton, cancelButton);
+        buttonBar.getChildren().addAll(spacer, incrementalCheckBox, remapButton, processButton,
+                applyButton, cancelButton);
         return buttonBar;
     }
 
@@ -652,7 +891,7 @@ public class BatchOCRDialog {
                 "3. Click 'Save Template...' to save\n\n" +
                 "Then load the template here for batch processing.");
 
-        OCRDialog.show(qupath, ocrEngine);
+        OCRDialog.show(qupath, enginePool);
         return;
 
         // Legacy code below - kept for reference but no longer executed
@@ -691,7 +930,7 @@ public class BatchOCRDialog {
                         .enhanceContrast(OCRPreferences.isEnhanceContrast())
                         .build();
 
-                OCRResult result = ocrEngine.processImage(labelImage, config);
+                OCRResult result = enginePool.withEngine(engine -> engine.processImage(labelImage, config));
 
                 Platform.runLater(() -> {
                     progressBar.setVisible(false);
@@ -737,6 +976,7 @@ public class BatchOCRDialog {
                     templateTable.setItems(FXCollections.observableArrayList(
                             currentTemplate.getFieldMappings()));
                     processButton.setDisable(false);
+                    remapButton.setDisable(false);
 
                     Dialogs.showInfoNotification("Template Created",
                             String.format("Created template with %d field mappings.\n" +
@@ -782,6 +1022,7 @@ public class BatchOCRDialog {
             templateTable.setItems(FXCollections.observableArrayList(
                     currentTemplate.getFieldMappings()));
             processButton.setDisable(false);
+            remapButton.setDisable(false);
 
             // Update results table columns to match template fields
             updateResultsTableColumns();
@@ -838,11 +1079,23 @@ public class BatchOCRDialog {
         }
     }
 
-    private void processAllImages() {
+    /**
+     * Checks that the project scan has finished and the template has enabled fields,
+     * taking any edits from the template table.
+     *
+     * @return true if processing can start
+     */
+    private boolean prepareTemplate() {
+        if (isLabelScanRunning()) {
+            Dialogs.showWarningNotification("Scan In Progress",
+                    "Please wait until the project has been scanned for label images.");
+            return false;
+        }
+
         if (currentTemplate == null || currentTemplate.getFieldMappings().isEmpty()) {
             Dialogs.showWarningNotification("No Template",
                     "Please create or load a template first.");
-            return;
+            return false;
         }
 
         // Update template with any edits
@@ -852,11 +1105,40 @@ public class BatchOCRDialog {
         if (enabledCount == 0) {
             Dialogs.showWarningNotification("No Fields Enabled",
                     "Please enable at least one field mapping.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the OCR configuration for the batch: the template's own, or one built from preferences.
+     */
+    private OCRConfiguration getBatchConfiguration() {
+        OCRConfiguration templateConfig = currentTemplate.getConfiguration();
+        return templateConfig != null ? templateConfig : OCRConfiguration.builder()
+                .pageSegMode(OCRConfiguration.PageSegMode.SPARSE_TEXT)
+                .language(OCRPreferences.getLanguage())
+                .minConfidence(OCRPreferences.getMinConfidence())
+                .enhanceContrast(OCRPreferences.isEnhanceContrast())
+                .build();
+    }
+
+    /**
+     * Gets the hash of the current template's field mappings and the confidence threshold,
+     * which together decide the field values mapped from an OCR result.
+     */
+    private int getTemplateHash(OCRConfiguration config) {
+        return Objects.hash(currentTemplate.getMappingHash(), config.getMinConfidence());
+    }
+
+    private void processAllImages() {
+        if (!prepareTemplate()) {
             return;
         }
 
         processingCancelled.set(false);
         processButton.setDisable(true);
+        remapButton.setDisable(true);
         applyButton.setDisable(true);
         progressBar.setVisible(true);
         progressBar.setProgress(0);
@@ -868,36 +1150,92 @@ public class BatchOCRDialog {
 
         int totalImages = imageEntries.size();
         AtomicInteger processedCount = new AtomicInteger(0);
+        List<ImageProcessingEntry> entries = new ArrayList<>(imageEntries);
 
-        new Thread(() -> {
-            OCRConfiguration config = currentTemplate.getConfiguration();
-            if (config == null) {
-                config = OCRConfiguration.builder()
-                        .pageSegMode(OCRConfiguration.PageSegMode.SPARSE_TEXT)
-                        .language(OCRPreferences.getLanguage())
-                        .minConfidence(OCRPreferences.getMinConfidence())
-                        .enhanceContrast(OCRPreferences.isEnhanceContrast())
-                        .build();
+        OCRConfiguration config = getBatchConfiguration();
+        int templateHash = getTemplateHash(config);
+        boolean incremental = incrementalCheckBox.isSelected();
+        mappedTemplateHash = templateHash;
+
+        // Stored results from earlier runs; only read in incremental mode
+        Map<ProjectImageEntry<?>, OCRResultStore.Record> records = new HashMap<>();
+
+        Consumer<ImageProcessingEntry> updateProgress = entry -> {
+            int current = processedCount.incrementAndGet();
+            Platform.runLater(() -> {
+                progressBar.setProgress((double) current / totalImages);
+                statusLabel.setText(String.format("Processed %d of %d: %s",
+                        current, totalImages, entry.getImageName()));
+            });
+        };
+
+        // Load labels, run OCR on pooled engines and map fields in separate stages
+        BatchOCRPipeline<ImageProcessingEntry> pipeline = new BatchOCRPipeline<>(
+                enginePool, config, this::loadLabelImage,
+                BatchOCRPipeline.DEFAULT_IO_THREADS, OCRPreferences.getBatchThreads(), 0);
+        pipeline.setImageTimeout(OCRPreferences.getBatchImageTimeout() * 1000L);
+        // A label read again (e.g. from a remote server) may turn out to be unchanged
+        pipeline.setStoredResults((entry, label) -> {
+            OCRResultStore.Record record = records.get(entry.getProjectEntry());
+            if (record != null && record.getLabelHash() == entry.getLabelHash()
+                    && record.getRecognitionHash() == config.getRecognitionHash()) {
+                return record.getResult().withMinConfidence(config.getMinConfidence());
             }
+            return null;
+        });
+        activePipeline = pipeline;
 
-            for (ImageProcessingEntry entry : imageEntries) {
-                if (processingCancelled.get()) {
-                    break;
+        BatchOCRPipeline.Listener<ImageProcessingEntry> listener = new BatchOCRPipeline.Listener<>() {
+            @Override
+            public void onStarted(ImageProcessingEntry entry) {
+                entry.setStatus("Processing...");
+            }
+
+            @Override
+            public void onResult(ImageProcessingEntry entry, OCRResult result) {
+                // Results reused for an unchanged label are not saved again
+                OCRResultStore.Record record = records.get(entry.getProjectEntry());
+                boolean unchanged = record != null && record.getLabelHash() == entry.getLabelHash()
+                        && record.getRecognitionHash() == config.getRecognitionHash();
+                if (!unchanged) {
+                    resultStore.save(entry.getProjectEntry(), result, config, entry.getLabelHash());
+                }
+                mapResultToFields(entry, result);
+                if (unchanged && record.isAppliedWith(templateHash)) {
+                    entry.setStatus("Unchanged");
                 }
+                updateProgress.accept(entry);
+            }
 
-                int current = processedCount.incrementAndGet();
-                Platform.runLater(() -> {
-                    progressBar.setProgress((double) current / totalImages);
-                    statusLabel.setText(String.format("Processing %d of %d: %s",
-                            current, totalImages, entry.getImageName()));
-                });
+            @Override
+            public void onSkipped(ImageProcessingEntry entry, String reason) {
+                entry.setStatus(reason);
+                entry.setFieldsFound("N/A");
+                updateProgress.accept(entry);
+            }
 
-                processImage(entry, config);
+            @Override
+            public void onError(ImageProcessingEntry entry, Exception error) {
+                logger.error("Error processing image: {}", entry.getImageName(), error);
+                entry.setStatus(BatchOCRPipeline.errorStatus(error));
+                entry.setFieldsFound("N/A");
+                entry.setMetadataPreview(error.getMessage());
+                updateProgress.accept(entry);
             }
+        };
+
+        Thread thread = new Thread(() -> {
+            List<ImageProcessingEntry> toProcess = entries;
+            if (incremental) {
+                toProcess = reuseStoredResults(entries, config, templateHash, records, updateProgress);
+            }
+            pipeline.run(toProcess, listener);
+            activePipeline = null;
 
             Platform.runLater(() -> {
                 progressBar.setVisible(false);
                 processButton.setDisable(false);
+                remapButton.setDisable(false);
 
                 if (processingCancelled.get()) {
                     statusLabel.setText("Processing cancelled.");
@@ -906,85 +1244,174 @@ public class BatchOCRDialog {
                     long successful = imageEntries.stream()
                             .filter(e -> "Done".equals(e.getStatus()))
                             .count();
-                    statusLabel.setText(String.format("Processed %d images. %d successful.",
-                            totalImages, successful));
+                    long unchanged = imageEntries.stream()
+                            .filter(e -> "Unchanged".equals(e.getStatus()))
+                            .count();
+                    long timedOut = imageEntries.stream()
+                            .filter(e -> "Timeout".equals(e.getStatus()))
+                            .count();
+                    String summary;
+                    if (incremental) {
+                        summary = String.format("Processed %d images. %d successful, %d unchanged.",
+                                totalImages, successful, unchanged);
+                    } else {
+                        summary = String.format("Processed %d images. %d successful.",
+                                totalImages, successful);
+                    }
+                    if (timedOut > 0) {
+                        summary += String.format(" %d timed out.", timedOut);
+                    }
+                    statusLabel.setText(summary);
                     applyButton.setDisable(successful == 0);
                 }
             });
+        }, "ocr-batch-dialog");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-        }).start();
+    /**
+     * Incremental mode: maps stored results for entries that do not need OCR again and
+     * returns the rest. A stored result is reused when it was produced with the same
+     * recognition settings and the entry's image is a local file that has not been modified,
+     * so the label is known to be unchanged without reading it. Other entries with a stored
+     * result are checked against the hash of their label once it is read, and skip OCR if it
+     * is unchanged. Entries whose metadata was already applied with the same template are
+     * marked "Unchanged" and are not applied again.
+     *
+     * @return Entries that still need OCR
+     */
+    private List<ImageProcessingEntry> reuseStoredResults(List<ImageProcessingEntry> entries,
+                                                          OCRConfiguration config, int templateHash,
+                                                          Map<ProjectImageEntry<?>, OCRResultStore.Record> records,
+                                                          Consumer<ImageProcessingEntry> updateProgress) {
+        List<ProjectImageEntry<?>> projectEntries = new ArrayList<>();
+        for (ImageProcessingEntry entry : entries) {
+            projectEntries.add(entry.getProjectEntry());
+        }
+        records.putAll(resultStore.lookupAll(projectEntries));
+
+        List<ImageProcessingEntry> toProcess = new ArrayList<>();
+        int unchanged = 0;
+        for (ImageProcessingEntry entry : entries) {
+            OCRResultStore.Record record = records.get(entry.getProjectEntry());
+            if (record == null || !record.isSourceTracked()
+                    || record.getRecognitionHash() != config.getRecognitionHash()) {
+                toProcess.add(entry);
+                continue;
+            }
+            mapResultToFields(entry, record.getResult().withMinConfidence(config.getMinConfidence()));
+            if (record.isAppliedWith(templateHash)) {
+                entry.setStatus("Unchanged");
+                unchanged++;
+            }
+            updateProgress.accept(entry);
+        }
+        logger.info("Incremental batch OCR: {} of {} entries need OCR, {} reused, {} unchanged",
+                toProcess.size(), entries.size(), entries.size() - toProcess.size(), unchanged);
+        return toProcess;
     }
 
-    private void processImage(ImageProcessingEntry entry, OCRConfiguration config) {
-        try {
-            entry.setStatus("Processing...");
+    /**
+     * Maps the results saved by earlier OCR runs to the current template fields. No label
+     * images are read, so a changed template can be applied to a whole project quickly;
+     * entries without a saved result are marked and left for "Process All".
+     */
+    private void remapStoredResults() {
+        if (!prepareTemplate()) {
+            return;
+        }
 
-            ImageData<?> imageData = entry.getProjectEntry().readImageData();
-            if (imageData == null) {
-                entry.setStatus("Error");
-                entry.setFieldsFound("N/A");
-                return;
-            }
+        processButton.setDisable(true);
+        remapButton.setDisable(true);
+        applyButton.setDisable(true);
+        statusLabel.setText("Mapping saved OCR results...");
 
-            BufferedImage labelImage = LabelImageUtility.retrieveLabelImage(imageData);
-            if (labelImage == null) {
-                entry.setStatus("No label");
-                entry.setFieldsFound("N/A");
-                return;
-            }
+        for (ImageProcessingEntry entry : imageEntries) {
+            entry.reset();
+        }
 
-            OCRResult result = ocrEngine.processImage(labelImage, config);
+        List<ImageProcessingEntry> entries = new ArrayList<>(imageEntries);
+        OCRConfiguration config = getBatchConfiguration();
+        double minConfidence = config.getMinConfidence();
+        mappedTemplateHash = getTemplateHash(config);
 
-            // Extract text blocks
-            List<String> detectedTexts = new ArrayList<>();
-            for (TextBlock block : result.getTextBlocks()) {
-                if (block.getType() == TextBlock.BlockType.LINE && !block.isEmpty()) {
-                    detectedTexts.add(block.getText());
-                }
+        CompletableFuture.supplyAsync(() -> {
+            List<ProjectImageEntry<?>> projectEntries = new ArrayList<>();
+            for (ImageProcessingEntry entry : entries) {
+                projectEntries.add(entry.getProjectEntry());
             }
-            if (detectedTexts.isEmpty()) {
-                for (TextBlock block : result.getTextBlocks()) {
-                    if (block.getType() == TextBlock.BlockType.WORD && !block.isEmpty()) {
-                        detectedTexts.add(block.getText());
-                    }
+            Map<ProjectImageEntry<?>, OCRResultStore.Record> stored = resultStore.lookupAll(projectEntries);
+
+            int mapped = 0;
+            for (ImageProcessingEntry entry : entries) {
+                OCRResultStore.Record record = stored.get(entry.getProjectEntry());
+                if (record == null) {
+                    entry.setStatus("No saved result");
+                    entry.setFieldsFound("N/A");
+                    continue;
                 }
+                mapResultToFields(entry, record.getResult().withMinConfidence(minConfidence));
+                mapped++;
             }
-
-            entry.setFieldsFound(String.valueOf(detectedTexts.size()));
-            entry.setDetectedTexts(detectedTexts);
-
-            // Build metadata and populate editable field properties
-            int fieldsPopulated = 0;
-            for (OCRTemplate.FieldMapping mapping : currentTemplate.getFieldMappings()) {
-                if (!mapping.isEnabled()) continue;
-
-                int idx = mapping.getFieldIndex();
-                String key = mapping.getMetadataKey();
-                if (idx < detectedTexts.size()) {
-                    String value = detectedTexts.get(idx);
-                    entry.setFieldValue(key, value);
-                    fieldsPopulated++;
-                } else {
-                    // Field not found - set empty
-                    entry.setFieldValue(key, "");
-                }
+            return mapped;
+        }).whenComplete((mapped, error) -> Platform.runLater(() -> {
+            processButton.setDisable(false);
+            remapButton.setDisable(false);
+            if (error != null) {
+                logger.error("Error mapping saved OCR results", error);
+                statusLabel.setText("Failed to map saved OCR results.");
+                return;
             }
-
-            // Update preview (for backward compatibility)
-            if (fieldsPopulated == 0) {
-                entry.setMetadataPreview("(no matching fields)");
-            } else {
-                entry.setMetadataPreview(fieldsPopulated + " fields");
+            resultsTable.refresh();
+            statusLabel.setText(String.format("Mapped saved results for %d of %d images.",
+                    mapped, entries.size()));
+            applyButton.setDisable(mapped == 0);
+            if (mapped < entries.size()) {
+                Dialogs.showInfoNotification("Saved Results",
+                        String.format("%d images have no saved OCR result. Use \"Process All\" to run OCR on them.",
+                                entries.size() - mapped));
             }
+        }));
+    }
 
-            entry.setStatus("Done");
+    /**
+     * Pipeline load stage: reads the label image for an entry, or returns null if it has none.
+     */
+    private BufferedImage loadLabelImage(ImageProcessingEntry entry) {
+        BufferedImage image = LabelImageUtility.retrieveLabelImage(entry.getProjectEntry());
+        if (image != null) {
+            entry.setLabelHash(OCRResultCache.hashImage(image));
+        }
+        return image;
+    }
 
-        } catch (Exception e) {
-            logger.error("Error processing image: {}", entry.getImageName(), e);
-            entry.setStatus("Error");
-            entry.setFieldsFound("N/A");
-            entry.setMetadataPreview(e.getMessage());
+    /**
+     * Pipeline mapping stage: assigns detected lines (or words) to the template fields.
+     */
+    private void mapResultToFields(ImageProcessingEntry entry, OCRResult result) {
+        List<String> detectedTexts = OCRTemplate.getFieldTexts(result);
+
+        entry.setFieldsFound(String.valueOf(detectedTexts.size()));
+        entry.setDetectedTexts(detectedTexts);
+
+        // Build metadata and populate editable field properties
+        int fieldsPopulated = 0;
+        for (Map.Entry<String, String> field : currentTemplate.mapFieldValues(detectedTexts).entrySet()) {
+            entry.setFieldValue(field.getKey(), field.getValue());
+            if (!field.getValue().isEmpty()) {
+                fieldsPopulated++;
+            }
         }
+
+        // Update preview (for backward compatibility)
+        if (fieldsPopulated == 0) {
+            entry.setMetadataPreview("(no matching fields)");
+        } else {
+            entry.setMetadataPreview(fieldsPopulated + " fields");
+        }
+
+        entry.setStatus("Done");
     }
 
     private void applyAllMetadata() {
@@ -1006,7 +1433,9 @@ public class BatchOCRDialog {
 
         if (!confirm) return;
 
-        int applied = 0;
+        // Stage all changes, then write them with a single project sync off the FX thread
+        MetadataTransaction transaction = OCRMetadataManager.beginTransaction(project);
+        List<ImageProcessingEntry> staged = new ArrayList<>();
         int failed = 0;
 
         for (ImageProcessingEntry entry : imageEntries) {
@@ -1016,34 +1445,96 @@ public class BatchOCRDialog {
             Map<String, String> metadata = entry.getMetadata();
             if (metadata == null || metadata.isEmpty()) continue;
 
-            try {
-                int count = OCRMetadataManager.setMetadataBatch(
-                        entry.getProjectEntry(), metadata, project);
-                if (count > 0) {
-                    applied++;
-                    entry.setStatus("Applied");
-                } else {
-                    failed++;
-                    entry.setStatus("Failed");
-                }
-            } catch (Exception e) {
-                logger.error("Error applying metadata to: {}", entry.getImageName(), e);
+            if (transaction.putAll(entry.getProjectEntry(), metadata) > 0) {
+                staged.add(entry);
+            } else {
                 failed++;
                 entry.setStatus("Failed");
             }
         }
 
-        resultsTable.refresh();
+        int invalid = failed;
+        int templateHash = mappedTemplateHash;
+        applyButton.setDisable(true);
+        processButton.setDisable(true);
+        remapButton.setDisable(true);
+        progressBar.setVisible(true);
+        progressBar.setProgress(0);
+        statusLabel.setText(String.format("Applying metadata to %d images...", staged.size()));
+
+        transaction.commitAsync((done, total) -> Platform.runLater(() ->
+                        progressBar.setProgress((double) done / total)))
+                .whenComplete((changed, error) -> Platform.runLater(() -> {
+                    progressBar.setVisible(false);
+                    processButton.setDisable(false);
+                    remapButton.setDisable(false);
 
-        if (failed == 0) {
-            Dialogs.showInfoNotification("Metadata Applied",
-                    String.format("Successfully applied metadata to %d images.", applied));
-        } else {
-            Dialogs.showWarningNotification("Partial Success",
-                    String.format("Applied metadata to %d images. %d failed.", applied, failed));
+                    if (error != null) {
+                        logger.error("Error applying metadata", error);
+                        for (ImageProcessingEntry entry : staged) {
+                            entry.setStatus("Failed");
+                        }
+                        resultsTable.refresh();
+                        statusLabel.setText("Failed to save metadata.");
+                        Dialogs.showErrorMessage("Metadata Not Saved",
+                                "Metadata could not be saved to the project: " +
+                                        (error.getCause() != null ? error.getCause().getMessage() : error.getMessage()));
+                        applyButton.setDisable(false);
+                        return;
+                    }
+
+                    for (ImageProcessingEntry entry : staged) {
+                        entry.setStatus("Applied");
+                    }
+                    markApplied(staged, templateHash);
+                    resultsTable.refresh();
+                    statusLabel.setText(String.format("Applied metadata to %d images.", staged.size()));
+
+                    if (invalid == 0) {
+                        Dialogs.showInfoNotification("Metadata Applied",
+                                String.format("Successfully applied metadata to %d images.", staged.size()));
+                    } else {
+                        Dialogs.showWarningNotification("Partial Success",
+                                String.format("Applied metadata to %d images. %d failed.", staged.size(), invalid));
+                    }
+                }));
+    }
+
+    /**
+     * Records in the result store that metadata has been applied for the given entries,
+     * so incremental runs can skip them while nothing changes.
+     */
+    private void markApplied(List<ImageProcessingEntry> entries, int templateHash) {
+        List<ProjectImageEntry<?>> projectEntries = new ArrayList<>();
+        for (ImageProcessingEntry entry : entries) {
+            projectEntries.add(entry.getProjectEntry());
         }
+        CompletableFuture.runAsync(() -> {
+            for (ProjectImageEntry<?> entry : projectEntries) {
+                resultStore.markApplied(entry, templateHash);
+            }
+        }).exceptionally(ex -> {
+            logger.warn("Could not record applied metadata: {}", ex.getMessage());
+            return null;
+        });
+    }
 
-        applyButton.setDisable(true);
+    /**
+     * Vocabulary matches for a batch: the row chosen for each label (null where none was),
+     * the best single-column match for each remaining field value, and the table if it
+     * was built for this batch.
+     */
+    private static final class VocabularyMatches {
+        final List<VocabularyTable.RowMatch> rows;
+        final Map<String, TextMatcher.MatchResult> fields;
+        final VocabularyTable table;
+
+        VocabularyMatches(List<VocabularyTable.RowMatch> rows, Map<String, TextMatcher.MatchResult> fields,
+                          VocabularyTable table) {
+            this.rows = rows;
+            this.fields = fields;
+            this.table = table;
+        }
     }
 
     /**
@@ -1056,6 +1547,7 @@ public class BatchOCRDialog {
         private final SimpleStringProperty metadataPreview;
         private List<String> detectedTexts;
         private Map<String, String> metadata;
+        private volatile long labelHash;
         // Observable properties for each field - keys are metadata keys, values are editable
         private final Map<String, SimpleStringProperty> fieldProperties = new LinkedHashMap<>();
 
@@ -1072,6 +1564,7 @@ public class BatchOCRDialog {
             metadataPreview.set("-");
             detectedTexts = null;
             metadata = null;
+            labelHash = 0;
             fieldProperties.clear();
         }
 
@@ -1150,6 +1643,17 @@ public class BatchOCRDialog {
             return metadata;
         }
 
+        /**
+         * Gets the hash of the label pixels read for this entry, or 0 if it was not read.
+         */
+        public long getLabelHash() {
+            return labelHash;
+        }
+
+        public void setLabelHash(long labelHash) {
+            this.labelHash = labelHash;
+        }
+
         public void setMetadata(Map<String, String> metadata) {
             this.metadata = metadata;
         }
@@ -26,7 +26,9 @@ import qupath.ext.ocr4labels.model.OCRConfiguration;
 import qupath.ext.ocr4labels.model.OCRResult;
 import qupath.ext.ocr4labels.model.TextBlock;
 import qupath.ext.ocr4labels.preferences.OCRPreferences;
-import qupath.ext.ocr4labels.service.OCREngine;
+import qupath.ext.ocr4labels.service.OCREnginePool;
+import qupath.ext.ocr4labels.service.OCRResultCache;
+import qupath.ext.ocr4labels.service.OCRResultStore;
 import qupath.ext.ocr4labels.utilities.LabelImageUtility;
 import qupath.ext.ocr4labels.utilities.MetadataKeyValidator;
 import qupath.ext.ocr4labels.utilities.OCRMetadataManager;
@@ -52,6 +54,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Main dialog for OCR processing and field labeling.
@@ -65,8 +68,9 @@ public class OCRDialog {
             ResourceBundle.getBundle("qupath.ext.ocr4labels.ui.strings");
 
     private final QuPathGUI qupath;
-    private final OCREngine ocrEngine;
+    private final OCREnginePool enginePool;
     private final Project<?> project;
+    private final OCRResultStore resultStore;
 
     // Current state
     private ProjectImageEntry<?> selectedEntry;
@@ -88,6 +92,15 @@ public class OCRDialog {
     private OCRResult currentResult;
     private int selectedIndex = -1;
 
+    // Cached OCR input (label after optional inversion), reused so region scans hit
+    // the image the engine already has staged
+    private BufferedImage ocrInputSource;
+    private boolean ocrInputInverted;
+    private BufferedImage ocrInputImage;
+
+    // Entry whose label was last recognized speculatively, so it is not prefetched twice
+    private ProjectImageEntry<?> prefetchedEntry;
+
     // Toolbar controls for OCR settings
     private ComboBox<PSMOption> psmCombo;
     private CheckBox invertCheckBox;
@@ -123,9 +136,9 @@ public class OCRDialog {
      * Shows the OCR dialog for processing project entries.
      *
      * @param qupath The QuPath GUI instance
-     * @param ocrEngine The OCR engine to use
+     * @param enginePool The pool of OCR engines to use
      */
-    public static void show(QuPathGUI qupath, OCREngine ocrEngine) {
+    public static void show(QuPathGUI qupath, OCREnginePool enginePool) {
         Project<?> project = qupath.getProject();
         if (project == null) {
             Dialogs.showWarningNotification("No Project",
@@ -139,14 +152,17 @@ public class OCRDialog {
             return;
         }
 
-        OCRDialog dialog = new OCRDialog(qupath, project, ocrEngine);
+        OCRResultCache.getShared().useProject(project);
+
+        OCRDialog dialog = new OCRDialog(qupath, project, enginePool);
         dialog.showDialog();
     }
 
-    private OCRDialog(QuPathGUI qupath, Project<?> project, OCREngine ocrEngine) {
+    private OCRDialog(QuPathGUI qupath, Project<?> project, OCREnginePool enginePool) {
         this.qupath = qupath;
         this.project = project;
-        this.ocrEngine = ocrEngine;
+        this.enginePool = enginePool;
+        this.resultStore = OCRResultStore.forProject(project);
         this.fieldEntries = FXCollections.observableArrayList();
     }
 
@@ -248,6 +264,12 @@ public class OCRDialog {
                 confValue.setText(String.format("%.0f%%", newVal.doubleValue()));
                 // Persist the value for next session
                 OCRPreferences.setMinConfidence(newVal.doubleValue() / 100.0);
+                // Results keep low-confidence blocks, so the fields can be re-filtered without OCR
+                if (currentResult != null) {
+                    currentResult = currentResult.withMinConfidence(newVal.doubleValue() / 100.0);
+                    populateFieldsTable(currentResult);
+                    drawBoundingBoxes();
+                }
         });
 
         // Preprocessing options
@@ -414,28 +436,66 @@ public class OCRDialog {
         updateMetadataPreview();
         drawBoundingBoxes();
 
-        // Auto-run OCR if enabled and we have a label image
-        if (labelImage != null && OCRPreferences.isAutoRunOnEntrySwitch()) {
-            Platform.runLater(this::runOCR);
+        // Show the result saved by an earlier run, or auto-run OCR if enabled
+        if (labelImage != null) {
+            showStoredResultOrRun(entry);
         }
     }
 
+    /**
+     * Shows the result saved for the entry if it was recognized from the same label with the
+     * current settings; otherwise runs OCR if auto-run is enabled. The store is read off the
+     * FX thread.
+     */
+    private void showStoredResultOrRun(ProjectImageEntry<?> entry) {
+        BufferedImage label = labelImage;
+        OCRConfiguration config = currentConfiguration();
+        boolean invert = invertCheckBox.isSelected();
+
+        CompletableFuture.supplyAsync(() -> findStoredResult(entry, label, config, invert))
+                .whenComplete((stored, error) -> Platform.runLater(() -> {
+                    if (entry != selectedEntry || label != labelImage || currentResult != null) {
+                        // The user moved on, or OCR was run meanwhile
+                        return;
+                    }
+                    if (error != null) {
+                        logger.warn("Could not read stored OCR result for {}: {}",
+                                entry.getImageName(), error.getMessage());
+                    }
+                    if (stored != null) {
+                        currentResult = stored.withMinConfidence(confSlider.getValue() / 100.0);
+                        populateFieldsTable(currentResult);
+                        updateMetadataPreview();
+                        drawBoundingBoxes();
+                    } else if (OCRPreferences.isAutoRunOnEntrySwitch()) {
+                        runOCR();
+                    }
+                }));
+    }
+
+    /**
+     * Gets the stored result for an entry, or null if there is none or it was recognized
+     * from a different OCR input (label or inversion) or with different recognition settings.
+     */
+    private OCRResult findStoredResult(ProjectImageEntry<?> entry, BufferedImage label,
+                                       OCRConfiguration config, boolean invert) {
+        OCRResultStore.Record record = resultStore.lookup(entry);
+        if (record == null || record.getRecognitionHash() != config.getRecognitionHash()) {
+            return null;
+        }
+        BufferedImage input = invert ? invertImage(label) : label;
+        return record.getLabelHash() == OCRResultCache.hashImage(input) ? record.getResult() : null;
+    }
+
     /**
      * Loads the label image for a project entry.
      */
     private void loadLabelImageForEntry(ProjectImageEntry<?> entry) {
-        try {
-            ImageData<?> imageData = entry.readImageData();
-            if (imageData != null && LabelImageUtility.isLabelImageAvailable(imageData)) {
-                labelImage = LabelImageUtility.retrieveLabelImage(imageData);
-                updateImageDisplay();
-            } else {
-                labelImage = null;
-                showNoLabelPlaceholder();
-            }
-        } catch (IOException e) {
-            logger.error("Failed to load image data for entry: {}", entry.getImageName(), e);
-            labelImage = null;
+        // Read only the label from the image server; the entry's hierarchy is not needed here
+        labelImage = LabelImageUtility.retrieveLabelImage(entry);
+        if (labelImage != null) {
+            updateImageDisplay();
+        } else {
             showNoLabelPlaceholder();
         }
     }
@@ -687,6 +747,7 @@ public class OCRDialog {
             OCRFieldEntry selected = fieldsTable.getSelectionModel().getSelectedItem();
             if (selected != null) {
                 fieldEntries.remove(selected);
+                currentResult = null;
                 updateMetadataPreview();
                 drawBoundingBoxes();
             }
@@ -698,6 +759,7 @@ public class OCRDialog {
         Button clearButton = new Button(resources.getString("button.clearAll"));
         clearButton.setOnAction(e -> {
             fieldEntries.clear();
+            currentResult = null;
             updateMetadataPreview();
             drawBoundingBoxes();
         });
@@ -1082,22 +1144,24 @@ public class OCRDialog {
         progressIndicator.setVisible(true);
 
         PSMOption selectedPSM = psmCombo.getValue();
-        OCRConfiguration.PageSegMode psm = selectedPSM != null ? selectedPSM.getMode() : OCRConfiguration.PageSegMode.AUTO;
-
-        OCRConfiguration config = OCRConfiguration.builder()
-                .pageSegMode(psm)
-                .language(OCRPreferences.getLanguage())
-                .minConfidence(confSlider.getValue() / 100.0)
-                .autoRotate(OCRPreferences.isAutoRotate())
-                .detectOrientation(OCRPreferences.isDetectOrientation())
-                .enhanceContrast(thresholdCheckBox.isSelected())
-                .enablePreprocessing(true)
-                .build();
+        OCRConfiguration config = currentConfiguration();
 
         BufferedImage imageToProcess = preprocessForOCR(labelImage);
+        ProjectImageEntry<?> entry = selectedEntry;
+        // Hash the OCR input so that a result recognized from the inverted label is not reused
+        long labelHash = OCRResultCache.hashImage(imageToProcess);
+        boolean invert = invertCheckBox.isSelected();
 
         OCRController.getInstance().performOCRAsync(imageToProcess, config)
                 .thenAccept(result -> Platform.runLater(() -> {
+                    if (entry != null) {
+                        resultStore.save(entry, result, config, labelHash);
+                    }
+                    if (entry != selectedEntry) {
+                        // The user moved on while OCR was running
+                        progressIndicator.setVisible(false);
+                        return;
+                    }
                     currentResult = result;
                     populateFieldsTable(result);
                     drawBoundingBoxes();
@@ -1107,6 +1171,8 @@ public class OCRDialog {
                     Dialogs.showInfoNotification("OCR Complete",
                             String.format("Detected %d text blocks in %dms (Mode: %s)",
                                     result.getBlockCount(), result.getProcessingTimeMs(), modeInfo));
+
+                    prefetchNextEntry(entry, config, invert);
                 }))
                 .exceptionally(ex -> {
                     Platform.runLater(() -> {
@@ -1117,11 +1183,72 @@ public class OCRDialog {
                 });
     }
 
+    /**
+     * Builds the OCR configuration from the current dialog settings.
+     */
+    private OCRConfiguration currentConfiguration() {
+        PSMOption selectedPSM = psmCombo.getValue();
+        OCRConfiguration.PageSegMode psm = selectedPSM != null ? selectedPSM.getMode() : OCRConfiguration.PageSegMode.AUTO;
+
+        return OCRConfiguration.builder()
+                .pageSegMode(psm)
+                .language(OCRPreferences.getLanguage())
+                .minConfidence(confSlider.getValue() / 100.0)
+                .autoRotate(OCRPreferences.isAutoRotate())
+                .detectOrientation(OCRPreferences.isDetectOrientation())
+                .enhanceContrast(thresholdCheckBox.isSelected())
+                .enablePreprocessing(true)
+                .build();
+    }
+
+    /**
+     * Speculatively recognizes the label of the entry after the given one, at prefetch
+     * priority, so that moving on with auto-run enabled is answered from the result cache.
+     */
+    private void prefetchNextEntry(ProjectImageEntry<?> entry, OCRConfiguration config, boolean invert) {
+        if (entry == null || !OCRPreferences.isAutoRunOnEntrySwitch()) {
+            return;
+        }
+        List<ProjectImageEntry<?>> entries = entryListView.getItems();
+        int index = entries.indexOf(entry);
+        if (index < 0 || index + 1 >= entries.size() || entries.get(index + 1) == prefetchedEntry) {
+            return;
+        }
+        ProjectImageEntry<?> next = entries.get(index + 1);
+        prefetchedEntry = next;
+
+        Thread thread = new Thread(() -> {
+            BufferedImage label = LabelImageUtility.retrieveLabelImage(next);
+            if (label == null) {
+                return;
+            }
+            // A matching stored result is shown instead of running OCR, so there is nothing to prefetch
+            if (findStoredResult(next, label, config, invert) != null) {
+                return;
+            }
+            BufferedImage input = invert ? invertImage(label) : label;
+            OCRController.getInstance().prefetchOCR(input, config)
+                    .exceptionally(ex -> {
+                        logger.debug("OCR prefetch for {} skipped: {}", next.getImageName(), ex.getMessage());
+                        return null;
+                    });
+        }, "ocr-prefetch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     private BufferedImage preprocessForOCR(BufferedImage source) {
+        boolean invert = invertCheckBox.isSelected();
+        if (ocrInputImage != null && ocrInputSource == source && ocrInputInverted == invert) {
+            return ocrInputImage;
+        }
         BufferedImage result = source;
-        if (invertCheckBox.isSelected()) {
+        if (invert) {
             result = invertImage(result);
         }
+        ocrInputSource = source;
+        ocrInputInverted = invert;
+        ocrInputImage = result;
         return result;
     }
 
@@ -1357,11 +1484,9 @@ public class OCRDialog {
 
         logger.info("Scanning region: x={}, y={}, w={}, h={}", imgX, imgY, imgW, imgH);
 
-        BufferedImage regionImage = labelImage.getSubimage(imgX, imgY, imgW, imgH);
-
-        if (invertCheckBox.isSelected()) {
-            regionImage = invertImage(regionImage);
-        }
+        // Recognize the region within the full label so the staged image can be reused
+        BufferedImage imageToProcess = preprocessForOCR(labelImage);
+        java.awt.Rectangle region = new java.awt.Rectangle(imgX, imgY, imgW, imgH);
 
         progressIndicator.setVisible(true);
 
@@ -1369,18 +1494,14 @@ public class OCRDialog {
                 .pageSegMode(OCRConfiguration.PageSegMode.SPARSE_TEXT)
                 .language(OCRPreferences.getLanguage())
                 .minConfidence(0.1)
-                .autoRotate(OCRPreferences.isAutoRotate())
-                .detectOrientation(OCRPreferences.isDetectOrientation())
                 .enhanceContrast(thresholdCheckBox.isSelected())
                 .enablePreprocessing(true)
                 .build();
 
-        final int offsetX = imgX;
-        final int offsetY = imgY;
-
-        OCRController.getInstance().performOCRAsync(regionImage, config)
-                .thenAccept(result -> Platform.runLater(() -> {
+        OCRController.getInstance().performRegionOCRAsync(imageToProcess, List.of(region), config)
+                .thenAccept(results -> Platform.runLater(() -> {
                     progressIndicator.setVisible(false);
+                    OCRResult result = results.get(0);
 
                     if (result.getBlockCount() == 0) {
                         Dialogs.showInfoNotification("Region Scan Complete",
@@ -1390,7 +1511,8 @@ public class OCRDialog {
                                 "- Toggling the Invert checkbox\n" +
                                 "- Making sure the text is clearly visible");
                     } else {
-                        addRegionResults(result, offsetX, offsetY);
+                        // Region results are already in label coordinates
+                        addRegionResults(result, 0, 0);
                         Dialogs.showInfoNotification("Region Scan Complete",
                                 String.format("Found %d text blocks in the selected region.",
                                         result.getBlockCount()));
@@ -1412,6 +1534,8 @@ public class OCRDialog {
     }
 
     private void addRegionResults(OCRResult result, int offsetX, int offsetY) {
+        // The field list no longer comes from a single result, so stop re-filtering it
+        currentResult = null;
         String prefix = OCRPreferences.getMetadataPrefix();
         int startIndex = fieldEntries.size();
 
@@ -1509,6 +1633,7 @@ public class OCRDialog {
         String key = prefix + "field_" + fieldEntries.size();
         OCRFieldEntry entry = new OCRFieldEntry("", key, 1.0f, null);
         fieldEntries.add(entry);
+        currentResult = null;
         fieldsTable.getSelectionModel().select(entry);
         updateMetadataPreview();
     }
@@ -1640,6 +1765,7 @@ public class OCRDialog {
 
             // Show template fields as a preview
             fieldEntries.clear();
+            currentResult = null;
             String prefix = OCRPreferences.getMetadataPrefix();
             for (OCRTemplate.FieldMapping mapping : currentTemplate.getFieldMappings()) {
                 OCRFieldEntry entry = new OCRFieldEntry(
@@ -1688,6 +1814,7 @@ public class OCRDialog {
 
         progressIndicator.setVisible(true);
         fieldEntries.clear();
+        currentResult = null;
 
         int imgWidth = labelImage.getWidth();
         int imgHeight = labelImage.getHeight();
@@ -1701,8 +1828,9 @@ public class OCRDialog {
                 .enhanceContrast(thresholdCheckBox.isSelected())
                 .build();
 
-        // Process each field mapping
-        java.util.List<java.util.concurrent.CompletableFuture<Void>> futures = new ArrayList<>();
+        // Collect the fixed-position regions; all are recognized against one upload of the label
+        List<OCRTemplate.FieldMapping> mappings = new ArrayList<>();
+        List<java.awt.Rectangle> regions = new ArrayList<>();
 
         for (OCRTemplate.FieldMapping mapping : currentTemplate.getFieldMappings()) {
             if (!mapping.isEnabled() || !mapping.hasBoundingBox()) continue;
@@ -1710,52 +1838,35 @@ public class OCRDialog {
             int[] box = mapping.getScaledBoundingBox(imgWidth, imgHeight, dilation);
             if (box == null || box[2] < 5 || box[3] < 5) continue;
 
-            // Extract region
-            BufferedImage regionImage;
-            try {
-                regionImage = labelImage.getSubimage(box[0], box[1], box[2], box[3]);
-            } catch (Exception e) {
-                logger.warn("Failed to extract region for field {}: {}", mapping.getFieldIndex(), e.getMessage());
-                continue;
-            }
-
-            // Apply inversion if needed
-            if (invertCheckBox.isSelected()) {
-                regionImage = invertImage(regionImage);
-            }
+            mappings.add(mapping);
+            regions.add(new java.awt.Rectangle(box[0], box[1], box[2], box[3]));
+        }
 
-            final BufferedImage finalRegion = regionImage;
-            final int fieldIndex = mapping.getFieldIndex();
-            final String metadataKey = mapping.getMetadataKey();
-            final int[] finalBox = box;
+        BufferedImage imageToProcess = preprocessForOCR(labelImage);
 
-            java.util.concurrent.CompletableFuture<Void> future = OCRController.getInstance()
-                    .performOCRAsync(finalRegion, config)
-                    .thenAccept(result -> {
+        OCRController.getInstance().performRegionOCRAsync(imageToProcess, regions, config)
+                .thenAccept(results -> Platform.runLater(() -> {
+                    for (int i = 0; i < results.size(); i++) {
+                        OCRResult result = results.get(i);
                         String extractedText = "";
                         if (result.hasText()) {
-                            // Get all text from the region
+                            // Get all word and line text from the region
                             extractedText = result.getTextBlocks().stream()
+                                    .filter(b -> b.getType() == TextBlock.BlockType.WORD
+                                            || b.getType() == TextBlock.BlockType.LINE)
                                     .map(TextBlock::getText)
                                     .filter(t -> t != null && !t.isEmpty())
-                                    .reduce((a, b) -> a + " " + b)
+                                    .reduce((x, y) -> x + " " + y)
                                     .orElse("");
                         }
 
-                        final String text = extractedText.trim();
-                        Platform.runLater(() -> {
-                            BoundingBox bbox = new BoundingBox(finalBox[0], finalBox[1], finalBox[2], finalBox[3]);
-                            OCRFieldEntry entry = new OCRFieldEntry(text, metadataKey, 1.0f, bbox);
-                            fieldEntries.add(entry);
-                        });
-                    });
-
-            futures.add(future);
-        }
+                        java.awt.Rectangle region = regions.get(i);
+                        BoundingBox bbox = new BoundingBox(region.x, region.y, region.width, region.height);
+                        OCRFieldEntry entry = new OCRFieldEntry(extractedText.trim(),
+                                mappings.get(i).getMetadataKey(), 1.0f, bbox);
+                        fieldEntries.add(entry);
+                    }
 
-        // Wait for all extractions to complete
-        java.util.concurrent.CompletableFuture.allOf(futures.toArray(new java.util.concurrent.CompletableFuture[0]))
-                .thenRun(() -> Platform.runLater(() -> {
                     progressIndicator.setVisible(false);
                     // Sort by field index
                     fieldEntries.sort((a, b) -> {
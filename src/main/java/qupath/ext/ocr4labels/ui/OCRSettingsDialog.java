@@ -1,6 +1,7 @@
 package qupath.ext.ocr4labels.ui;
 
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -426,12 +427,35 @@ public class OCRSettingsDialog {
         autoRunCb.selectedProperty().addListener((obs, old, newVal) ->
                 OCRPreferences.setAutoRunOnEntrySwitch(newVal));
 
+        CheckBox resultCacheCb = new CheckBox("Reuse results for unchanged labels");
+        resultCacheCb.setSelected(OCRPreferences.isResultCache());
+        resultCacheCb.setTooltip(new Tooltip(
+                "Cache OCR results by label pixels and settings, in memory and in the project folder.\n\n" +
+                "Re-running OCR on a label that has not changed, with the same settings,\n" +
+                "returns the earlier result instantly instead of running Tesseract again."));
+        resultCacheCb.selectedProperty().addListener((obs, old, newVal) ->
+                OCRPreferences.setResultCache(newVal));
+
+        Spinner<Integer> timeoutSpinner = new Spinner<>(0, 3600, OCRPreferences.getBatchImageTimeout(), 10);
+        timeoutSpinner.setEditable(true);
+        timeoutSpinner.setPrefWidth(90);
+        timeoutSpinner.valueProperty().addListener((obs, old, newVal) ->
+                OCRPreferences.setBatchImageTimeout(newVal));
+        Label timeoutLabel = new Label("Batch time limit per image (seconds, 0 = none):");
+        timeoutLabel.setTooltip(new Tooltip(
+                "Images that take longer are abandoned during batch processing and marked 'Timeout'.\n\n" +
+                "Keeps unusual labels (very large or noisy images) from holding up a long batch."));
+        HBox timeoutBox = new HBox(10, timeoutLabel, timeoutSpinner);
+        timeoutBox.setAlignment(Pos.CENTER_LEFT);
+
         content.getChildren().addAll(
                 detectOrientationCb,
                 autoRotateCb,
                 enhanceContrastCb,
                 sep,
-                autoRunCb
+                autoRunCb,
+                resultCacheCb,
+                timeoutBox
         );
         pane.setContent(content);
         return pane;
@@ -0,0 +1,167 @@
+package qupath.ext.ocr4labels.utilities;
+
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams per-image batch OCR results to a CSV or JSON Lines file.
+ *
+ * <p>Each row is written and flushed as soon as its image completes, so a long run can be
+ * followed with {@code tail -f} and an interrupted run keeps every row written so far.
+ * The format is chosen from the file extension: {@code .jsonl} or {@code .ndjson} gives
+ * one JSON object per line, anything else gives CSV with a header row. Columns are the
+ * entry ID, image name and status, then one column per metadata key, then the processing
+ * time and any error message.</p>
+ */
+public abstract class BatchResultWriter implements AutoCloseable {
+
+    private static final Gson GSON = new Gson();
+
+    protected final Writer writer;
+    protected final List<String> keys;
+
+    private BatchResultWriter(File file, List<String> keys) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        this.writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+        this.keys = new ArrayList<>(keys);
+    }
+
+    /**
+     * Opens a writer, replacing any existing file.
+     *
+     * @param file Output file; its extension selects the format
+     * @param keys Metadata keys, in column order
+     * @return The writer
+     * @throws IOException if the file cannot be created
+     */
+    public static BatchResultWriter open(File file, List<String> keys) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return new JsonLinesWriter(file, keys);
+        }
+        return new CsvWriter(file, keys);
+    }
+
+    /**
+     * Writes the row for one image and flushes it.
+     *
+     * @param entryId          Project entry ID
+     * @param imageName        Image name
+     * @param status           Outcome, e.g. "Done", "No label" or "Error"
+     * @param values           Values by metadata key; missing keys are written as empty
+     * @param processingTimeMs OCR time, or -1 if OCR did not run
+     * @param error            Error message, or null
+     * @throws IOException if writing fails
+     */
+    public synchronized void write(String entryId, String imageName, String status,
+                                   Map<String, String> values, long processingTimeMs,
+                                   String error) throws IOException {
+        writeRow(entryId, imageName, status, values, processingTimeMs, error);
+        writer.flush();
+    }
+
+    protected abstract void writeRow(String entryId, String imageName, String status,
+                                     Map<String, String> values, long processingTimeMs,
+                                     String error) throws IOException;
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private static final class CsvWriter extends BatchResultWriter {
+
+        private CsvWriter(File file, List<String> keys) throws IOException {
+            super(file, keys);
+            List<String> header = new ArrayList<>();
+            header.add("entry_id");
+            header.add("image_name");
+            header.add("status");
+            header.addAll(keys);
+            header.add("processing_ms");
+            header.add("error");
+            writeLine(header);
+            writer.flush();
+        }
+
+        @Override
+        protected void writeRow(String entryId, String imageName, String status,
+                                Map<String, String> values, long processingTimeMs,
+                                String error) throws IOException {
+            List<String> row = new ArrayList<>();
+            row.add(entryId);
+            row.add(imageName);
+            row.add(status);
+            for (String key : keys) {
+                row.add(values.get(key));
+            }
+            row.add(processingTimeMs >= 0 ? Long.toString(processingTimeMs) : "");
+            row.add(error);
+            writeLine(row);
+        }
+
+        private void writeLine(List<String> cells) throws IOException {
+            for (int i = 0; i < cells.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(cells.get(i)));
+            }
+            writer.write('\n');
+        }
+
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static final class JsonLinesWriter extends BatchResultWriter {
+
+        private JsonLinesWriter(File file, List<String> keys) throws IOException {
+            super(file, keys);
+        }
+
+        @Override
+        protected void writeRow(String entryId, String imageName, String status,
+                                Map<String, String> values, long processingTimeMs,
+                                String error) throws IOException {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("entry_id", entryId);
+            row.put("image_name", imageName);
+            row.put("status", status);
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (String key : keys) {
+                String value = values.get(key);
+                fields.put(key, value != null ? value : "");
+            }
+            row.put("fields", fields);
+            if (processingTimeMs >= 0) {
+                row.put("processing_ms", processingTimeMs);
+            }
+            if (error != null) {
+                row.put("error", error);
+            }
+            writer.write(GSON.toJson(row));
+            writer.write('\n');
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package qupath.ext.ocr4labels.utilities;
+
+/**
+ * Prefilter over vocabulary keys used by {@link TextMatcher}.
+ *
+ * <p>Implementations return every vocabulary position whose key could be within a given
+ * unit-cost edit distance of the query. They may return extra positions; the caller
+ * computes the exact distance for each candidate.</p>
+ */
+interface CandidateIndex {
+
+    /**
+     * Finds the vocabulary positions whose key may be within {@code radius} of {@code key}.
+     *
+     * @return Candidate positions in ascending order
+     */
+    int[] query(String key, int radius);
+
+    /**
+     * Gets the number of vocabulary positions indexed.
+     */
+    int size();
+}
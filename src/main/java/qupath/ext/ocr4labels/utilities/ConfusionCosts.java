@@ -0,0 +1,88 @@
+package qupath.ext.ocr4labels.utilities;
+
+import java.util.Arrays;
+
+/**
+ * Primitive lookup table of OCR substitution costs.
+ *
+ * <p>Characters that appear in any confusion pair get a dense id through a
+ * {@code char}-indexed array, and costs between them are held in a flat
+ * {@code double} matrix, so a lookup needs no boxing or hashing. Immutable;
+ * {@link TextMatcher} rebuilds the table when confusion weights are added.</p>
+ */
+final class ConfusionCosts {
+
+    /** Cost of substituting the same letter in a different case when no weight is defined. */
+    static final double CASE_ONLY_COST = 0.3;
+
+    private final short[] ids = new short[Character.MAX_VALUE + 1];
+    private final double[] costs;
+    private final int size;
+    private final boolean hasNegative;
+
+    /**
+     * Creates a table from parallel arrays of pairs. Pairs are used as given,
+     * so both directions must be listed for a symmetric cost.
+     *
+     * @param first   First character of each pair
+     * @param second  Second character of each pair
+     * @param weights Substitution cost of each pair
+     */
+    ConfusionCosts(char[] first, char[] second, double[] weights) {
+        int next = 1;
+        for (int i = 0; i < weights.length; i++) {
+            if (ids[first[i]] == 0) ids[first[i]] = (short) next++;
+            if (ids[second[i]] == 0) ids[second[i]] = (short) next++;
+        }
+
+        size = next;
+        costs = new double[size * size];
+        Arrays.fill(costs, Double.NaN);
+        boolean negative = false;
+        for (int i = 0; i < weights.length; i++) {
+            costs[ids[first[i]] * size + ids[second[i]]] = weights[i];
+            negative |= weights[i] < 0;
+        }
+        hasNegative = negative;
+    }
+
+    /**
+     * Gets the OCR-weighted cost of substituting {@code c1} with {@code c2}: the defined
+     * weight for the pair, otherwise {@link #CASE_ONLY_COST} for the same letter in a
+     * different case, otherwise the weight for the lowercased letters, otherwise 1.0.
+     */
+    double cost(char c1, char c2) {
+        if (c1 == c2) return 0.0;
+
+        double weight = lookup(c1, c2);
+        if (!Double.isNaN(weight)) {
+            return weight;
+        }
+
+        if (Character.isLetter(c1) && Character.isLetter(c2)) {
+            char lc1 = Character.toLowerCase(c1);
+            char lc2 = Character.toLowerCase(c2);
+            if (lc1 == lc2) {
+                return CASE_ONLY_COST;
+            }
+            weight = lookup(lc1, lc2);
+            if (!Double.isNaN(weight)) {
+                return weight;
+            }
+        }
+        return 1.0;
+    }
+
+    /**
+     * Checks whether any defined weight is negative, which invalidates distance bounds.
+     */
+    boolean hasNegative() {
+        return hasNegative;
+    }
+
+    private double lookup(char c1, char c2) {
+        short a = ids[c1];
+        short b = ids[c2];
+        return a == 0 || b == 0 ? Double.NaN : costs[a * size + b];
+    }
+}
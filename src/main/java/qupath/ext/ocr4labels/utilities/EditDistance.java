@@ -0,0 +1,205 @@
+package qupath.ext.ocr4labels.utilities;
+
+/**
+ * Allocation-free edit distance routines used by {@link TextMatcher} and {@link VocabularyIndex}.
+ *
+ * <p>Unit-cost Levenshtein distance uses Myers' bit-parallel algorithm when the shorter
+ * string fits in a 64-bit word, and a two-row dynamic program otherwise. The OCR-weighted
+ * distance uses a two-row dynamic program restricted to a diagonal band and stops as soon
+ * as a whole row exceeds the caller's limit. Working arrays are kept per thread and reused.</p>
+ */
+final class EditDistance {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private EditDistance() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Unit-cost Levenshtein distance.
+     */
+    static int levenshtein(String a, String b) {
+        // The distance is symmetric, so use the shorter string as the bit-parallel pattern
+        String pattern = a.length() <= b.length() ? a : b;
+        String text = pattern == a ? b : a;
+        if (pattern.isEmpty()) {
+            return text.length();
+        }
+        if (pattern.length() <= Long.SIZE) {
+            return myers(pattern, text, SCRATCH.get());
+        }
+        return twoRow(pattern, text, SCRATCH.get());
+    }
+
+    /**
+     * OCR-weighted edit distance: insertions and deletions cost 1.0 and substitutions
+     * cost {@link ConfusionCosts#cost}.
+     *
+     * <p>The result is exact whenever it is at most {@code limit}. Otherwise some value
+     * greater than {@code limit} is returned: every cell more than {@code limit} off the
+     * diagonal already needs that many insertions or deletions, and costs never decrease
+     * along a path, so those cells and any row whose minimum exceeds the limit can be
+     * skipped. A negative limit, or negative weights, disable the band.</p>
+     *
+     * @param s1    First string
+     * @param s2    Second string
+     * @param costs Substitution costs
+     * @param limit Largest distance the caller is interested in
+     */
+    static double weighted(String s1, String s2, ConfusionCosts costs, int limit) {
+        int len1 = s1.length();
+        int len2 = s2.length();
+        boolean banded = limit >= 0 && !costs.hasNegative();
+        if (banded && Math.abs(len1 - len2) > limit) {
+            return Math.abs(len1 - len2);
+        }
+
+        Scratch scratch = SCRATCH.get();
+        double[] previous = scratch.doubleRow(0, len2 + 1);
+        double[] current = scratch.doubleRow(1, len2 + 1);
+        for (int j = 0; j <= len2; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= len1; i++) {
+            int from = banded ? Math.max(1, i - limit) : 1;
+            int to = banded ? Math.min(len2, i + limit) : len2;
+            current[from - 1] = from == 1 ? i : Double.POSITIVE_INFINITY;
+            double rowMin = current[from - 1];
+
+            char c1 = s1.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                char c2 = s2.charAt(j - 1);
+                double value;
+                if (c1 == c2) {
+                    value = previous[j - 1];
+                } else {
+                    double delete = previous[j] + 1.0;
+                    double insert = current[j - 1] + 1.0;
+                    double substitute = previous[j - 1] + costs.cost(c1, c2);
+                    value = Math.min(Math.min(delete, insert), substitute);
+                }
+                current[j] = value;
+                if (value < rowMin) {
+                    rowMin = value;
+                }
+            }
+            // The next row reads one cell past this row's band
+            if (to < len2) {
+                current[to + 1] = Double.POSITIVE_INFINITY;
+            }
+            if (banded && rowMin > limit) {
+                return rowMin;
+            }
+
+            double[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[len2];
+    }
+
+    /**
+     * Myers/Hyyro bit-vector edit distance for a pattern of at most 64 characters.
+     */
+    private static int myers(String pattern, String text, Scratch scratch) {
+        int m = pattern.length();
+        long[] asciiPeq = scratch.asciiPeq;
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(i);
+            if (c < 128) {
+                asciiPeq[c] |= 1L << i;
+            }
+        }
+
+        long pv = m == Long.SIZE ? -1L : (1L << m) - 1;
+        long mv = 0;
+        long last = 1L << (m - 1);
+        int score = m;
+
+        for (int j = 0; j < text.length(); j++) {
+            char c = text.charAt(j);
+            long eq = c < 128 ? asciiPeq[c] : matchMask(pattern, c);
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            // Shift in a +1 horizontal delta: the first row of the matrix is 0, 1, 2, ...
+            ph = (ph << 1) | 1;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(i);
+            if (c < 128) {
+                asciiPeq[c] = 0;
+            }
+        }
+        return score;
+    }
+
+    private static long matchMask(String pattern, char c) {
+        long mask = 0;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == c) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Two-row unit-cost DP for patterns too long for a single machine word.
+     */
+    private static int twoRow(String a, String b, Scratch scratch) {
+        int len2 = b.length();
+        int[] previous = scratch.intRow(0, len2 + 1);
+        int[] current = scratch.intRow(1, len2 + 1);
+        for (int j = 0; j <= len2; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c1 = a.charAt(i - 1);
+            for (int j = 1; j <= len2; j++) {
+                int cost = c1 == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[len2];
+    }
+
+    /**
+     * Per-thread working arrays, grown as needed and never shrunk.
+     */
+    private static final class Scratch {
+        final long[] asciiPeq = new long[128];
+        final int[][] intRows = new int[2][16];
+        final double[][] doubleRows = new double[2][16];
+
+        int[] intRow(int which, int length) {
+            if (intRows[which].length < length) {
+                intRows[which] = new int[Math.max(length, intRows[which].length * 2)];
+            }
+            return intRows[which];
+        }
+
+        double[] doubleRow(int which, int length) {
+            if (doubleRows[which].length < length) {
+                doubleRows[which] = new double[Math.max(length, doubleRows[which].length * 2)];
+            }
+            return doubleRows[which];
+        }
+    }
+}
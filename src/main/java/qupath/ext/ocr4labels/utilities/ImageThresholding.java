@@ -0,0 +1,213 @@
+package qupath.ext.ocr4labels.utilities;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+
+/**
+ * Binarization routines for 8-bit grayscale label images.
+ *
+ * <p>All methods read the image's {@link DataBufferByte} directly and return a new
+ * {@link BufferedImage#TYPE_BYTE_GRAY} image with text pixels set to 0 and background
+ * set to 255. Local methods use summed-area tables, so the cost per pixel does not
+ * depend on the window size.</p>
+ */
+public class ImageThresholding {
+
+    /** Sauvola sensitivity; higher values push more pixels to background. */
+    private static final double SAUVOLA_K = 0.2;
+
+    /** Dynamic range of the standard deviation for 8-bit images. */
+    private static final double SAUVOLA_R = 128.0;
+
+    private ImageThresholding() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Local mean thresholding: a pixel becomes black if it is darker than the mean
+     * of its window minus {@code offset}. Windows are clipped at the image border.
+     *
+     * @param gray      An 8-bit grayscale image
+     * @param blockSize Window width and height (should be odd)
+     * @param offset    Amount below the local mean a pixel must be to count as text
+     * @return A new binary image
+     */
+    public static BufferedImage meanThreshold(BufferedImage gray, int blockSize, int offset) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        byte[] src = toGrayBytes(gray);
+        long[] sums = integral(src, width, height, false);
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] dst = ((DataBufferByte) result.getRaster().getDataBuffer()).getData();
+
+        int half = blockSize / 2;
+        int stride = width + 1;
+        for (int y = 0; y < height; y++) {
+            int y0 = Math.max(0, y - half);
+            int y1 = Math.min(height, y + half + 1);
+            for (int x = 0; x < width; x++) {
+                int x0 = Math.max(0, x - half);
+                int x1 = Math.min(width, x + half + 1);
+                int count = (x1 - x0) * (y1 - y0);
+                long sum = sums[y1 * stride + x1] - sums[y0 * stride + x1]
+                        - sums[y1 * stride + x0] + sums[y0 * stride + x0];
+                int localMean = (int) (sum / count);
+                int value = src[y * width + x] & 0xFF;
+                dst[y * width + x] = (byte) (value < localMean - offset ? 0 : 255);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sauvola thresholding: {@code T = mean * (1 + k * (stddev / R - 1))}, evaluated
+     * over each pixel's window. Handles uneven illumination better than a plain mean.
+     *
+     * @param gray      An 8-bit grayscale image
+     * @param blockSize Window width and height (should be odd)
+     * @return A new binary image
+     */
+    public static BufferedImage sauvolaThreshold(BufferedImage gray, int blockSize) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        byte[] src = toGrayBytes(gray);
+        long[] sums = integral(src, width, height, false);
+        long[] squares = integral(src, width, height, true);
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] dst = ((DataBufferByte) result.getRaster().getDataBuffer()).getData();
+
+        int half = blockSize / 2;
+        int stride = width + 1;
+        for (int y = 0; y < height; y++) {
+            int y0 = Math.max(0, y - half);
+            int y1 = Math.min(height, y + half + 1);
+            for (int x = 0; x < width; x++) {
+                int x0 = Math.max(0, x - half);
+                int x1 = Math.min(width, x + half + 1);
+                int a = y0 * stride + x0;
+                int b = y0 * stride + x1;
+                int c = y1 * stride + x0;
+                int d = y1 * stride + x1;
+                double count = (x1 - x0) * (y1 - y0);
+                double mean = (sums[d] - sums[b] - sums[c] + sums[a]) / count;
+                double variance = (squares[d] - squares[b] - squares[c] + squares[a]) / count - mean * mean;
+                double stdDev = Math.sqrt(Math.max(0, variance));
+                double threshold = mean * (1 + SAUVOLA_K * (stdDev / SAUVOLA_R - 1));
+                int value = src[y * width + x] & 0xFF;
+                dst[y * width + x] = (byte) (value < threshold ? 0 : 255);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Global Otsu thresholding: picks the single threshold that maximizes the
+     * between-class variance of the image histogram.
+     *
+     * @param gray An 8-bit grayscale image
+     * @return A new binary image
+     */
+    public static BufferedImage otsuThreshold(BufferedImage gray) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        byte[] src = toGrayBytes(gray);
+
+        long[] histogram = new long[256];
+        for (byte b : src) {
+            histogram[b & 0xFF]++;
+        }
+
+        long total = src.length;
+        double sumAll = 0;
+        for (int i = 0; i < 256; i++) {
+            sumAll += (double) i * histogram[i];
+        }
+
+        double sumBackground = 0;
+        long weightBackground = 0;
+        double bestVariance = -1;
+        int threshold = 0;
+        for (int t = 0; t < 256; t++) {
+            weightBackground += histogram[t];
+            if (weightBackground == 0) {
+                continue;
+            }
+            long weightForeground = total - weightBackground;
+            if (weightForeground == 0) {
+                break;
+            }
+            sumBackground += (double) t * histogram[t];
+            double meanBackground = sumBackground / weightBackground;
+            double meanForeground = (sumAll - sumBackground) / weightForeground;
+            double diff = meanBackground - meanForeground;
+            double variance = (double) weightBackground * weightForeground * diff * diff;
+            if (variance > bestVariance) {
+                bestVariance = variance;
+                threshold = t;
+            }
+        }
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] dst = ((DataBufferByte) result.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < src.length; i++) {
+            dst[i] = (byte) ((src[i] & 0xFF) <= threshold ? 0 : 255);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the pixels of an 8-bit grayscale image as a packed width*height array.
+     * The backing array is returned as-is when it is already packed; otherwise
+     * (e.g. for sub-images sharing a parent raster) the rows are copied.
+     *
+     * @param gray A {@link BufferedImage#TYPE_BYTE_GRAY} image
+     * @return Packed row-major pixel values
+     */
+    public static byte[] toGrayBytes(BufferedImage gray) {
+        if (gray.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            throw new IllegalArgumentException("Expected TYPE_BYTE_GRAY image but got type " + gray.getType());
+        }
+
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        Raster raster = gray.getRaster();
+        byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+
+        if (raster.getSampleModel() instanceof ComponentSampleModel) {
+            ComponentSampleModel sm = (ComponentSampleModel) raster.getSampleModel();
+            if (sm.getScanlineStride() == width && sm.getPixelStride() == 1
+                    && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                    && data.length == width * height) {
+                return data;
+            }
+        }
+
+        byte[] packed = new byte[width * height];
+        raster.getDataElements(0, 0, width, height, packed);
+        return packed;
+    }
+
+    /**
+     * Builds a (width+1) x (height+1) summed-area table with a zero first row and column.
+     */
+    private static long[] integral(byte[] src, int width, int height, boolean squared) {
+        int stride = width + 1;
+        long[] table = new long[stride * (height + 1)];
+        for (int y = 0; y < height; y++) {
+            long rowSum = 0;
+            int srcRow = y * width;
+            int row = (y + 1) * stride;
+            int above = y * stride;
+            for (int x = 0; x < width; x++) {
+                long v = src[srcRow + x] & 0xFF;
+                rowSum += squared ? v * v : v;
+                table[row + x + 1] = table[above + x + 1] + rowSum;
+            }
+        }
+        return table;
+    }
+}
@@ -0,0 +1,377 @@
+package qupath.ext.ocr4labels.utilities;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.ext.ocr4labels.preferences.OCRPreferences;
+import qupath.lib.projects.Project;
+import qupath.lib.projects.ProjectImageEntry;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Persisted index of which project entries have a label image.
+ *
+ * <p>Records are keyed by entry ID and server URI and hold the matched associated image
+ * name and its dimensions. The index is stored as JSON in the project directory
+ * ({@code ocr4labels/label_index.json}) so later sessions can list labelled entries
+ * without opening every image. A record is only trusted while the entry's URI, the
+ * configured label keywords and (for local files) the image file's modification time
+ * are unchanged; otherwise the entry is re-checked on demand.</p>
+ */
+public class LabelImageIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LabelImageIndex.class);
+
+    /** Directory inside the project folder used for OCR for Labels data. */
+    public static final String DATA_DIRECTORY = "ocr4labels";
+
+    private static final String INDEX_FILE = "label_index.json";
+    private static final int INDEX_VERSION = 1;
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    private static LabelImageIndex activeIndex;
+
+    private final File indexFile;
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    private LabelImageIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Gets the index for a project, loading it from disk if it exists.
+     * The returned index becomes the active index consulted by {@link LabelImageUtility}.
+     *
+     * @param project The project
+     * @return The project's index
+     */
+    public static synchronized LabelImageIndex forProject(Project<?> project) {
+        File projectDir = project.getPath().toFile().getParentFile();
+        File file = new File(new File(projectDir, DATA_DIRECTORY), INDEX_FILE);
+
+        if (activeIndex != null && activeIndex.indexFile.equals(file)) {
+            return activeIndex;
+        }
+
+        LabelImageIndex index = new LabelImageIndex(file);
+        index.load();
+        activeIndex = index;
+        return index;
+    }
+
+    /**
+     * Gets the most recently opened index, or null if none has been opened.
+     */
+    public static synchronized LabelImageIndex getActive() {
+        return activeIndex;
+    }
+
+    /**
+     * Gets a still-valid record for a project entry.
+     *
+     * @param entry The project entry
+     * @return The record, or null if the entry is unknown or its record is stale
+     */
+    public Record lookup(ProjectImageEntry<?> entry) {
+        String uri = primaryUri(entry);
+        Record record = records.get(entry.getID());
+        if (record == null || uri == null || !uri.equals(record.uri)) {
+            return null;
+        }
+        return isValid(record) ? record : null;
+    }
+
+    /**
+     * Gets a still-valid record by server URI. Used when only an ImageData is at hand.
+     *
+     * @param uri The image server URI
+     * @return The record, or null if no valid record exists for the URI
+     */
+    public Record lookup(URI uri) {
+        if (uri == null) {
+            return null;
+        }
+        String key = uri.toString();
+        for (Record record : records.values()) {
+            if (key.equals(record.uri) && isValid(record)) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks an entry against the index, opening its image server if there is no valid
+     * record, and stores the outcome. Only associated image names are read here; label
+     * dimensions are filled in when the label image itself is first retrieved.
+     *
+     * @param entry The project entry
+     * @return The (possibly new) record for the entry
+     * @throws Exception if the entry's image server could not be opened
+     */
+    public Record check(ProjectImageEntry<?> entry) throws Exception {
+        Record record = lookup(entry);
+        if (record != null) {
+            return record;
+        }
+        return put(entry, LabelImageUtility.findLabelImageName(entry), -1, -1);
+    }
+
+    /**
+     * Records the label state of an entry.
+     *
+     * @param entry     The project entry
+     * @param labelName The associated image name used as label, or null if none
+     * @param width     Label width in pixels, or -1 if unknown
+     * @param height    Label height in pixels, or -1 if unknown
+     * @return The stored record
+     */
+    public Record put(ProjectImageEntry<?> entry, String labelName, int width, int height) {
+        Record record = new Record();
+        record.entryId = entry.getID();
+        record.uri = primaryUri(entry);
+        record.labelName = labelName;
+        record.width = width;
+        record.height = height;
+
+        // Keep known dimensions when only the name was re-checked
+        Record previous = records.get(record.entryId);
+        if (width < 0 && previous != null && labelName != null
+                && labelName.equals(previous.labelName) && Objects.equals(record.uri, previous.uri)) {
+            record.width = previous.width;
+            record.height = previous.height;
+        }
+        record.keywords = OCRPreferences.getLabelImageKeywords();
+        record.sourceModified = sourceModified(record.uri);
+        record.checkedTimestamp = System.currentTimeMillis();
+        records.put(record.entryId, record);
+        dirty.set(true);
+        return record;
+    }
+
+    /**
+     * Scans project entries in the background, checking entries in parallel and
+     * reusing valid records. {@code onLabelFound} is called (from a worker thread)
+     * for every entry that has a label, as soon as it is known. Cancelling the returned
+     * future stops the scan after the entries currently being checked. The index is
+     * saved when the scan finishes or is cancelled.
+     *
+     * @param entries      Entries to scan
+     * @param parallelism  Number of worker threads
+     * @param onLabelFound Called for each entry with a label
+     * @param onProgress   Called with the number of entries checked so far
+     * @return A future completing with the entries that have labels, in project order
+     */
+    public CompletableFuture<List<ProjectImageEntry<?>>> scanAsync(
+            List<? extends ProjectImageEntry<?>> entries, int parallelism,
+            Consumer<ProjectImageEntry<?>> onLabelFound, Consumer<Integer> onProgress) {
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread t = new Thread(r, "ocr-label-scan");
+            t.setDaemon(true);
+            return t;
+        });
+
+        CompletableFuture<List<ProjectImageEntry<?>>> scan = new CompletableFuture<>();
+        AtomicInteger checked = new AtomicInteger(0);
+        boolean[] hasLabel = new boolean[entries.size()];
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            final int index = i;
+            ProjectImageEntry<?> entry = entries.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                if (scan.isDone()) {
+                    return;
+                }
+                try {
+                    if (check(entry).hasLabel()) {
+                        hasLabel[index] = true;
+                        onLabelFound.accept(entry);
+                    }
+                } catch (Exception e) {
+                    logger.debug("Label scan failed for {}: {}", entry.getImageName(), e.getMessage());
+                }
+                onProgress.accept(checked.incrementAndGet());
+            }, executor);
+        }
+
+        CompletableFuture.allOf(tasks).whenComplete((ignored, ex) -> {
+            executor.shutdown();
+            save();
+            List<ProjectImageEntry<?>> result = new ArrayList<>();
+            for (int i = 0; i < entries.size(); i++) {
+                if (hasLabel[i]) {
+                    result.add(entries.get(i));
+                }
+            }
+            logger.info("Label scan checked {} of {} entries, {} with labels",
+                    checked.get(), entries.size(), result.size());
+            scan.complete(result);
+        });
+        return scan;
+    }
+
+    /**
+     * Writes the index to disk if it has changed since it was loaded or last saved.
+     */
+    public synchronized void save() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            Files.createDirectories(indexFile.getParentFile().toPath());
+            IndexFile data = new IndexFile();
+            data.version = INDEX_VERSION;
+            data.records = new ArrayList<>(records.values());
+
+            // Write to a temporary file first so a crash cannot leave a truncated index
+            File tmp = new File(indexFile.getPath() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+                GSON.toJson(data, writer);
+            }
+            Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            logger.debug("Saved label index with {} records to {}", records.size(), indexFile);
+        } catch (IOException e) {
+            dirty.set(true);
+            logger.warn("Could not save label index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the number of records in the index.
+     */
+    public int size() {
+        return records.size();
+    }
+
+    private void load() {
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            IndexFile data = GSON.fromJson(reader, new TypeToken<IndexFile>() {}.getType());
+            if (data == null || data.version != INDEX_VERSION || data.records == null) {
+                logger.info("Ignoring label index with unsupported format: {}", indexFile);
+                return;
+            }
+            for (Record record : data.records) {
+                if (record.entryId != null) {
+                    records.put(record.entryId, record);
+                }
+            }
+            logger.debug("Loaded label index with {} records from {}", records.size(), indexFile);
+        } catch (IOException | JsonParseException e) {
+            logger.warn("Could not read label index, it will be rebuilt: {}", e.getMessage());
+        }
+    }
+
+    private boolean isValid(Record record) {
+        String keywords = OCRPreferences.getLabelImageKeywords();
+        if (keywords == null ? record.keywords != null : !keywords.equals(record.keywords)) {
+            return false;
+        }
+        return sourceModified(record.uri) == record.sourceModified;
+    }
+
+    /**
+     * Gets the first server URI of an entry as a string, or null if it has none.
+     */
+    public static String primaryUri(ProjectImageEntry<?> entry) {
+        try {
+            Collection<URI> uris = entry.getURIs();
+            return uris == null || uris.isEmpty() ? null : uris.iterator().next().toString();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the modification time of a local image file, or -1 for non-file URIs.
+     */
+    public static long sourceModified(String uri) {
+        if (uri == null || !uri.startsWith("file:")) {
+            return -1;
+        }
+        try {
+            File file = Paths.get(URI.create(uri)).toFile();
+            return file.exists() ? file.lastModified() : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Label state of one project entry.
+     */
+    public static class Record {
+        private String entryId;
+        private String uri;
+        private String labelName;
+        private int width = -1;
+        private int height = -1;
+        private String keywords;
+        private long sourceModified;
+        private long checkedTimestamp;
+
+        public String getEntryId() {
+            return entryId;
+        }
+
+        public String getUri() {
+            return uri;
+        }
+
+        /**
+         * Gets the associated image name used as the label, or null if there is none.
+         */
+        public String getLabelName() {
+            return labelName;
+        }
+
+        public boolean hasLabel() {
+            return labelName != null;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public long getCheckedTimestamp() {
+            return checkedTimestamp;
+        }
+    }
+
+    private static class IndexFile {
+        int version;
+        List<Record> records;
+    }
+}
@@ -5,8 +5,12 @@ import org.slf4j.LoggerFactory;
 import qupath.ext.ocr4labels.preferences.OCRPreferences;
 import qupath.lib.images.ImageData;
 import qupath.lib.images.servers.ImageServer;
+import qupath.lib.images.servers.ImageServerBuilder;
+import qupath.lib.images.servers.ImageServers;
+import qupath.lib.projects.ProjectImageEntry;
 
 import java.awt.image.BufferedImage;
+import java.net.URI;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -56,6 +60,11 @@ public class LabelImageUtility {
                 return false;
             }
 
+            LabelImageIndex.Record record = lookupIndex(server);
+            if (record != null) {
+                return record.hasLabel();
+            }
+
             Collection<String> associatedImages = server.getAssociatedImageList();
             if (associatedImages == null || associatedImages.isEmpty()) {
                 return false;
@@ -175,6 +184,11 @@ public class LabelImageUtility {
                 return null;
             }
 
+            LabelImageIndex.Record record = lookupIndex(server);
+            if (record != null) {
+                return record.getLabelName();
+            }
+
             Collection<String> associatedImages = server.getAssociatedImageList();
             if (associatedImages == null) {
                 return null;
@@ -199,6 +213,172 @@ public class LabelImageUtility {
         }
     }
 
+    /**
+     * Checks if a project entry has a label image, without reading its ImageData.
+     * A valid record in the active {@link LabelImageIndex} is used when available.
+     *
+     * @param entry The project entry to check
+     * @return true if a label image exists, false otherwise
+     */
+    public static boolean isLabelImageAvailable(ProjectImageEntry<?> entry) {
+        return getLabelImageName(entry) != null;
+    }
+
+    /**
+     * Gets the name of a project entry's label image, without reading its ImageData.
+     * A valid record in the active {@link LabelImageIndex} is used when available;
+     * otherwise the image server is inspected and the outcome recorded in the index.
+     *
+     * @param entry The project entry to check
+     * @return The label image name, or null if not found
+     */
+    public static String getLabelImageName(ProjectImageEntry<?> entry) {
+        if (entry == null) {
+            return null;
+        }
+
+        LabelImageIndex index = LabelImageIndex.getActive();
+        LabelImageIndex.Record record = index != null ? index.lookup(entry) : null;
+        if (record != null) {
+            return record.getLabelName();
+        }
+
+        try {
+            String name = findLabelImageName(entry);
+            if (index != null) {
+                index.put(entry, name, -1, -1);
+            }
+            return name;
+        } catch (Exception e) {
+            logger.debug("Could not check {} for a label image: {}", entry.getImageName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the entry's image server and finds the associated image matching a label keyword.
+     *
+     * @return The label image name, or null if the server has no label image
+     * @throws Exception if the image server could not be opened
+     */
+    static String findLabelImageName(ProjectImageEntry<?> entry) throws Exception {
+        try (ImageServer<?> server = openServer(entry)) {
+            if (server == null) {
+                throw new IllegalStateException("No image server available");
+            }
+            Collection<String> associatedImages = server.getAssociatedImageList();
+            if (associatedImages == null) {
+                return null;
+            }
+
+            String[] keywords = getLabelKeywords();
+            for (String imageName : associatedImages) {
+                if (matchesKeyword(imageName, keywords)) {
+                    return imageName;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Retrieves the label image for a project entry without reading its ImageData.
+     * Only the image server is opened (from the entry's server builder), so the object
+     * hierarchy stored in the entry's .qpdata file is never deserialized.
+     * The server is closed before returning.
+     *
+     * @param entry The project entry to retrieve the label from
+     * @return The label image as BufferedImage, or null if not available
+     */
+    public static BufferedImage retrieveLabelImage(ProjectImageEntry<?> entry) {
+        if (entry == null) {
+            logger.warn("Cannot retrieve label image from null project entry");
+            return null;
+        }
+
+        // Entries already known to have no label can be skipped without opening the server
+        LabelImageIndex index = LabelImageIndex.getActive();
+        LabelImageIndex.Record record = index != null ? index.lookup(entry) : null;
+        if (record != null && !record.hasLabel()) {
+            logger.debug("Label index has no label image for: {}", entry.getImageName());
+            return null;
+        }
+
+        try (ImageServer<?> server = openServer(entry)) {
+            if (server == null) {
+                logger.warn("Could not open image server for: {}", entry.getImageName());
+                return null;
+            }
+
+            Collection<String> associatedImages = server.getAssociatedImageList();
+            if (associatedImages == null || associatedImages.isEmpty()) {
+                logger.debug("No associated images available for: {}", entry.getImageName());
+                return null;
+            }
+
+            String[] keywords = getLabelKeywords();
+            for (String imageName : associatedImages) {
+                if (matchesKeyword(imageName, keywords)) {
+                    BufferedImage img = retrieveImageByName(server, imageName);
+                    if (img != null) {
+                        if (index != null) {
+                            index.put(entry, imageName, img.getWidth(), img.getHeight());
+                        }
+                        return img;
+                    }
+                }
+            }
+
+            logger.debug("No label image found for: {}", entry.getImageName());
+            if (index != null) {
+                index.put(entry, null, -1, -1);
+            }
+            return null;
+
+        } catch (Exception e) {
+            logger.error("Error retrieving label image for: {}", entry.getImageName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Opens an image server for a project entry without loading its ImageData.
+     * Uses the entry's server builder, falling back to its first URI.
+     */
+    private static ImageServer<?> openServer(ProjectImageEntry<?> entry) throws Exception {
+        ImageServerBuilder.ServerBuilder<?> builder = entry.getServerBuilder();
+        if (builder != null) {
+            return builder.build();
+        }
+        Collection<URI> uris = entry.getURIs();
+        if (uris == null || uris.isEmpty()) {
+            return null;
+        }
+        return ImageServers.buildServer(uris.iterator().next());
+    }
+
+    /**
+     * Looks up a server in the active label index by its first URI.
+     */
+    private static LabelImageIndex.Record lookupIndex(ImageServer<?> server) {
+        LabelImageIndex index = LabelImageIndex.getActive();
+        if (index == null) {
+            return null;
+        }
+        Collection<URI> uris = server.getURIs();
+        return uris == null || uris.isEmpty() ? null : index.lookup(uris.iterator().next());
+    }
+
+    private static boolean matchesKeyword(String imageName, String[] keywords) {
+        String lowerName = imageName.toLowerCase();
+        for (String keyword : keywords) {
+            if (lowerName.contains(keyword.toLowerCase())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Gets a list of all associated image names for debugging.
      *
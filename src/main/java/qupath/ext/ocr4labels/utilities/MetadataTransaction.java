@@ -0,0 +1,239 @@
+package qupath.ext.ocr4labels.utilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.lib.projects.Project;
+import qupath.lib.projects.ProjectImageEntry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Collects metadata changes across many project entries and commits them with a
+ * single project sync.
+ *
+ * <p>{@link OCRMetadataManager#setMetadata} and friends sync the project after every
+ * call, which rewrites the whole project file each time. A transaction stages puts and
+ * removes instead, validates each distinct key only once, and writes everything in
+ * {@link #commit}. Staging methods may be called from any thread; {@link #commitAsync}
+ * applies the changes on a background thread so the UI stays responsive.</p>
+ *
+ * <pre>
+ * MetadataTransaction tx = OCRMetadataManager.beginTransaction(project);
+ * for (var entry : entries) {
+ *     tx.putAll(entry, metadataFor(entry));
+ * }
+ * tx.commitAsync((done, total) -&gt; updateProgress(done, total));
+ * </pre>
+ */
+public class MetadataTransaction {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetadataTransaction.class);
+
+    private final Project<?> project;
+    private final Map<ProjectImageEntry<?>, EntryChanges> changes = new LinkedHashMap<>();
+    private final Map<String, Boolean> validatedKeys = new HashMap<>();
+    private boolean committed = false;
+
+    /**
+     * Creates a transaction.
+     *
+     * @param project The project to sync on commit, can be null to only update entries in memory
+     */
+    public MetadataTransaction(Project<?> project) {
+        this.project = project;
+    }
+
+    /**
+     * Stages a metadata value for an entry.
+     *
+     * @param entry The image entry
+     * @param key   The metadata key (will be validated)
+     * @param value The value to set
+     * @return true if the change was staged, false if the key is invalid
+     */
+    public synchronized boolean put(ProjectImageEntry<?> entry, String key, String value) {
+        checkOpen();
+        if (entry == null || !isValidKey(key)) {
+            return false;
+        }
+        EntryChanges entryChanges = changes.computeIfAbsent(entry, e -> new EntryChanges());
+        entryChanges.removes.remove(key);
+        entryChanges.puts.put(key, value);
+        return true;
+    }
+
+    /**
+     * Stages several metadata values for an entry. Invalid keys are skipped.
+     *
+     * @param entry       The image entry
+     * @param metadataMap Map of key-value pairs to set
+     * @return Number of values staged
+     */
+    public synchronized int putAll(ProjectImageEntry<?> entry, Map<String, String> metadataMap) {
+        if (entry == null || metadataMap == null) {
+            return 0;
+        }
+        int staged = 0;
+        for (Map.Entry<String, String> kvp : metadataMap.entrySet()) {
+            if (put(entry, kvp.getKey(), kvp.getValue())) {
+                staged++;
+            }
+        }
+        return staged;
+    }
+
+    /**
+     * Stages removal of a metadata key from an entry.
+     *
+     * @param entry The image entry
+     * @param key   The key to remove
+     */
+    public synchronized void remove(ProjectImageEntry<?> entry, String key) {
+        checkOpen();
+        if (entry == null || key == null) {
+            return;
+        }
+        EntryChanges entryChanges = changes.computeIfAbsent(entry, e -> new EntryChanges());
+        entryChanges.puts.remove(key);
+        entryChanges.removes.add(key);
+    }
+
+    /**
+     * Gets the number of entries with staged changes.
+     */
+    public synchronized int getEntryCount() {
+        return changes.size();
+    }
+
+    /**
+     * Checks whether any changes have been staged.
+     */
+    public synchronized boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Applies all staged changes to their entries, then syncs the project once.
+     * The transaction cannot be used after it has been committed.
+     *
+     * @param listener Receives progress as entries are updated, can be null
+     * @return Number of entries whose metadata actually changed
+     * @throws IOException if the project could not be synced; entries have still been
+     *                     updated in memory
+     */
+    public int commit(ProgressListener listener) throws IOException {
+        List<Map.Entry<ProjectImageEntry<?>, EntryChanges>> staged;
+        synchronized (this) {
+            checkOpen();
+            committed = true;
+            staged = new ArrayList<>(changes.entrySet());
+            changes.clear();
+        }
+
+        int total = staged.size();
+        int changed = 0;
+        for (int i = 0; i < total; i++) {
+            ProjectImageEntry<?> entry = staged.get(i).getKey();
+            if (staged.get(i).getValue().applyTo(entry.getMetadata())) {
+                changed++;
+            }
+            if (listener != null) {
+                listener.onProgress(i + 1, total);
+            }
+        }
+
+        if (project != null && changed > 0) {
+            project.syncChanges();
+        }
+        logger.info("Committed metadata for {} entries ({} changed) with a single project sync",
+                total, changed);
+        return changed;
+    }
+
+    /**
+     * Commits on a background thread.
+     *
+     * @param listener Receives progress from the background thread, can be null
+     * @return A future completing with the number of entries changed, or exceptionally
+     *         if the project could not be synced
+     * @see #commit(ProgressListener)
+     */
+    public CompletableFuture<Integer> commitAsync(ProgressListener listener) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(commit(listener));
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to commit metadata", e);
+                future.completeExceptionally(new CompletionException(e));
+            }
+        }, "ocr-metadata-commit");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    private boolean isValidKey(String key) {
+        if (key == null) {
+            return false;
+        }
+        return validatedKeys.computeIfAbsent(key, k -> {
+            MetadataKeyValidator.ValidationResult validation = MetadataKeyValidator.validateKey(k);
+            if (!validation.isValid()) {
+                logger.warn("Skipping invalid metadata key '{}': {}", k, validation.getErrorMessage());
+            }
+            return validation.isValid();
+        });
+    }
+
+    private void checkOpen() {
+        if (committed) {
+            throw new IllegalStateException("Metadata transaction has already been committed");
+        }
+    }
+
+    /**
+     * Receives commit progress.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param completed Number of entries updated so far
+         * @param total     Total number of entries in the transaction
+         */
+        void onProgress(int completed, int total);
+    }
+
+    /**
+     * Staged changes for one entry.
+     */
+    private static class EntryChanges {
+        final Map<String, String> puts = new LinkedHashMap<>();
+        final Set<String> removes = new LinkedHashSet<>();
+
+        /**
+         * @return true if the metadata map was modified
+         */
+        boolean applyTo(Map<String, String> metadata) {
+            boolean modified = false;
+            for (String key : removes) {
+                modified |= metadata.remove(key) != null;
+            }
+            for (Map.Entry<String, String> kvp : puts.entrySet()) {
+                String previous = metadata.put(kvp.getKey(), kvp.getValue());
+                modified |= !Objects.equals(kvp.getValue(), previous);
+            }
+            return modified;
+        }
+    }
+}
@@ -73,8 +73,20 @@ public class OCRMetadataManager {
         return true;
     }
 
+    /**
+     * Starts a transaction for updating metadata on many entries with a single project sync.
+     *
+     * @param project The project to sync on commit, can be null
+     * @return A new transaction
+     */
+    public static MetadataTransaction beginTransaction(Project<?> project) {
+        return new MetadataTransaction(project);
+    }
+
     /**
      * Sets multiple metadata values at once (batch operation).
+     * The project is synced after this entry; use {@link #beginTransaction} when
+     * updating many entries.
      *
      * @param entry       The image entry
      * @param metadataMap Map of key-value pairs to set
@@ -0,0 +1,264 @@
+package qupath.ext.ocr4labels.utilities;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted q-gram index over vocabulary keys, for vocabularies too large for a metric tree.
+ *
+ * <p>Uses the q-gram count filter: two strings within edit distance k share at least
+ * {@code max(|x|, |y|) - q + 1 - k*q} q-grams (counted as a multiset), because each edit
+ * destroys at most q of them. A query counts shared q-grams through the postings lists and
+ * keeps only keys that reach that bound and whose length is within k. Keys too short for
+ * the bound to say anything are included by length alone.</p>
+ *
+ * <p>Postings are plain {@code int[]} arrays of vocabulary positions in ascending order,
+ * with a position repeated once per occurrence of the q-gram in its key. Building is a
+ * single counting pass plus a fill pass, and the index can be saved alongside the
+ * vocabulary by {@link VocabularyCache}.</p>
+ */
+final class QGramIndex implements CandidateIndex {
+
+    /** Default q-gram length; bigrams keep the filter useful for short IDs. */
+    static final int DEFAULT_Q = 2;
+
+    private static final ThreadLocal<int[]> COUNTS = ThreadLocal.withInitial(() -> new int[0]);
+
+    private final int q;
+    private final int size;
+    private final int[] lengths;
+    private final int[][] byLength;
+    private final Map<Long, int[]> postings;
+
+    private QGramIndex(int q, int[] lengths, int[][] byLength, Map<Long, int[]> postings) {
+        this.q = q;
+        this.size = lengths.length;
+        this.lengths = lengths;
+        this.byLength = byLength;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds an index in which {@code keys.get(i)} is the key for vocabulary position i.
+     *
+     * @param keys Vocabulary keys
+     * @param q    q-gram length, from 1 to 4
+     */
+    static QGramIndex build(List<String> keys, int q) {
+        if (q < 1 || q > 4) {
+            throw new IllegalArgumentException("q-gram length must be between 1 and 4");
+        }
+
+        int n = keys.size();
+        int[] lengths = new int[n];
+        Map<Long, int[]> counts = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            String key = keys.get(i);
+            lengths[i] = key.length();
+            for (int p = 0; p + q <= key.length(); p++) {
+                counts.computeIfAbsent(gram(key, p, q), g -> new int[1])[0]++;
+            }
+        }
+
+        Map<Long, int[]> postings = new HashMap<>(counts.size() * 2);
+        for (Map.Entry<Long, int[]> entry : counts.entrySet()) {
+            postings.put(entry.getKey(), new int[entry.getValue()[0]]);
+            entry.getValue()[0] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            String key = keys.get(i);
+            for (int p = 0; p + q <= key.length(); p++) {
+                long g = gram(key, p, q);
+                int[] cursor = counts.get(g);
+                postings.get(g)[cursor[0]++] = i;
+            }
+        }
+
+        return new QGramIndex(q, lengths, groupByLength(lengths), postings);
+    }
+
+    /**
+     * Writes the index so it can be restored with {@link #readFrom}.
+     */
+    void writeTo(VocabularyCache.Output out) throws IOException {
+        out.putInt(q);
+        out.putInt(size);
+        out.putInts(lengths);
+
+        long[] grams = new long[postings.size()];
+        int[] listLengths = new int[grams.length];
+        int total = 0;
+        int g = 0;
+        for (Map.Entry<Long, int[]> entry : postings.entrySet()) {
+            grams[g] = entry.getKey();
+            listLengths[g++] = entry.getValue().length;
+            total += entry.getValue().length;
+        }
+        out.putInt(grams.length);
+        out.putLongs(grams);
+        out.putInts(listLengths);
+        out.putInt(total);
+        for (long gram : grams) {
+            out.putInts(postings.get(gram));
+        }
+    }
+
+    /**
+     * Restores an index written by {@link #writeTo}.
+     */
+    static QGramIndex readFrom(VocabularyCache.Input in) throws IOException {
+        int q = in.getInt();
+        int size = in.getInt();
+        int[] lengths = in.getInts(size);
+
+        int gramCount = in.getInt();
+        long[] grams = in.getLongs(gramCount);
+        int[] listLengths = in.getInts(gramCount);
+        int[] all = in.getInts(in.getInt());
+
+        Map<Long, int[]> postings = new HashMap<>(gramCount * 2);
+        int offset = 0;
+        for (int g = 0; g < gramCount; g++) {
+            postings.put(grams[g], Arrays.copyOfRange(all, offset, offset + listLengths[g]));
+            offset += listLengths[g];
+        }
+        return new QGramIndex(q, lengths, groupByLength(lengths), postings);
+    }
+
+    /**
+     * Groups vocabulary positions by key length, in ascending order within each group.
+     */
+    private static int[][] groupByLength(int[] lengths) {
+        int maxLength = 0;
+        for (int length : lengths) {
+            maxLength = Math.max(maxLength, length);
+        }
+        int[] perLength = new int[maxLength + 1];
+        for (int length : lengths) {
+            perLength[length]++;
+        }
+        int[][] byLength = new int[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++) {
+            byLength[length] = new int[perLength[length]];
+            perLength[length] = 0;
+        }
+        for (int i = 0; i < lengths.length; i++) {
+            byLength[lengths[i]][perLength[lengths[i]]++] = i;
+        }
+        return byLength;
+    }
+
+    @Override
+    public int[] query(String key, int radius) {
+        if (size == 0 || radius < 0) {
+            return new int[0];
+        }
+
+        int length = key.length();
+        int minLength = Math.max(0, length - radius);
+        int maxLength = Math.min(byLength.length - 1, length + radius);
+
+        // Distinct query q-grams with their multiplicities
+        int gramCount = Math.max(0, length - q + 1);
+        long[] grams = new long[gramCount];
+        for (int p = 0; p < gramCount; p++) {
+            grams[p] = gram(key, p, q);
+        }
+        Arrays.sort(grams);
+
+        int[] counts = COUNTS.get();
+        if (counts.length < size) {
+            counts = new int[size];
+            COUNTS.set(counts);
+        }
+        int[] touched = new int[16];
+        int touchedCount = 0;
+
+        for (int start = 0; start < gramCount; ) {
+            int end = start;
+            while (end < gramCount && grams[end] == grams[start]) {
+                end++;
+            }
+            int queryOccurrences = end - start;
+            int[] list = postings.get(grams[start]);
+            start = end;
+            if (list == null) {
+                continue;
+            }
+
+            // Positions repeat once per occurrence; credit at most the query's multiplicity
+            for (int p = 0; p < list.length; ) {
+                int id = list[p];
+                int run = 1;
+                while (p + run < list.length && list[p + run] == id) {
+                    run++;
+                }
+                p += run;
+                int lengthId = lengths[id];
+                if (lengthId < minLength || lengthId > maxLength) {
+                    continue;
+                }
+                if (counts[id] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = id;
+                }
+                counts[id] += Math.min(queryOccurrences, run);
+            }
+        }
+
+        int[] result = new int[16];
+        int resultCount = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            int id = touched[t];
+            int shared = counts[id];
+            counts[id] = 0;
+            int bound = minShared(length, lengths[id], radius);
+            if (bound > 0 && shared >= bound) {
+                if (resultCount == result.length) {
+                    result = Arrays.copyOf(result, resultCount * 2);
+                }
+                result[resultCount++] = id;
+            }
+        }
+
+        // Keys for which the count bound is not positive cannot be filtered by q-grams
+        for (int l = minLength; l <= maxLength; l++) {
+            if (minShared(length, l, radius) <= 0 && byLength[l].length > 0) {
+                if (resultCount + byLength[l].length > result.length) {
+                    result = Arrays.copyOf(result, Math.max(result.length * 2, resultCount + byLength[l].length));
+                }
+                System.arraycopy(byLength[l], 0, result, resultCount, byLength[l].length);
+                resultCount += byLength[l].length;
+            }
+        }
+
+        int[] sorted = Arrays.copyOf(result, resultCount);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int minShared(int length1, int length2, int radius) {
+        return Math.max(length1, length2) - q + 1 - radius * q;
+    }
+
+    /**
+     * Packs the q chars starting at {@code p} into a long (16 bits per char).
+     */
+    private static long gram(String key, int p, int q) {
+        long g = 0;
+        for (int i = 0; i < q; i++) {
+            g = (g << 16) | key.charAt(p + i);
+        }
+        return g;
+    }
+}
@@ -4,8 +4,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 /**
  * Utility class for matching OCR-detected text against a known vocabulary.
@@ -32,9 +42,15 @@ public class TextMatcher {
     private static final Logger logger = LoggerFactory.getLogger(TextMatcher.class);
 
     /**
-     * The list of valid/known values to match against.
+     * The list of valid/known values to match against. Immutable; replaced as a whole
+     * when a new vocabulary is loaded.
      */
-    private final List<String> vocabulary;
+    private volatile VocabularyStore vocabulary = VocabularyStore.EMPTY;
+
+    /**
+     * Size of the buffer a vocabulary file is read through.
+     */
+    private static final int READ_BUFFER_SIZE = 1 << 20;
 
     /**
      * Maximum edit distance to consider a match valid.
@@ -69,6 +85,43 @@ public class TextMatcher {
      */
     private static final Map<CharPair, Double> OCR_CONFUSION_WEIGHTS = new HashMap<>();
 
+    /**
+     * Incremented whenever a confusion weight is added, so indexes built on
+     * confusion classes can tell they are out of date.
+     */
+    private static int confusionVersion = 0;
+
+    /**
+     * Maps each character (lowercased if a letter) to a representative of its confusion
+     * class: characters linked by any confusion weight below 1.0. Built lazily.
+     */
+    private static Map<Character, Character> confusionClasses;
+
+    /**
+     * Primitive copy of {@link #OCR_CONFUSION_WEIGHTS} used by the distance calculation.
+     * Built lazily.
+     */
+    private static ConfusionCosts confusionCosts;
+
+    /**
+     * Vocabulary size above which {@link SearchIndex#AUTO} uses a q-gram index
+     * instead of a BK-tree.
+     */
+    public static final int QGRAM_INDEX_THRESHOLD = 50_000;
+
+    /**
+     * Which prefilter index to use for vocabulary lookups.
+     */
+    private SearchIndex searchIndex = SearchIndex.AUTO;
+
+    /**
+     * Search indexes over the vocabulary, one for standard and one for OCR-weighted
+     * matching, so switching modes does not rebuild either. Each is built on demand and
+     * rebuilt when the vocabulary, the case mode, the index type or, for the weighted
+     * index, the confusion weights change.
+     */
+    private final BuiltIndex[] indexes = new BuiltIndex[2];
+
     static {
         // Initialize OCR confusion weights
         // Cost of 0.3 = very commonly confused (treated as almost the same)
@@ -159,16 +212,18 @@ public class TextMatcher {
     /**
      * Helper to add bidirectional confusion weights.
      */
-    private static void addConfusion(char c1, char c2, double weight) {
+    private static synchronized void addConfusion(char c1, char c2, double weight) {
         OCR_CONFUSION_WEIGHTS.put(new CharPair(c1, c2), weight);
         OCR_CONFUSION_WEIGHTS.put(new CharPair(c2, c1), weight);
+        confusionVersion++;
+        confusionClasses = null;
+        confusionCosts = null;
     }
 
     /**
      * Creates an empty TextMatcher. Load vocabulary before use.
      */
     public TextMatcher() {
-        this.vocabulary = new ArrayList<>();
     }
 
     /**
@@ -177,61 +232,161 @@ public class TextMatcher {
      * @param vocabulary List of valid values to match against
      */
     public TextMatcher(List<String> vocabulary) {
-        this.vocabulary = new ArrayList<>(vocabulary);
+        this.vocabulary = VocabularyStore.of(vocabulary);
+        rebuildIndex(useOCRWeights);
     }
 
     /**
      * Loads vocabulary from a text file.
      * Supports CSV (uses first column), TSV, or plain text (one value per line).
+     * Duplicate values are kept only once, at their first position.
+     *
+     * <p>The file is streamed through a reused buffer into a compact store. The
+     * parsed values and the search index are saved to a sidecar file next to the list
+     * ({@code <name>.vocabidx}); reloading an unchanged file (same size, modification
+     * time and checksum) reads the sidecar instead of parsing and indexing again.</p>
      *
      * @param file The file to load
      * @throws IOException if the file cannot be read
      */
     public void loadVocabularyFromFile(File file) throws IOException {
-        vocabulary.clear();
+        long start = System.currentTimeMillis();
+        VocabularyCache.SourceKey key = VocabularyCache.SourceKey.of(file);
+        File sidecar = VocabularyCache.sidecarFor(file);
+
+        VocabularyCache.Entry cached = VocabularyCache.read(sidecar, key);
+        if (cached != null) {
+            installCachedVocabulary(cached);
+            logger.info("Loaded {} vocabulary entries from: {} (cached, {} ms)",
+                    cached.vocabulary.size(), file.getName(), System.currentTimeMillis() - start);
+            return;
+        }
 
         String filename = file.getName().toLowerCase();
         boolean isCSV = filename.endsWith(".csv");
         boolean isTSV = filename.endsWith(".tsv") || filename.endsWith(".txt");
 
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-
-            String line;
-            boolean firstLine = true;
+        VocabularyStore.Builder builder = new VocabularyStore.Builder(
+                (int) Math.min(Integer.MAX_VALUE / 2, key.size / 16), true);
+        int[] duplicates = {0};
+        boolean[] firstLine = {true};
 
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue;
+        forEachLine(file, rawLine -> {
+            String line = rawLine.trim();
+            if (line.isEmpty()) return;
 
-                // Skip header row if it looks like a header
-                if (firstLine && looksLikeHeader(line)) {
-                    firstLine = false;
-                    logger.debug("Skipping header row: {}", line);
-                    continue;
-                }
-                firstLine = false;
-
-                String value;
-                if (isCSV) {
-                    // Parse CSV - use first column
-                    value = parseCSVFirstColumn(line);
-                } else if (isTSV) {
-                    // Parse TSV - use first column
-                    int tabIndex = line.indexOf('\t');
-                    value = tabIndex > 0 ? line.substring(0, tabIndex).trim() : line;
-                } else {
-                    // Plain text - whole line is the value
-                    value = line;
-                }
+            // Skip header row if it looks like a header
+            if (firstLine[0] && looksLikeHeader(line)) {
+                firstLine[0] = false;
+                logger.debug("Skipping header row: {}", line);
+                return;
+            }
+            firstLine[0] = false;
+
+            String value;
+            if (isCSV) {
+                // Parse CSV - use first column
+                value = parseCSVFirstColumn(line);
+            } else if (isTSV) {
+                // Parse TSV - use first column
+                int tabIndex = line.indexOf('\t');
+                value = tabIndex > 0 ? line.substring(0, tabIndex).trim() : line;
+            } else {
+                // Plain text - whole line is the value
+                value = line;
+            }
 
-                if (!value.isEmpty()) {
-                    vocabulary.add(value);
-                }
+            if (!value.isEmpty() && !builder.add(value)) {
+                duplicates[0]++;
             }
+        });
+
+        VocabularyStore store = builder.build();
+        QGramIndex persistable;
+        boolean builtCaseInsensitive;
+        boolean builtOCRWeights;
+        synchronized (this) {
+            vocabulary = store;
+            BuiltIndex built = rebuildIndex(useOCRWeights);
+            persistable = built.index instanceof QGramIndex ? (QGramIndex) built.index : null;
+            builtCaseInsensitive = built.caseInsensitive;
+            builtOCRWeights = built.ocrWeights;
+        }
+        VocabularyCache.write(sidecar, key, new VocabularyCache.Entry(
+                store, persistable, builtCaseInsensitive, builtOCRWeights, getConfusionSignature()));
+
+        logger.info("Loaded {} vocabulary entries ({} duplicates skipped) from: {} ({} ms)",
+                store.size(), duplicates[0], file.getName(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Uses a vocabulary read from a sidecar, together with its saved index when that
+     * index matches the current settings. Any other index is built on the next
+     * {@link #snapshot(boolean)}, so loading stays cheap.
+     */
+    private synchronized void installCachedVocabulary(VocabularyCache.Entry cached) {
+        vocabulary = cached.vocabulary;
+        indexes[0] = null;
+        indexes[1] = null;
+        boolean wantsQGrams = searchIndex == SearchIndex.QGRAM
+                || (searchIndex == SearchIndex.AUTO && cached.vocabulary.size() > QGRAM_INDEX_THRESHOLD);
+        if (cached.index != null && wantsQGrams
+                && cached.caseInsensitive == caseInsensitive
+                && (!cached.ocrWeights || (cached.confusionSignature == getConfusionSignature() && !hasNegativeWeights()))) {
+            indexes[cached.ocrWeights ? 1 : 0] = new BuiltIndex(cached.index, cached.vocabulary, searchIndex,
+                    caseInsensitive, cached.ocrWeights, getConfusionVersion());
+        }
+    }
+
+    /**
+     * Streams the lines of a UTF-8 file through a reused direct buffer, without holding
+     * the file contents in memory. The file is read rather than memory-mapped so that it
+     * is not left locked on Windows. Lines end at '\n' or '\r', as for
+     * {@link BufferedReader#readLine()}; a "\r\n" pair yields an extra empty line.
+     */
+    private static void forEachLine(File file, Consumer<String> action) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(1 << 16);
+        StringBuilder line = new StringBuilder();
+
+        ByteBuffer bytes = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            boolean last;
+            do {
+                last = channel.read(bytes) < 0;
+                bytes.flip();
+                CoderResult result;
+                do {
+                    result = decoder.decode(bytes, chars, last);
+                    chars.flip();
+                    splitLines(chars, line, action);
+                    chars.clear();
+                } while (result.isOverflow());
+                // Bytes of a character split across reads are decoded with the next read
+                bytes.compact();
+            } while (!last);
+
+            decoder.flush(chars);
+            chars.flip();
+            splitLines(chars, line, action);
         }
+        if (line.length() > 0) {
+            action.accept(line.toString());
+        }
+    }
 
-        logger.info("Loaded {} vocabulary entries from: {}", vocabulary.size(), file.getName());
+    private static void splitLines(CharBuffer chars, StringBuilder line, Consumer<String> action) {
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (c == '\n' || c == '\r') {
+                action.accept(line.toString());
+                line.setLength(0);
+            } else {
+                line.append(c);
+            }
+        }
     }
 
     /**
@@ -273,40 +428,7 @@ public class TextMatcher {
         if (ocrText == null || ocrText.isEmpty() || vocabulary.isEmpty()) {
             return null;
         }
-
-        String normalizedInput = caseInsensitive ? ocrText.toLowerCase() : ocrText;
-
-        MatchResult bestMatch = null;
-        double bestScore = Double.MAX_VALUE;
-
-        for (String candidate : vocabulary) {
-            String normalizedCandidate = caseInsensitive ? candidate.toLowerCase() : candidate;
-
-            // Exact match - return immediately with perfect score
-            if (normalizedInput.equals(normalizedCandidate)) {
-                return new MatchResult(candidate, ocrText, 0.0, 1.0);
-            }
-
-            // Quick length check - if lengths differ too much, skip
-            int lenDiff = Math.abs(normalizedInput.length() - normalizedCandidate.length());
-            if (lenDiff > maxEditDistance) {
-                continue;
-            }
-
-            // Calculate edit distance (weighted or standard)
-            double distance = calculateEditDistance(normalizedInput, normalizedCandidate);
-
-            // Check if this is a valid match within threshold
-            if (distance <= maxEditDistance && distance < bestScore) {
-                double similarity = calculateSimilarity(normalizedInput, normalizedCandidate, distance);
-                if (similarity >= minSimilarity) {
-                    bestScore = distance;
-                    bestMatch = new MatchResult(candidate, ocrText, distance, similarity);
-                }
-            }
-        }
-
-        return bestMatch;
+        return snapshot().findBestMatch(ocrText);
     }
 
     /**
@@ -320,145 +442,203 @@ public class TextMatcher {
         if (ocrText == null || ocrText.isEmpty() || vocabulary.isEmpty()) {
             return Collections.emptyList();
         }
+        return snapshot().findAllMatches(ocrText, maxResults);
+    }
 
-        String normalizedInput = caseInsensitive ? ocrText.toLowerCase() : ocrText;
-        List<MatchResult> matches = new ArrayList<>();
-
-        for (String candidate : vocabulary) {
-            String normalizedCandidate = caseInsensitive ? candidate.toLowerCase() : candidate;
+    /**
+     * Finds the best match for each of many values at once.
+     * See {@link Snapshot#findBestMatches(Collection, ForkJoinPool)}.
+     *
+     * @param values Values to match; duplicates are searched only once
+     * @return Map from each matched value to its best match
+     */
+    public Map<String, MatchResult> findBestMatches(Collection<String> values) {
+        return snapshot().findBestMatches(values, ForkJoinPool.commonPool());
+    }
 
-            // Quick length check
-            int lenDiff = Math.abs(normalizedInput.length() - normalizedCandidate.length());
-            if (lenDiff > maxEditDistance) {
-                continue;
-            }
+    /**
+     * Captures the current vocabulary, search index and settings in an immutable
+     * {@link Snapshot}, building the index first if needed. The snapshot can be queried
+     * from any number of threads and is unaffected by later changes to this matcher.
+     *
+     * @return A snapshot of this matcher
+     */
+    public Snapshot snapshot() {
+        return snapshot(useOCRWeights);
+    }
 
-            double distance = calculateEditDistance(normalizedInput, normalizedCandidate);
+    /**
+     * Captures a snapshot as {@link #snapshot()} does, but for the given weighting mode
+     * instead of this matcher's own, which is left unchanged. Building the index for a
+     * mode can take a while for large vocabularies, so call this off the FX thread.
+     *
+     * @param useOCRWeights Whether the snapshot uses OCR-weighted edit distance
+     * @return A snapshot of this matcher
+     */
+    public synchronized Snapshot snapshot(boolean useOCRWeights) {
+        BuiltIndex built = ensureIndex(useOCRWeights);
+        return new Snapshot(built.vocabulary, built.index, maxEditDistance, minSimilarity,
+                caseInsensitive, useOCRWeights,
+                useOCRWeights ? getConfusionCosts() : null,
+                useOCRWeights ? getConfusionClasses() : null);
+    }
 
-            if (distance <= maxEditDistance) {
-                double similarity = calculateSimilarity(normalizedInput, normalizedCandidate, distance);
-                if (similarity >= minSimilarity) {
-                    matches.add(new MatchResult(candidate, ocrText, distance, similarity));
-                }
-            }
+    /**
+     * Gets the index for a weighting mode, rebuilding it if the vocabulary, case mode,
+     * index type or, for weighted mode, the confusion weights have changed.
+     */
+    private synchronized BuiltIndex ensureIndex(boolean ocrWeights) {
+        BuiltIndex built = indexes[ocrWeights ? 1 : 0];
+        if (built == null || built.vocabulary != vocabulary
+                || built.type != searchIndex
+                || built.caseInsensitive != caseInsensitive
+                || (ocrWeights && built.confusionVersion != getConfusionVersion())) {
+            built = rebuildIndex(ocrWeights);
         }
+        return built;
+    }
 
-        // Sort by distance (best matches first)
-        matches.sort(Comparator.comparingDouble(MatchResult::getEditDistance));
+    /**
+     * Builds the search index for the current vocabulary and settings and a weighting mode.
+     */
+    private synchronized BuiltIndex rebuildIndex(boolean ocrWeights) {
+        CandidateIndex index = null;
+        // Negative weights would break the lower bound used for OCR-weighted mode
+        if (!vocabulary.isEmpty() && searchIndex != SearchIndex.NONE
+                && !(ocrWeights && hasNegativeWeights())) {
+            List<String> keys = new ArrayList<>(vocabulary.size());
+            for (String value : vocabulary) {
+                String normalized = caseInsensitive ? value.toLowerCase() : value;
+                keys.add(ocrWeights ? foldConfusions(normalized) : normalized);
+            }
 
-        // Limit results
-        if (matches.size() > maxResults) {
-            return matches.subList(0, maxResults);
+            boolean useQGrams = searchIndex == SearchIndex.QGRAM
+                    || (searchIndex == SearchIndex.AUTO && keys.size() > QGRAM_INDEX_THRESHOLD);
+            long start = System.currentTimeMillis();
+            index = useQGrams ? QGramIndex.build(keys, QGramIndex.DEFAULT_Q) : VocabularyIndex.build(keys);
+            logger.debug("Built {} vocabulary index for {} entries in {} ms",
+                    useQGrams ? "q-gram" : "BK-tree", keys.size(), System.currentTimeMillis() - start);
         }
-
-        return matches;
+        BuiltIndex built = new BuiltIndex(index, vocabulary, searchIndex, caseInsensitive,
+                ocrWeights, getConfusionVersion());
+        indexes[ocrWeights ? 1 : 0] = built;
+        return built;
     }
 
     /**
-     * Calculates the edit distance between two strings.
-     * Uses weighted Levenshtein if OCR weights are enabled, standard otherwise.
-     *
-     * @param s1 First string (should be pre-normalized if case-insensitive)
-     * @param s2 Second string (should be pre-normalized if case-insensitive)
-     * @return The edit distance (can be fractional if using OCR weights)
+     * A search index and the vocabulary and settings it was built for. A null index
+     * means a full scan.
      */
-    private double calculateEditDistance(String s1, String s2) {
-        int len1 = s1.length();
-        int len2 = s2.length();
-
-        // Use double for weighted distances
-        double[][] dp = new double[len1 + 1][len2 + 1];
-
-        // Initialize first row and column
-        for (int i = 0; i <= len1; i++) {
-            dp[i][0] = i;
-        }
-        for (int j = 0; j <= len2; j++) {
-            dp[0][j] = j;
+    private static final class BuiltIndex {
+        final CandidateIndex index;
+        final VocabularyStore vocabulary;
+        final SearchIndex type;
+        final boolean caseInsensitive;
+        final boolean ocrWeights;
+        final int confusionVersion;
+
+        BuiltIndex(CandidateIndex index, VocabularyStore vocabulary, SearchIndex type,
+                   boolean caseInsensitive, boolean ocrWeights, int confusionVersion) {
+            this.index = index;
+            this.vocabulary = vocabulary;
+            this.type = type;
+            this.caseInsensitive = caseInsensitive;
+            this.ocrWeights = ocrWeights;
+            this.confusionVersion = confusionVersion;
         }
+    }
 
-        // Fill in the rest of the matrix
-        for (int i = 1; i <= len1; i++) {
-            for (int j = 1; j <= len2; j++) {
-                char c1 = s1.charAt(i - 1);
-                char c2 = s2.charAt(j - 1);
-
-                if (c1 == c2) {
-                    // Characters match - no cost
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    // Get substitution cost (weighted or standard)
-                    double subCost = getSubstitutionCost(c1, c2);
-
-                    // Standard edit operations
-                    double delete = dp[i - 1][j] + 1.0;      // Delete from s1
-                    double insert = dp[i][j - 1] + 1.0;      // Insert into s1
-                    double substitute = dp[i - 1][j - 1] + subCost;
+    private static synchronized int getConfusionVersion() {
+        return confusionVersion;
+    }
 
-                    dp[i][j] = Math.min(Math.min(delete, insert), substitute);
-                }
-            }
-        }
+    /**
+     * Content-based fingerprint of the confusion weights, stored with saved indexes
+     * since the version counter does not carry over between sessions.
+     */
+    private static synchronized int getConfusionSignature() {
+        return OCR_CONFUSION_WEIGHTS.hashCode();
+    }
 
-        return dp[len1][len2];
+    private static boolean hasNegativeWeights() {
+        return getConfusionCosts().hasNegative();
     }
 
     /**
-     * Gets the substitution cost for two characters.
-     * When OCR weights are enabled, common OCR confusions have lower cost.
-     *
-     * @param c1 First character
-     * @param c2 Second character
-     * @return The substitution cost (1.0 for standard, lower for OCR confusions)
+     * Replaces each character by the representative of its confusion class.
      */
-    private double getSubstitutionCost(char c1, char c2) {
-        if (c1 == c2) return 0.0;
+    private static String foldConfusions(String text) {
+        return foldConfusions(text, getConfusionClasses());
+    }
 
-        if (!useOCRWeights) {
-            // Standard mode - all substitutions cost 1.0
-            return 1.0;
+    private static String foldConfusions(String text, Map<Character, Character> classes) {
+        char[] chars = new char[text.length()];
+        for (int i = 0; i < chars.length; i++) {
+            char c = text.charAt(i);
+            char normalized = Character.isLetter(c) ? Character.toLowerCase(c) : c;
+            chars[i] = classes.getOrDefault(normalized, normalized);
         }
+        return new String(chars);
+    }
 
-        // OCR-weighted mode - check confusion matrix
-        CharPair pair = new CharPair(c1, c2);
-        Double weight = OCR_CONFUSION_WEIGHTS.get(pair);
-
-        if (weight != null) {
-            return weight;
+    /**
+     * Groups characters connected by a confusion weight below 1.0. Letters are lowercased
+     * first, matching the case-insensitive fallback in {@link ConfusionCosts#cost}.
+     */
+    private static synchronized Map<Character, Character> getConfusionClasses() {
+        if (confusionClasses != null) {
+            return confusionClasses;
         }
-
-        // Check case-insensitive version if not found
-        if (Character.isLetter(c1) && Character.isLetter(c2)) {
-            char lc1 = Character.toLowerCase(c1);
-            char lc2 = Character.toLowerCase(c2);
-            if (lc1 == lc2) {
-                // Same letter, different case - low cost
-                return 0.3;
+        Map<Character, Character> parent = new HashMap<>();
+        for (Map.Entry<CharPair, Double> entry : OCR_CONFUSION_WEIGHTS.entrySet()) {
+            if (entry.getValue() >= 1.0) {
+                continue;
             }
-            // Check lowercase version in matrix
-            pair = new CharPair(lc1, lc2);
-            weight = OCR_CONFUSION_WEIGHTS.get(pair);
-            if (weight != null) {
-                return weight;
+            char a = findRoot(parent, normalizeLetter(entry.getKey().c1));
+            char b = findRoot(parent, normalizeLetter(entry.getKey().c2));
+            if (a != b) {
+                parent.put(a, b);
             }
         }
+        Map<Character, Character> classes = new HashMap<>();
+        for (Character c : parent.keySet()) {
+            classes.put(c, findRoot(parent, c));
+        }
+        confusionClasses = classes;
+        return classes;
+    }
+
+    private static char findRoot(Map<Character, Character> parent, char c) {
+        char root = c;
+        Character next;
+        while ((next = parent.get(root)) != null) {
+            root = next;
+        }
+        return root;
+    }
 
-        // Default substitution cost
-        return 1.0;
+    private static char normalizeLetter(char c) {
+        return Character.isLetter(c) ? Character.toLowerCase(c) : c;
     }
 
     /**
-     * Calculates a similarity score between 0.0 and 1.0.
-     *
-     * @param s1 First string
-     * @param s2 Second string
-     * @param editDistance Pre-calculated edit distance
-     * @return Similarity ratio
+     * Gets the primitive cost table for the current confusion weights, building it if needed.
      */
-    private double calculateSimilarity(String s1, String s2, double editDistance) {
-        int maxLength = Math.max(s1.length(), s2.length());
-        if (maxLength == 0) return 1.0;
-        return 1.0 - (editDistance / maxLength);
+    private static synchronized ConfusionCosts getConfusionCosts() {
+        if (confusionCosts == null) {
+            int n = OCR_CONFUSION_WEIGHTS.size();
+            char[] first = new char[n];
+            char[] second = new char[n];
+            double[] weights = new double[n];
+            int i = 0;
+            for (Map.Entry<CharPair, Double> entry : OCR_CONFUSION_WEIGHTS.entrySet()) {
+                first[i] = entry.getKey().c1;
+                second[i] = entry.getKey().c2;
+                weights[i++] = entry.getValue();
+            }
+            confusionCosts = new ConfusionCosts(first, second, weights);
+        }
+        return confusionCosts;
     }
 
     /**
@@ -469,12 +649,13 @@ public class TextMatcher {
      */
     public Map<String, String> correctAll(Map<String, String> fieldValues) {
         Map<String, String> corrected = new LinkedHashMap<>();
+        Snapshot matcher = snapshot();
 
         for (Map.Entry<String, String> entry : fieldValues.entrySet()) {
             String key = entry.getKey();
             String value = entry.getValue();
 
-            MatchResult match = findBestMatch(value);
+            MatchResult match = matcher.findBestMatch(value);
             if (match != null && match.getEditDistance() > 0) {
                 corrected.put(key, match.getMatchedValue());
                 logger.debug("Corrected '{}' -> '{}' (distance={}, similarity={:.2f})",
@@ -491,7 +672,7 @@ public class TextMatcher {
     // Getters and setters
 
     public List<String> getVocabulary() {
-        return Collections.unmodifiableList(vocabulary);
+        return vocabulary;
     }
 
     public int getVocabularySize() {
@@ -534,8 +715,24 @@ public class TextMatcher {
         this.useOCRWeights = useOCRWeights;
     }
 
-    public void clearVocabulary() {
-        vocabulary.clear();
+    public synchronized void clearVocabulary() {
+        vocabulary = VocabularyStore.EMPTY;
+        indexes[0] = null;
+        indexes[1] = null;
+    }
+
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Sets which index is used to shortlist vocabulary candidates. Results are the
+     * same for every choice; only build time, memory and lookup speed differ.
+     *
+     * @param searchIndex The index type
+     */
+    public void setSearchIndex(SearchIndex searchIndex) {
+        this.searchIndex = Objects.requireNonNull(searchIndex, "Search index cannot be null");
     }
 
     /**
@@ -550,6 +747,287 @@ public class TextMatcher {
         addConfusion(c1, c2, weight);
     }
 
+    /**
+     * Prefilter index used to shortlist vocabulary entries before edit distances are computed.
+     */
+    public enum SearchIndex {
+        /** BK-tree for ordinary vocabularies, q-gram index above {@link TextMatcher#QGRAM_INDEX_THRESHOLD} entries. */
+        AUTO,
+        /** Metric tree; fast lookups, slower to build for very large vocabularies. */
+        BK_TREE,
+        /** Inverted bigram index with count filtering; compact and quick to build. */
+        QGRAM,
+        /** No index; every entry is compared. */
+        NONE
+    }
+
+    /**
+     * Immutable, thread-safe view of a {@link TextMatcher}: the vocabulary, search index,
+     * thresholds, modes and confusion weights in effect when {@link TextMatcher#snapshot()}
+     * was called. Matching through a snapshot gives the same results as the matcher did
+     * at that moment.
+     */
+    public static final class Snapshot {
+
+        /**
+         * Number of unique values below which a batch is matched on one thread.
+         */
+        private static final int SEQUENTIAL_BATCH = 16;
+
+        private final VocabularyStore vocabulary;
+        private final CandidateIndex index;
+        private final int maxEditDistance;
+        private final double minSimilarity;
+        private final boolean caseInsensitive;
+        private final boolean useOCRWeights;
+        private final ConfusionCosts confusionCosts;
+        private final Map<Character, Character> confusionClasses;
+
+        private Snapshot(VocabularyStore vocabulary, CandidateIndex index,
+                         int maxEditDistance, double minSimilarity,
+                         boolean caseInsensitive, boolean useOCRWeights,
+                         ConfusionCosts confusionCosts, Map<Character, Character> confusionClasses) {
+            this.vocabulary = vocabulary;
+            this.index = index;
+            this.maxEditDistance = maxEditDistance;
+            this.minSimilarity = minSimilarity;
+            this.caseInsensitive = caseInsensitive;
+            this.useOCRWeights = useOCRWeights;
+            this.confusionCosts = confusionCosts;
+            this.confusionClasses = confusionClasses;
+        }
+
+        /**
+         * Finds the best matching value from the vocabulary for the given OCR text.
+         *
+         * @param ocrText The OCR-detected text to match
+         * @return MatchResult containing the best match and confidence, or null if no match found
+         */
+        public MatchResult findBestMatch(String ocrText) {
+            if (ocrText == null || ocrText.isEmpty() || vocabulary.isEmpty()) {
+                return null;
+            }
+
+            String normalizedInput = caseInsensitive ? ocrText.toLowerCase() : ocrText;
+
+            MatchResult bestMatch = null;
+            double bestScore = Double.MAX_VALUE;
+
+            // Candidates come back in vocabulary order, so ties resolve as in a full scan
+            for (int i : findCandidates(normalizedInput)) {
+                String candidate = vocabulary.get(i);
+                String normalizedCandidate = caseInsensitive ? candidate.toLowerCase() : candidate;
+
+                // Exact match - return immediately with perfect score
+                if (normalizedInput.equals(normalizedCandidate)) {
+                    return new MatchResult(candidate, ocrText, 0.0, 1.0);
+                }
+
+                // Quick length check - if lengths differ too much, skip
+                int lenDiff = Math.abs(normalizedInput.length() - normalizedCandidate.length());
+                if (lenDiff > maxEditDistance) {
+                    continue;
+                }
+
+                // Calculate edit distance (weighted or standard)
+                double distance = calculateEditDistance(normalizedInput, normalizedCandidate);
+
+                // Check if this is a valid match within threshold
+                if (distance <= maxEditDistance && distance < bestScore) {
+                    double similarity = calculateSimilarity(normalizedInput, normalizedCandidate, distance);
+                    if (similarity >= minSimilarity) {
+                        bestScore = distance;
+                        bestMatch = new MatchResult(candidate, ocrText, distance, similarity);
+                    }
+                }
+            }
+
+            return bestMatch;
+        }
+
+        /**
+         * Finds all matches within the threshold, sorted by score.
+         *
+         * @param ocrText The OCR-detected text to match
+         * @param maxResults Maximum number of results to return
+         * @return List of matches sorted by distance (best first)
+         */
+        public List<MatchResult> findAllMatches(String ocrText, int maxResults) {
+            if (ocrText == null || ocrText.isEmpty() || vocabulary.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            String normalizedInput = caseInsensitive ? ocrText.toLowerCase() : ocrText;
+            List<MatchResult> matches = new ArrayList<>();
+
+            for (int i : findCandidates(normalizedInput)) {
+                String candidate = vocabulary.get(i);
+                String normalizedCandidate = caseInsensitive ? candidate.toLowerCase() : candidate;
+
+                // Quick length check
+                int lenDiff = Math.abs(normalizedInput.length() - normalizedCandidate.length());
+                if (lenDiff > maxEditDistance) {
+                    continue;
+                }
+
+                double distance = calculateEditDistance(normalizedInput, normalizedCandidate);
+
+                if (distance <= maxEditDistance) {
+                    double similarity = calculateSimilarity(normalizedInput, normalizedCandidate, distance);
+                    if (similarity >= minSimilarity) {
+                        matches.add(new MatchResult(candidate, ocrText, distance, similarity));
+                    }
+                }
+            }
+
+            // Sort by distance (best matches first)
+            matches.sort(Comparator.comparingDouble(MatchResult::getEditDistance));
+
+            // Limit results
+            if (matches.size() > maxResults) {
+                return matches.subList(0, maxResults);
+            }
+
+            return matches;
+        }
+
+        /**
+         * Finds the best match for each of many values, such as every field of every
+         * image in a batch.
+         *
+         * <p>Values are deduplicated first, so a stain name or date repeated on thousands
+         * of slides is searched once. The unique values are then split across the given
+         * ForkJoin pool. Null and empty values are ignored.</p>
+         *
+         * @param values Values to match
+         * @param pool   Pool to run the searches on
+         * @return Map from each value that has a match to its best match; values without
+         *         a match are absent
+         */
+        public Map<String, MatchResult> findBestMatches(Collection<String> values, ForkJoinPool pool) {
+            Set<String> unique = new LinkedHashSet<>();
+            for (String value : values) {
+                if (value != null && !value.isEmpty()) {
+                    unique.add(value);
+                }
+            }
+            if (unique.isEmpty() || vocabulary.isEmpty()) {
+                return new HashMap<>();
+            }
+
+            String[] inputs = unique.toArray(new String[0]);
+            MatchResult[] results = new MatchResult[inputs.length];
+            pool.invoke(new MatchTask(inputs, results, 0, inputs.length));
+
+            Map<String, MatchResult> matches = new HashMap<>(inputs.length * 2);
+            for (int i = 0; i < inputs.length; i++) {
+                if (results[i] != null) {
+                    matches.put(inputs[i], results[i]);
+                }
+            }
+            return matches;
+        }
+
+        public int getVocabularySize() {
+            return vocabulary.size();
+        }
+
+        public boolean isUseOCRWeights() {
+            return useOCRWeights;
+        }
+
+        /**
+         * Finds the vocabulary positions that could be within {@link #maxEditDistance} of the
+         * input, in ascending order. Every entry that the distance calculation would accept
+         * is included; the caller still computes the exact distance for each candidate.
+         *
+         * <p>In standard mode the index holds the normalized entries and the query radius is
+         * exactly the maximum edit distance. In OCR-weighted mode the index holds entries with
+         * each character replaced by its confusion class: any substitution cheaper than 1.0 is
+         * free there, and all other operations cost the same or less, so the Levenshtein
+         * distance between folded strings never exceeds the weighted distance.</p>
+         *
+         * @param normalizedInput The input, already normalized for case
+         * @return Candidate vocabulary positions
+         */
+        private int[] findCandidates(String normalizedInput) {
+            if (index == null) {
+                int[] all = new int[vocabulary.size()];
+                for (int i = 0; i < all.length; i++) {
+                    all[i] = i;
+                }
+                return all;
+            }
+            // Exact matches are accepted regardless of the distance limit
+            int radius = Math.max(0, maxEditDistance);
+            return index.query(useOCRWeights
+                    ? foldConfusions(normalizedInput, confusionClasses) : normalizedInput, radius);
+        }
+
+        /**
+         * Calculates the edit distance between two strings.
+         * Uses weighted Levenshtein if OCR weights are enabled, standard otherwise.
+         *
+         * <p>In OCR-weighted mode the result is only exact up to {@link #maxEditDistance};
+         * larger distances are reported as some value above it, which every caller rejects.</p>
+         *
+         * @param s1 First string (should be pre-normalized if case-insensitive)
+         * @param s2 Second string (should be pre-normalized if case-insensitive)
+         * @return The edit distance (can be fractional if using OCR weights)
+         */
+        private double calculateEditDistance(String s1, String s2) {
+            if (!useOCRWeights) {
+                // Standard mode - all substitutions cost 1.0
+                return EditDistance.levenshtein(s1, s2);
+            }
+            return EditDistance.weighted(s1, s2, confusionCosts, maxEditDistance);
+        }
+
+        /**
+         * Calculates a similarity score between 0.0 and 1.0.
+         *
+         * @param s1 First string
+         * @param s2 Second string
+         * @param editDistance Pre-calculated edit distance
+         * @return Similarity ratio
+         */
+        private double calculateSimilarity(String s1, String s2, double editDistance) {
+            int maxLength = Math.max(s1.length(), s2.length());
+            if (maxLength == 0) return 1.0;
+            return 1.0 - (editDistance / maxLength);
+        }
+
+        /**
+         * Matches a range of unique inputs, splitting it in half until it is small.
+         */
+        private final class MatchTask extends RecursiveAction {
+            private final String[] inputs;
+            private final MatchResult[] results;
+            private final int from;
+            private final int to;
+
+            MatchTask(String[] inputs, MatchResult[] results, int from, int to) {
+                this.inputs = inputs;
+                this.results = results;
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= SEQUENTIAL_BATCH) {
+                    for (int i = from; i < to; i++) {
+                        results[i] = findBestMatch(inputs[i]);
+                    }
+                    return;
+                }
+                int middle = (from + to) >>> 1;
+                invokeAll(new MatchTask(inputs, results, from, middle),
+                        new MatchTask(inputs, results, middle, to));
+            }
+        }
+    }
+
     /**
      * Result of a vocabulary match operation.
      */
@@ -0,0 +1,356 @@
+package qupath.ext.ocr4labels.utilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Sidecar file holding a parsed vocabulary and its search index.
+ *
+ * <p>The sidecar sits next to the source list ({@code <name>.vocabidx}) and is keyed by
+ * the source file's size, modification time and CRC32C checksum; any mismatch means it is
+ * ignored and rewritten. Arrays are written and read in bulk through a reused NIO buffer,
+ * so reloading a large list costs little more than copying its arrays. Files are read
+ * rather than memory-mapped, since a mapping keeps the file locked on Windows until it
+ * is garbage collected, and the sidecar could then not be replaced.</p>
+ */
+final class VocabularyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VocabularyCache.class);
+
+    static final String EXTENSION = ".vocabidx";
+
+    private static final int MAGIC = 0x4F435256; // "OCRV"
+    private static final int FORMAT_VERSION = 1;
+    private static final byte NO_INDEX = 0;
+    private static final byte QGRAM_INDEX = 1;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private VocabularyCache() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Identifies one version of a source file.
+     */
+    static final class SourceKey {
+        final long size;
+        final long modified;
+        final long checksum;
+
+        private SourceKey(long size, long modified, long checksum) {
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Computes the key for a file, checksumming it through a reused direct buffer.
+         */
+        static SourceKey of(File file) throws IOException {
+            CRC32C crc = new CRC32C();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                while (channel.read(buffer) >= 0) {
+                    buffer.flip();
+                    crc.update(buffer);
+                    buffer.clear();
+                }
+                return new SourceKey(size, file.lastModified(), crc.getValue());
+            }
+        }
+
+        private boolean matches(long size, long modified, long checksum) {
+            return this.size == size && this.modified == modified && this.checksum == checksum;
+        }
+    }
+
+    /**
+     * Contents of a sidecar file.
+     */
+    static final class Entry {
+        final VocabularyStore vocabulary;
+        final QGramIndex index;
+        final boolean caseInsensitive;
+        final boolean ocrWeights;
+        final int confusionSignature;
+
+        Entry(VocabularyStore vocabulary, QGramIndex index,
+              boolean caseInsensitive, boolean ocrWeights, int confusionSignature) {
+            this.vocabulary = vocabulary;
+            this.index = index;
+            this.caseInsensitive = caseInsensitive;
+            this.ocrWeights = ocrWeights;
+            this.confusionSignature = confusionSignature;
+        }
+    }
+
+    /**
+     * Gets the sidecar location for a source file.
+     */
+    static File sidecarFor(File source) {
+        return new File(source.getPath() + EXTENSION);
+    }
+
+    /**
+     * Reads a sidecar if it exists and matches the source key.
+     *
+     * @return The cached contents, or null if there is no valid sidecar
+     */
+    static Entry read(File sidecar, SourceKey key) {
+        if (!sidecar.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sidecar.toPath(), StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION
+                    || !key.matches(in.getLong(), in.getLong(), in.getLong())) {
+                logger.debug("Vocabulary sidecar is out of date: {}", sidecar);
+                return null;
+            }
+
+            int count = in.getInt();
+            char[] chars = in.getChars(in.getInt());
+            int[] offsets = in.getInts(count + 1);
+            VocabularyStore vocabulary = new VocabularyStore(chars, offsets);
+
+            QGramIndex index = null;
+            boolean caseInsensitive = false;
+            boolean ocrWeights = false;
+            int confusionSignature = 0;
+            if (in.getByte() == QGRAM_INDEX) {
+                caseInsensitive = in.getByte() != 0;
+                ocrWeights = in.getByte() != 0;
+                confusionSignature = in.getInt();
+                index = QGramIndex.readFrom(in);
+            }
+            return new Entry(vocabulary, index, caseInsensitive, ocrWeights, confusionSignature);
+
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not read vocabulary sidecar {}: {}", sidecar, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a sidecar, replacing any existing one. Failures (for example, a read-only
+     * folder) are logged and otherwise ignored, since the sidecar is only a cache.
+     */
+    static void write(File sidecar, SourceKey key, Entry entry) {
+        File tmp = new File(sidecar.getPath() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.putInt(FORMAT_VERSION);
+            out.putLong(key.size);
+            out.putLong(key.modified);
+            out.putLong(key.checksum);
+
+            VocabularyStore vocabulary = entry.vocabulary;
+            out.putInt(vocabulary.size());
+            out.putInt(vocabulary.chars().length);
+            out.putChars(vocabulary.chars());
+            out.putInts(vocabulary.offsets());
+
+            if (entry.index != null) {
+                out.putByte(QGRAM_INDEX);
+                out.putByte((byte) (entry.caseInsensitive ? 1 : 0));
+                out.putByte((byte) (entry.ocrWeights ? 1 : 0));
+                out.putInt(entry.confusionSignature);
+                entry.index.writeTo(out);
+            } else {
+                out.putByte(NO_INDEX);
+            }
+            out.flush();
+        } catch (IOException e) {
+            logger.debug("Could not write vocabulary sidecar {}: {}", sidecar, e.getMessage());
+            tmp.delete();
+            return;
+        }
+
+        try {
+            Files.move(tmp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            logger.debug("Wrote vocabulary sidecar {}", sidecar);
+        } catch (IOException e) {
+            logger.warn("Could not replace vocabulary sidecar {}: {}", sidecar, e.getMessage());
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Buffered writer of primitives and primitive arrays to a channel.
+     */
+    static final class Output {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(byte value) throws IOException {
+            ensure(1);
+            buffer.put(value);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putInts(int[] values) throws IOException {
+            int written = 0;
+            while (written < values.length) {
+                ensure(Integer.BYTES);
+                int n = Math.min(values.length - written, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, written, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                written += n;
+            }
+        }
+
+        void putLongs(long[] values) throws IOException {
+            int written = 0;
+            while (written < values.length) {
+                ensure(Long.BYTES);
+                int n = Math.min(values.length - written, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().put(values, written, n);
+                buffer.position(buffer.position() + n * Long.BYTES);
+                written += n;
+            }
+        }
+
+        void putChars(char[] values) throws IOException {
+            int written = 0;
+            while (written < values.length) {
+                ensure(Character.BYTES);
+                int n = Math.min(values.length - written, buffer.remaining() / Character.BYTES);
+                buffer.asCharBuffer().put(values, written, n);
+                buffer.position(buffer.position() + n * Character.BYTES);
+                written += n;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Buffered reader of primitives and primitive arrays from a channel.
+     */
+    static final class Input {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        private Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        byte getByte() throws IOException {
+            ensure(1);
+            return buffer.get();
+        }
+
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        long getLong() throws IOException {
+            ensure(Long.BYTES);
+            return buffer.getLong();
+        }
+
+        int[] getInts(int count) throws IOException {
+            int[] values = new int[checkCount(count, Integer.BYTES)];
+            int read = 0;
+            while (read < count) {
+                ensure(Integer.BYTES);
+                int n = Math.min(count - read, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().get(values, read, n);
+                buffer.position(buffer.position() + n * Integer.BYTES);
+                read += n;
+            }
+            return values;
+        }
+
+        long[] getLongs(int count) throws IOException {
+            long[] values = new long[checkCount(count, Long.BYTES)];
+            int read = 0;
+            while (read < count) {
+                ensure(Long.BYTES);
+                int n = Math.min(count - read, buffer.remaining() / Long.BYTES);
+                buffer.asLongBuffer().get(values, read, n);
+                buffer.position(buffer.position() + n * Long.BYTES);
+                read += n;
+            }
+            return values;
+        }
+
+        char[] getChars(int count) throws IOException {
+            char[] values = new char[checkCount(count, Character.BYTES)];
+            int read = 0;
+            while (read < count) {
+                ensure(Character.BYTES);
+                int n = Math.min(count - read, buffer.remaining() / Character.BYTES);
+                buffer.asCharBuffer().get(values, read, n);
+                buffer.position(buffer.position() + n * Character.BYTES);
+                read += n;
+            }
+            return values;
+        }
+
+        /**
+         * Checks that an array length read from the file fits in what is left of it, so a
+         * corrupt sidecar cannot make us allocate a huge array.
+         */
+        private int checkCount(int count, int bytes) throws IOException {
+            if (count < 0 || (long) count * bytes > buffer.remaining() + channel.size() - channel.position()) {
+                throw new IOException("Invalid array length " + count);
+            }
+            return count;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException();
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
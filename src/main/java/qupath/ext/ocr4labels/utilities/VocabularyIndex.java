@@ -0,0 +1,141 @@
+package qupath.ext.ocr4labels.utilities;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * BK-tree over vocabulary keys using the standard Levenshtein distance.
+ *
+ * <p>Each node holds one distinct key and the vocabulary positions that share it. A query
+ * only descends into children whose edge distance lies within {@code radius} of the
+ * query's distance to the node (triangle inequality), so most of the vocabulary is never
+ * compared. Query results are vocabulary positions in ascending order, which lets callers
+ * evaluate candidates in the same order as a linear scan.</p>
+ */
+final class VocabularyIndex implements CandidateIndex {
+
+    private final Node root;
+    private final int size;
+
+    private VocabularyIndex(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Builds an index in which {@code keys.get(i)} is the key for vocabulary position i.
+     */
+    static VocabularyIndex build(List<String> keys) {
+        Node root = null;
+        for (int i = 0; i < keys.size(); i++) {
+            String key = keys.get(i);
+            if (root == null) {
+                root = new Node(key, i);
+                continue;
+            }
+            Node node = root;
+            while (true) {
+                int distance = EditDistance.levenshtein(key, node.key);
+                if (distance == 0) {
+                    node.addIndex(i);
+                    break;
+                }
+                Node child = node.getChild(distance);
+                if (child == null) {
+                    node.addChild(distance, new Node(key, i));
+                    break;
+                }
+                node = child;
+            }
+        }
+        return new VocabularyIndex(root, keys.size());
+    }
+
+    /**
+     * Finds all vocabulary positions whose key is within {@code radius} of {@code key}.
+     *
+     * @return Matching positions in ascending order
+     */
+    @Override
+    public int[] query(String key, int radius) {
+        if (root == null || radius < 0) {
+            return new int[0];
+        }
+
+        int[] found = new int[16];
+        int count = 0;
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = EditDistance.levenshtein(key, node.key);
+            if (distance <= radius) {
+                if (count + node.indexCount > found.length) {
+                    found = Arrays.copyOf(found, Math.max(found.length * 2, count + node.indexCount));
+                }
+                System.arraycopy(node.indices, 0, found, count, node.indexCount);
+                count += node.indexCount;
+            }
+            for (int c = 0; c < node.childCount; c++) {
+                int edge = node.childDistances[c];
+                if (edge >= distance - radius && edge <= distance + radius) {
+                    pending.push(node.children[c]);
+                }
+            }
+        }
+
+        int[] result = Arrays.copyOf(found, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static final class Node {
+        final String key;
+        int[] indices = new int[1];
+        int indexCount;
+        int[] childDistances;
+        Node[] children;
+        int childCount;
+
+        Node(String key, int index) {
+            this.key = key;
+            this.indices[0] = index;
+            this.indexCount = 1;
+        }
+
+        void addIndex(int index) {
+            if (indexCount == indices.length) {
+                indices = Arrays.copyOf(indices, indexCount * 2);
+            }
+            indices[indexCount++] = index;
+        }
+
+        Node getChild(int distance) {
+            for (int c = 0; c < childCount; c++) {
+                if (childDistances[c] == distance) {
+                    return children[c];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (children == null) {
+                childDistances = new int[4];
+                children = new Node[4];
+            } else if (childCount == children.length) {
+                childDistances = Arrays.copyOf(childDistances, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            childDistances[childCount] = distance;
+            children[childCount++] = child;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package qupath.ext.ocr4labels.utilities;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, compact list of vocabulary values.
+ *
+ * <p>All values are stored back to back in one {@code char[]} arena, with an
+ * {@code int[]} of start offsets, instead of one String object per value. For
+ * millions of short IDs this roughly halves memory use and keeps the data in two
+ * arrays that can be written to and read from disk in bulk. {@link #get} creates
+ * a String on demand.</p>
+ */
+final class VocabularyStore extends AbstractList<String> implements RandomAccess {
+
+    static final VocabularyStore EMPTY = new VocabularyStore(new char[0], new int[]{0});
+
+    private final char[] chars;
+    private final int[] offsets;
+
+    /**
+     * @param chars   Concatenated values
+     * @param offsets Start offset of each value, followed by the total length
+     */
+    VocabularyStore(char[] chars, int[] offsets) {
+        this.chars = chars;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Copies a collection of values, keeping duplicates and order.
+     */
+    static VocabularyStore of(Collection<String> values) {
+        Builder builder = new Builder(values.size(), false);
+        for (String value : values) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public String get(int index) {
+        return new String(chars, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+
+    @Override
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    char[] chars() {
+        return chars;
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Accumulates values into an arena, optionally skipping exact duplicates.
+     * Duplicates are found with an open-addressing table of value positions,
+     * so no String is retained per value.
+     */
+    static final class Builder {
+        private final boolean deduplicate;
+        private char[] chars;
+        private int charCount;
+        private int[] offsets;
+        private int count;
+        private int[] table;
+
+        Builder(int expectedValues, boolean deduplicate) {
+            this.deduplicate = deduplicate;
+            int capacity = Math.max(16, expectedValues);
+            this.chars = new char[capacity * 8];
+            this.offsets = new int[capacity + 1];
+            if (deduplicate) {
+                this.table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+                Arrays.fill(table, -1);
+            }
+        }
+
+        /**
+         * Adds a value.
+         *
+         * @return false if deduplication is enabled and the value was already added
+         */
+        boolean add(CharSequence value) {
+            int length = value.length();
+            if (deduplicate) {
+                int hash = hash(value);
+                int mask = table.length - 1;
+                int slot = hash & mask;
+                while (table[slot] >= 0) {
+                    if (equalsAt(table[slot], value)) {
+                        return false;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = count;
+            }
+
+            if (charCount + length > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + length));
+            }
+            for (int i = 0; i < length; i++) {
+                chars[charCount + i] = value.charAt(i);
+            }
+            if (count + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[count] = charCount;
+            charCount += length;
+            count++;
+            offsets[count] = charCount;
+
+            if (deduplicate && count * 2 > table.length) {
+                rehash();
+            }
+            return true;
+        }
+
+        int size() {
+            return count;
+        }
+
+        VocabularyStore build() {
+            return new VocabularyStore(Arrays.copyOf(chars, charCount), Arrays.copyOf(offsets, count + 1));
+        }
+
+        private boolean equalsAt(int index, CharSequence value) {
+            int start = offsets[index];
+            int length = offsets[index + 1] - start;
+            if (length != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (chars[start + i] != value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rehash() {
+            int[] larger = new int[table.length * 2];
+            Arrays.fill(larger, -1);
+            int mask = larger.length - 1;
+            for (int index = 0; index < count; index++) {
+                int slot = hashAt(index) & mask;
+                while (larger[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                larger[slot] = index;
+            }
+            table = larger;
+        }
+
+        private int hashAt(int index) {
+            int h = 0;
+            for (int i = offsets[index]; i < offsets[index + 1]; i++) {
+                h = 31 * h + chars[i];
+            }
+            return spread(h);
+        }
+
+        private static int hash(CharSequence value) {
+            int h = 0;
+            for (int i = 0; i < value.length(); i++) {
+                h = 31 * h + value.charAt(i);
+            }
+            return spread(h);
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,513 @@
+package qupath.ext.ocr4labels.utilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Multi-column vocabulary, such as a LIMS export of case ID, block, stain and date,
+ * used to correct all fields of a label together.
+ *
+ * <p>Each column gets its own {@link TextMatcher} over the column's distinct values, plus
+ * a map from each value to the rows that contain it. A label is resolved by joint
+ * matching: every mapped field produces a candidate set of rows (the rows holding any
+ * value within the matcher's thresholds, with that value's distance), and the sets are
+ * hash-joined starting from the smallest, so the intersection usually becomes small
+ * after the first two fields. The surviving row with the lowest combined distance wins.
+ * Because a row must agree on every mapped field, a value that is close to the wrong
+ * entry in one column is still corrected to the row the other fields point to.</p>
+ *
+ * <p>Columns are mapped to metadata fields by header name, ignoring case. Matching goes
+ * through an immutable {@link Snapshot}, so one table can serve matches with and without
+ * OCR weights from several threads at once.</p>
+ */
+public class VocabularyTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(VocabularyTable.class);
+
+    /**
+     * Minimum number of mapped, non-empty fields for a label to be matched jointly.
+     * With fewer, there is nothing to join and per-field matching should be used instead.
+     */
+    public static final int MIN_JOINT_FIELDS = 2;
+
+    private final List<String> columnNames;
+    private final Map<String, Column> columnsByName;
+    private final int rowCount;
+
+    private VocabularyTable(List<String> columnNames, List<String[]> rows) {
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+        this.rowCount = rows.size();
+        this.columnsByName = new LinkedHashMap<>();
+        for (int c = 0; c < columnNames.size(); c++) {
+            columnsByName.put(normalizeName(columnNames.get(c)), new Column(c, rows));
+        }
+    }
+
+    /**
+     * Loads a table from a CSV or TSV file. The first non-empty line must be a header
+     * naming the columns. Files ending in .csv are split on commas (with quoted values);
+     * all others on tabs.
+     *
+     * @param file The file to load
+     * @return The table
+     * @throws IOException if the file cannot be read or has no header
+     */
+    public static VocabularyTable load(File file) throws IOException {
+        boolean isCSV = file.getName().toLowerCase().endsWith(".csv");
+        List<String> header = null;
+        List<String[]> rows = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+
+                List<String> cells = splitLine(line, isCSV);
+                if (header == null) {
+                    header = new ArrayList<>();
+                    for (String cell : cells) {
+                        header.add(cell.trim());
+                    }
+                    continue;
+                }
+
+                String[] row = new String[header.size()];
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = c < cells.size() ? cells.get(c).trim() : "";
+                }
+                rows.add(row);
+            }
+        }
+
+        if (header == null) {
+            throw new IOException("Vocabulary table has no header row: " + file.getName());
+        }
+
+        VocabularyTable table = new VocabularyTable(header, rows);
+        logger.info("Loaded vocabulary table with {} rows and columns {} from: {}",
+                table.rowCount, header, file.getName());
+        return table;
+    }
+
+    /**
+     * Reads only the column names from the header of a CSV or TSV file, without
+     * loading or indexing the rows, so callers can check cheaply whether a table
+     * would map enough fields to be worth building.
+     *
+     * @param file The file to read
+     * @return The column names, trimmed
+     * @throws IOException if the file cannot be read or has no header
+     */
+    public static List<String> readHeader(File file) throws IOException {
+        boolean isCSV = file.getName().toLowerCase().endsWith(".csv");
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+                List<String> header = new ArrayList<>();
+                for (String cell : splitLine(line, isCSV)) {
+                    header.add(cell.trim());
+                }
+                return header;
+            }
+        }
+        throw new IOException("Vocabulary table has no header row: " + file.getName());
+    }
+
+    /**
+     * Counts how many of the given field names match one of the column names, ignoring case.
+     */
+    public static int countMappedColumns(List<String> columnNames, Collection<String> names) {
+        Set<String> columns = new HashSet<>();
+        for (String column : columnNames) {
+            columns.add(normalizeName(column));
+        }
+        int count = 0;
+        for (String name : names) {
+            if (name != null && columns.contains(normalizeName(name))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<String> splitLine(String line, boolean isCSV) {
+        return isCSV ? parseCSVLine(line) : Arrays.asList(line.split("\t", -1));
+    }
+
+    /**
+     * Splits a CSV line into cells. Quoted cells may contain commas, and a doubled
+     * quote inside a quoted cell is a literal quote.
+     */
+    static List<String> parseCSVLine(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    /**
+     * Finds the row that best agrees with all mapped fields of one label, using plain
+     * edit distance.
+     *
+     * @see Snapshot#matchRow(Map)
+     */
+    public RowMatch matchRow(Map<String, String> fields) {
+        return snapshot(false).matchRow(fields);
+    }
+
+    /**
+     * Finds the best row for each of many labels, using plain edit distance.
+     *
+     * @see Snapshot#matchRows(List, ForkJoinPool)
+     */
+    public List<RowMatch> matchRows(List<Map<String, String>> labels, ForkJoinPool pool) {
+        return snapshot(false).matchRows(labels, pool);
+    }
+
+    /**
+     * Captures the column matchers in an immutable {@link Snapshot}, building their
+     * indexes first if needed, so call this off the FX thread. The table itself is not
+     * changed, so snapshots with and without OCR weights can be taken and used at the
+     * same time.
+     *
+     * @param useOCRWeights Whether fields are compared with OCR-weighted edit distance
+     * @return A snapshot of this table
+     */
+    public Snapshot snapshot(boolean useOCRWeights) {
+        Map<String, TextMatcher.Snapshot> snapshots = new HashMap<>();
+        for (Map.Entry<String, Column> entry : columnsByName.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().matcher.snapshot(useOCRWeights));
+        }
+        return new Snapshot(snapshots);
+    }
+
+    /**
+     * Checks whether a metadata field maps to a column of this table.
+     */
+    public boolean hasColumn(String name) {
+        return name != null && columnsByName.containsKey(normalizeName(name));
+    }
+
+    /**
+     * Counts how many of the given field names map to columns of this table.
+     */
+    public int countMappedColumns(Collection<String> names) {
+        int count = 0;
+        for (String name : names) {
+            if (hasColumn(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Sets the maximum edit distance accepted for each field in later snapshots.
+     */
+    public void setMaxEditDistance(int maxEditDistance) {
+        for (Column column : columnsByName.values()) {
+            column.matcher.setMaxEditDistance(maxEditDistance);
+        }
+    }
+
+    /**
+     * Sets the minimum similarity accepted for each field in later snapshots.
+     */
+    public void setMinSimilarity(double minSimilarity) {
+        for (Column column : columnsByName.values()) {
+            column.matcher.setMinSimilarity(minSimilarity);
+        }
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    private static String normalizeName(String name) {
+        return name.trim().toLowerCase();
+    }
+
+    /**
+     * One column: its values by row, a matcher over its distinct values, and the rows
+     * holding each distinct value.
+     */
+    private static final class Column {
+        final String[] values;
+        final Map<String, int[]> rowsByValue;
+        final TextMatcher matcher;
+
+        Column(int index, List<String[]> rows) {
+            values = new String[rows.size()];
+            Map<String, List<Integer>> rowLists = new LinkedHashMap<>();
+            for (int r = 0; r < values.length; r++) {
+                values[r] = rows.get(r)[index];
+                if (!values[r].isEmpty()) {
+                    rowLists.computeIfAbsent(values[r], v -> new ArrayList<>()).add(r);
+                }
+            }
+
+            rowsByValue = new HashMap<>(rowLists.size() * 2);
+            for (Map.Entry<String, List<Integer>> entry : rowLists.entrySet()) {
+                rowsByValue.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+            }
+            matcher = new TextMatcher(new ArrayList<>(rowLists.keySet()));
+        }
+    }
+
+    /**
+     * Immutable, thread-safe view of a {@link VocabularyTable}: a snapshot of every column
+     * matcher, with the thresholds and weighting in effect when
+     * {@link VocabularyTable#snapshot(boolean)} was called.
+     */
+    public final class Snapshot {
+        private final Map<String, TextMatcher.Snapshot> snapshots;
+
+        private Snapshot(Map<String, TextMatcher.Snapshot> snapshots) {
+            this.snapshots = snapshots;
+        }
+
+        /**
+         * Finds the row that best agrees with all mapped fields of one label.
+         *
+         * @param fields Metadata field names and OCR values; fields without a matching
+         *               column, and empty values, are ignored
+         * @return The best row, or null if fewer than {@link VocabularyTable#MIN_JOINT_FIELDS} fields are
+         *         mapped or no row agrees with all of them
+         */
+        public RowMatch matchRow(Map<String, String> fields) {
+            return new Matching(snapshots).matchRow(fields);
+        }
+
+        /**
+         * Finds the best row for each of many labels. Identical labels are matched once,
+         * candidate sets are shared between labels with the same value in a column, and
+         * distinct labels are matched in parallel on the given pool.
+         *
+         * @param labels Field maps, one per label
+         * @param pool   Pool to run the matching on
+         * @return The best row for each label, in the same order; null where there is none
+         */
+        public List<RowMatch> matchRows(List<Map<String, String>> labels, ForkJoinPool pool) {
+            Matching matching = new Matching(snapshots);
+            List<Map<String, String>> unique = new ArrayList<>(new LinkedHashSet<>(labels));
+            Map<Map<String, String>, RowMatch> results = new ConcurrentHashMap<>();
+            pool.submit(() -> unique.parallelStream().forEach(label -> {
+                RowMatch match = matching.matchRow(label);
+                if (match != null) {
+                    results.put(label, match);
+                }
+            })).join();
+
+            List<RowMatch> matches = new ArrayList<>(labels.size());
+            for (Map<String, String> label : labels) {
+                matches.add(results.get(label));
+            }
+            return matches;
+        }
+
+        /**
+         * Counts how many of the given field names map to columns of the table.
+         */
+        public int countMappedColumns(Collection<String> names) {
+            return VocabularyTable.this.countMappedColumns(names);
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public int getColumnCount() {
+            return columnNames.size();
+        }
+    }
+
+    /**
+     * Matching state for one call: the column snapshots to match against, and the
+     * candidate sets already computed for each column value.
+     */
+    private final class Matching {
+        private final Map<String, TextMatcher.Snapshot> snapshots;
+        private final Map<String, Map<String, Map<Integer, Double>>> candidates = new HashMap<>();
+
+        Matching(Map<String, TextMatcher.Snapshot> snapshots) {
+            this.snapshots = snapshots;
+            for (String column : columnsByName.keySet()) {
+                candidates.put(column, new ConcurrentHashMap<>());
+            }
+        }
+
+        RowMatch matchRow(Map<String, String> fields) {
+            // Candidate rows for each mapped field, each with that field's distance
+            List<String> keys = new ArrayList<>();
+            List<Map<Integer, Double>> sets = new ArrayList<>();
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                String column = field.getKey() != null ? normalizeName(field.getKey()) : null;
+                String value = field.getValue();
+                if (column == null || !columnsByName.containsKey(column) || value == null || value.isEmpty()) {
+                    continue;
+                }
+                keys.add(field.getKey());
+                sets.add(candidates.get(column).computeIfAbsent(value, v -> findCandidateRows(column, v)));
+            }
+            if (sets.size() < MIN_JOINT_FIELDS) {
+                return null;
+            }
+
+            // Hash join, smallest candidate set first so the intersection shrinks quickly
+            Integer[] order = new Integer[sets.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingInt(i -> sets.get(i).size()));
+
+            Map<Integer, Double> joined = new HashMap<>(sets.get(order[0]));
+            for (int k = 1; k < order.length && !joined.isEmpty(); k++) {
+                Map<Integer, Double> next = sets.get(order[k]);
+                Iterator<Map.Entry<Integer, Double>> iterator = joined.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Integer, Double> entry = iterator.next();
+                    Double distance = next.get(entry.getKey());
+                    if (distance == null) {
+                        iterator.remove();
+                    } else {
+                        entry.setValue(entry.getValue() + distance);
+                    }
+                }
+            }
+            if (joined.isEmpty()) {
+                return null;
+            }
+
+            // Lowest combined distance wins; ties go to the earlier row
+            int bestRow = -1;
+            double bestDistance = Double.MAX_VALUE;
+            for (Map.Entry<Integer, Double> entry : joined.entrySet()) {
+                int row = entry.getKey();
+                double distance = entry.getValue();
+                if (distance < bestDistance || (distance == bestDistance && row < bestRow)) {
+                    bestRow = row;
+                    bestDistance = distance;
+                }
+            }
+
+            Map<String, String> corrections = new LinkedHashMap<>();
+            for (String key : keys) {
+                corrections.put(key, columnsByName.get(normalizeName(key)).values[bestRow]);
+            }
+            Map<String, String> rowValues = new LinkedHashMap<>();
+            for (int c = 0; c < columnNames.size(); c++) {
+                rowValues.put(columnNames.get(c), columnsByName.get(normalizeName(columnNames.get(c))).values[bestRow]);
+            }
+            return new RowMatch(bestRow, rowValues, corrections, bestDistance);
+        }
+
+        private Map<Integer, Double> findCandidateRows(String column, String value) {
+            Column data = columnsByName.get(column);
+            Map<Integer, Double> rows = new HashMap<>();
+            for (TextMatcher.MatchResult match : snapshots.get(column).findAllMatches(value, Integer.MAX_VALUE)) {
+                for (int row : data.rowsByValue.get(match.getMatchedValue())) {
+                    rows.merge(row, match.getEditDistance(), Math::min);
+                }
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * The row chosen for a label.
+     */
+    public static class RowMatch {
+        private final int rowIndex;
+        private final Map<String, String> rowValues;
+        private final Map<String, String> corrections;
+        private final double combinedDistance;
+
+        RowMatch(int rowIndex, Map<String, String> rowValues,
+                 Map<String, String> corrections, double combinedDistance) {
+            this.rowIndex = rowIndex;
+            this.rowValues = Collections.unmodifiableMap(rowValues);
+            this.corrections = Collections.unmodifiableMap(corrections);
+            this.combinedDistance = combinedDistance;
+        }
+
+        /**
+         * @return Index of the row in the table, not counting the header
+         */
+        public int getRowIndex() {
+            return rowIndex;
+        }
+
+        /**
+         * @return All values of the row, by column name
+         */
+        public Map<String, String> getRowValues() {
+            return rowValues;
+        }
+
+        /**
+         * @return The row's value for each field that took part in the match, keyed by
+         *         the field name used in the query
+         */
+        public Map<String, String> getCorrections() {
+            return corrections;
+        }
+
+        /**
+         * @return Sum of the edit distances of the matched fields
+         */
+        public double getCombinedDistance() {
+            return combinedDistance;
+        }
+
+        public boolean isExactMatch() {
+            return combinedDistance == 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("RowMatch[row=%d, distance=%.2f, values=%s]",
+                    rowIndex, combinedDistance, rowValues);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package qupath.ext.ocr4labels.service;
+
+import org.junit.jupiter.api.Test;
+import qupath.ext.ocr4labels.model.OCRConfiguration;
+import qupath.ext.ocr4labels.model.OCRResult;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outcome reporting and cancellation of {@link BatchOCRPipeline}, with recognition
+ * replaced by a stand-in so no Tesseract engine is needed.
+ */
+class BatchOCRPipelineTest {
+
+    @Test
+    void everyItemIsReportedWithItsOutcome() {
+        StubPool pool = new StubPool(item -> {
+            if (item.equals("slow")) {
+                throw new OCREngine.OCRTimeoutException("OCR timed out after 1000 ms");
+            }
+            return new OCRResult(Collections.emptyList(), 0);
+        });
+        BatchOCRPipeline<String> pipeline = new BatchOCRPipeline<>(pool, OCRConfiguration.builder().build(), item -> {
+            if (item.equals("unreadable")) {
+                throw new IOException("Cannot read image");
+            }
+            return item.equals("no label") ? null : new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY);
+        }, 2, 2, 0);
+        pipeline.setImageTimeout(1000);
+
+        RecordingListener listener = new RecordingListener(pool);
+        List<String> items = List.of("a", "slow", "b", "no label", "unreadable", "c");
+        assertEquals(items.size(), pipeline.run(items, listener));
+
+        assertEquals("Done", listener.outcomes.get("a"));
+        assertEquals("Done", listener.outcomes.get("b"));
+        assertEquals("Done", listener.outcomes.get("c"));
+        assertEquals("Timeout", listener.outcomes.get("slow"));
+        assertEquals("No label", listener.outcomes.get("no label"));
+        assertEquals("Error", listener.outcomes.get("unreadable"));
+        pool.close();
+    }
+
+    @Test
+    void cancelStopsRunningAndQueuedItems() throws Exception {
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        AtomicInteger interrupted = new AtomicInteger();
+        StubPool pool = new StubPool(item -> {
+            // Stands in for a long recognition that only stops when the pipeline is cancelled
+            try {
+                neverReleased.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                throw new OCREngine.OCRCancelledException("OCR cancelled");
+            }
+            return new OCRResult(Collections.emptyList(), 0);
+        });
+        BatchOCRPipeline<String> pipeline = new BatchOCRPipeline<>(pool, OCRConfiguration.builder().build(),
+                item -> new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY), 2, 2, 0);
+
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add("item " + i);
+        }
+        RecordingListener listener = new RecordingListener(pool);
+        CountDownLatch started = listener.started;
+        Thread canceller = new Thread(() -> {
+            try {
+                if (started.await(10, TimeUnit.SECONDS)) {
+                    pipeline.cancel();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        canceller.start();
+
+        long start = System.currentTimeMillis();
+        int completed = pipeline.run(items, listener);
+        long elapsed = System.currentTimeMillis() - start;
+        canceller.join(10_000);
+
+        assertTrue(pipeline.isCancelled());
+        assertTrue(completed < items.size(), completed + " items completed after cancelling");
+        assertTrue(elapsed < 10_000, "Cancelling took " + elapsed + " ms");
+        // Workers may still be unwinding when run() returns
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (interrupted.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(interrupted.get() > 0, "Running recognitions were not stopped");
+        assertEquals(0, listener.results.get());
+        pool.close();
+    }
+
+    /**
+     * Stand-in recognition for one item.
+     */
+    @FunctionalInterface
+    private interface Recognizer {
+        OCRResult recognize(String item) throws OCREngine.OCRException;
+    }
+
+    /**
+     * Pool that answers every request with the recognizer instead of a Tesseract engine.
+     * The item being recognized is the one last started on the calling worker thread.
+     */
+    private static class StubPool extends OCREnginePool {
+        private final Recognizer recognizer;
+        private final ThreadLocal<String> currentItem = new ThreadLocal<>();
+
+        private StubPool(Recognizer recognizer) {
+            super("unused", "eng", 2, DEFAULT_IDLE_TIMEOUT_MS);
+            this.recognizer = recognizer;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T withEngine(OCRPriority priority, EngineTask<T> task) throws OCREngine.OCRException {
+            return (T) recognizer.recognize(currentItem.get());
+        }
+    }
+
+    private static class RecordingListener implements BatchOCRPipeline.Listener<String> {
+        private final StubPool pool;
+        private final Map<String, String> outcomes = new ConcurrentHashMap<>();
+        private final AtomicInteger results = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private RecordingListener(StubPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void onStarted(String item) {
+            // Runs on the OCR worker thread just before recognition
+            pool.currentItem.set(item);
+            started.countDown();
+        }
+
+        @Override
+        public void onResult(String item, OCRResult result) {
+            results.incrementAndGet();
+            outcomes.put(item, "Done");
+        }
+
+        @Override
+        public void onSkipped(String item, String reason) {
+            outcomes.put(item, reason);
+        }
+
+        @Override
+        public void onError(String item, Exception error) {
+            outcomes.put(item, BatchOCRPipeline.errorStatus(error));
+        }
+    }
+}
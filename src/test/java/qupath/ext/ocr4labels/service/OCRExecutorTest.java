@@ -0,0 +1,103 @@
+package qupath.ext.ocr4labels.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Backpressure and priority ordering of {@link OCRExecutor}.
+ */
+class OCRExecutorTest {
+
+    @Test
+    void queuedTasksStartByPriorityThenSubmissionOrder() throws Exception {
+        OCRExecutor executor = new OCRExecutor("test-priority", 1, 8);
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            executor.submit(OCRPriority.BATCH, () -> {
+                started.countDown();
+                return release.await(10, TimeUnit.SECONDS);
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            // Everything below waits for the single thread
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            futures.add(executor.submit(OCRPriority.BATCH, () -> order.add("batch 1")));
+            futures.add(executor.submit(OCRPriority.PREFETCH, () -> order.add("prefetch")));
+            futures.add(executor.submit(OCRPriority.BATCH, () -> order.add("batch 2")));
+            futures.add(executor.submit(OCRPriority.INTERACTIVE, () -> order.add("interactive")));
+            release.countDown();
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            assertEquals(List.of("interactive", "prefetch", "batch 1", "batch 2"), order);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueueRejectsUntilRoomIsSignalled() throws Exception {
+        OCRExecutor executor = new OCRExecutor("test-backpressure", 1, 1);
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Boolean> running = executor.submit(() -> release.await(10, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = executor.submit(() -> "queued");
+            assertTrue(executor.isSaturated());
+            assertEquals(2, executor.getPendingCount());
+
+            CompletableFuture<String> rejected = executor.submit(() -> "rejected");
+            assertTrue(rejected.isCompletedExceptionally());
+            try {
+                rejected.get();
+                throw new AssertionError("Expected a rejected submission");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException, String.valueOf(e.getCause()));
+            }
+
+            CompletableFuture<Void> room = executor.whenAvailable();
+            assertFalse(room.isDone());
+            release.countDown();
+            room.get(10, TimeUnit.SECONDS);
+
+            assertEquals("accepted", executor.submit(() -> "accepted").get(10, TimeUnit.SECONDS));
+            assertEquals(true, running.get(10, TimeUnit.SECONDS));
+            assertEquals("queued", queued.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void failedTasksReleaseTheirSlot() throws Exception {
+        OCRExecutor executor = new OCRExecutor("test-failure", 1, 1);
+        try {
+            // Room for two tasks, so a leaked slot would block the third submission
+            for (int i = 0; i < 5; i++) {
+                CompletableFuture<Object> failed = executor.submitBlocking(OCRPriority.BATCH, () -> {
+                    throw new OCREngine.OCRException("Recognition failed");
+                });
+                try {
+                    failed.get(10, TimeUnit.SECONDS);
+                    throw new AssertionError("Expected a failed task");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof OCREngine.OCRException, String.valueOf(e.getCause()));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
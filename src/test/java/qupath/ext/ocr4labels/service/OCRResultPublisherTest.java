@@ -0,0 +1,231 @@
+package qupath.ext.ocr4labels.service;
+
+import org.junit.jupiter.api.Test;
+import qupath.ext.ocr4labels.model.OCRConfiguration;
+import qupath.ext.ocr4labels.model.OCRResult;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Demand, concurrency and error handling of {@link OCRResultPublisher}, with recognition
+ * replaced by a stand-in so no Tesseract engine is needed.
+ */
+class OCRResultPublisherTest {
+
+    @Test
+    void recognizesNoMoreImagesThanRequested() throws Exception {
+        StubPool pool = new StubPool(call -> result());
+        OCRExecutor executor = new OCRExecutor("test-demand", 4, 8);
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            new OCRResultPublisher(pool, executor, images(10), OCRConfiguration.builder().build(),
+                    OCRPriority.BATCH, 4).subscribe(subscriber);
+
+            subscriber.request(3);
+            subscriber.awaitResults(3);
+            Thread.sleep(100);
+            assertEquals(3, subscriber.results.size());
+            assertEquals(3, pool.calls.get());
+
+            subscriber.request(2);
+            subscriber.awaitResults(5);
+            Thread.sleep(100);
+            assertEquals(5, subscriber.results.size());
+            assertEquals(5, pool.calls.get());
+            assertEquals(0, subscriber.completions.get());
+
+            subscriber.request(Long.MAX_VALUE);
+            subscriber.awaitTermination();
+            assertEquals(10, subscriber.results.size());
+            assertEquals(10, pool.calls.get());
+            assertEquals(1, subscriber.completions.get());
+            assertNull(subscriber.error);
+        } finally {
+            executor.shutdown();
+            pool.close();
+        }
+    }
+
+    @Test
+    void maxInFlightCapsConcurrentRecognition() throws Exception {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        StubPool pool = new StubPool(call -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            return result();
+        });
+        OCRExecutor executor = new OCRExecutor("test-in-flight", 8, 8);
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            new OCRResultPublisher(pool, executor, images(12), OCRConfiguration.builder().build(),
+                    OCRPriority.BATCH, 2).subscribe(subscriber);
+            subscriber.request(Long.MAX_VALUE);
+            subscriber.awaitTermination();
+
+            assertEquals(12, subscriber.results.size());
+            assertTrue(maxActive.get() <= 2, "At most 2 images in flight, saw " + maxActive.get());
+            assertEquals(1, subscriber.completions.get());
+        } finally {
+            executor.shutdown();
+            pool.close();
+        }
+    }
+
+    @Test
+    void imagesRejectedByAFullQueueAreRetried() throws Exception {
+        StubPool pool = new StubPool(call -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result();
+        });
+        // Room for two tasks while six are submitted at once, so most submissions are rejected
+        OCRExecutor executor = new OCRExecutor("test-retry", 1, 1);
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            new OCRResultPublisher(pool, executor, images(10), OCRConfiguration.builder().build(),
+                    OCRPriority.BATCH, 6).subscribe(subscriber);
+            subscriber.request(Long.MAX_VALUE);
+            subscriber.awaitTermination();
+
+            assertNull(subscriber.error);
+            assertEquals(10, subscriber.results.size());
+            assertEquals(10, pool.calls.get());
+            assertEquals(1, subscriber.completions.get());
+        } finally {
+            executor.shutdown();
+            pool.close();
+        }
+    }
+
+    @Test
+    void firstErrorEndsTheStream() throws Exception {
+        StubPool pool = new StubPool(call -> {
+            if (call == 3) {
+                throw new OCREngine.OCRException("Recognition failed");
+            }
+            return result();
+        });
+        OCRExecutor executor = new OCRExecutor("test-error", 2, 4);
+        try {
+            RecordingSubscriber subscriber = new RecordingSubscriber();
+            new OCRResultPublisher(pool, executor, images(10), OCRConfiguration.builder().build(),
+                    OCRPriority.BATCH, 1).subscribe(subscriber);
+            subscriber.request(Long.MAX_VALUE);
+            subscriber.awaitTermination();
+            Thread.sleep(100);
+
+            assertTrue(subscriber.error instanceof OCREngine.OCRException, String.valueOf(subscriber.error));
+            assertEquals(2, subscriber.results.size());
+            assertEquals(3, pool.calls.get());
+            assertEquals(0, subscriber.completions.get());
+        } finally {
+            executor.shutdown();
+            pool.close();
+        }
+    }
+
+    private static List<BufferedImage> images(int count) {
+        List<BufferedImage> images = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            images.add(new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY));
+        }
+        return images;
+    }
+
+    private static OCRResult result() {
+        return new OCRResult(Collections.emptyList(), 0);
+    }
+
+    /**
+     * Stand-in recognition, numbered by call from 1.
+     */
+    @FunctionalInterface
+    private interface Recognizer {
+        OCRResult recognize(int call) throws OCREngine.OCRException;
+    }
+
+    /**
+     * Pool that answers every request with the recognizer instead of a Tesseract engine.
+     */
+    private static class StubPool extends OCREnginePool {
+        private final Recognizer recognizer;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private StubPool(Recognizer recognizer) {
+            super("unused", "eng", 1, DEFAULT_IDLE_TIMEOUT_MS);
+            this.recognizer = recognizer;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T withEngine(OCRPriority priority, EngineTask<T> task) throws OCREngine.OCRException {
+            return (T) recognizer.recognize(calls.incrementAndGet());
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<OCRResult> {
+        private final List<OCRResult> results = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger completions = new AtomicInteger();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(OCRResult item) {
+            results.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completions.incrementAndGet();
+            terminated.countDown();
+        }
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        void awaitResults(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (results.size() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(count, results.size());
+        }
+
+        void awaitTermination() throws InterruptedException {
+            assertTrue(terminated.await(10, TimeUnit.SECONDS), "Stream did not terminate");
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package qupath.ext.ocr4labels.utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Randomized checks that the fast matching paths give the same answers as plain
+ * dynamic programming over the whole vocabulary: Myers' bit-parallel distance, the
+ * banded weighted distance, and BK-tree and q-gram pruning in every case, weighting
+ * and threshold mode.
+ */
+class TextMatcherEquivalenceTest {
+
+    private static final String ALPHABET = "abcdemnorsuvABCDEMNORSUV0123456789OoIl1|5S8BZz2-_ .,\u00e9";
+
+    @Test
+    void levenshteinMatchesFullDynamicProgram() {
+        Random random = new Random(11);
+        for (int i = 0; i < 5000; i++) {
+            // Up to 150 characters, so both the 64-bit Myers path and the two-row fallback run
+            int maxLength = i % 10 == 0 ? 150 : 20;
+            String a = randomString(random, random.nextInt(maxLength + 1));
+            String b = random.nextBoolean() ? mutate(random, a, random.nextInt(6)) : randomString(random, random.nextInt(maxLength + 1));
+            assertEquals(levenshtein(a, b), EditDistance.levenshtein(a, b), () -> "'" + a + "' vs '" + b + "'");
+        }
+    }
+
+    @Test
+    void bandedWeightedDistanceMatchesFullDynamicProgram() {
+        Random random = new Random(23);
+        for (int round = 0; round < 20; round++) {
+            ConfusionCosts costs = randomCosts(random);
+            for (int i = 0; i < 500; i++) {
+                String a = randomString(random, random.nextInt(16));
+                String b = random.nextBoolean() ? mutate(random, a, random.nextInt(5)) : randomString(random, random.nextInt(16));
+                double full = weighted(a, b, costs);
+                for (int limit = 0; limit <= 4; limit++) {
+                    double banded = EditDistance.weighted(a, b, costs, limit);
+                    String message = "'" + a + "' vs '" + b + "', limit " + limit;
+                    if (full <= limit) {
+                        assertEquals(full, banded, 1e-9, message);
+                    } else {
+                        assertTrue(banded > limit, message);
+                    }
+                }
+                assertEquals(full, EditDistance.weighted(a, b, costs, -1), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void indexedMatchingMatchesBruteForce() {
+        Random random = new Random(37);
+        List<String> vocabulary = randomVocabulary(random, 400);
+        List<String> queries = randomQueries(random, vocabulary, 150);
+
+        for (boolean caseInsensitive : new boolean[]{true, false}) {
+            for (int maxDistance = 0; maxDistance <= 3; maxDistance++) {
+                for (double minSimilarity : new double[]{0.0, 0.6}) {
+                    for (TextMatcher.SearchIndex searchIndex : TextMatcher.SearchIndex.values()) {
+                        TextMatcher matcher = matcher(vocabulary, searchIndex, caseInsensitive, false,
+                                maxDistance, minSimilarity);
+                        String mode = searchIndex + ", caseInsensitive=" + caseInsensitive
+                                + ", maxDistance=" + maxDistance + ", minSimilarity=" + minSimilarity;
+                        for (String query : queries) {
+                            assertEquals(describe(bruteForceBest(matcher, query)), describe(matcher.findBestMatch(query)),
+                                    mode + ", query '" + query + "'");
+                            assertEquals(describe(bruteForceAll(matcher, query, 5)), describe(matcher.findAllMatches(query, 5)),
+                                    mode + ", query '" + query + "'");
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void indexedWeightedMatchingMatchesFullScan() {
+        // The weighted distance itself is checked against full DP above; here each index
+        // must find exactly what a scan of the whole vocabulary finds
+        Random random = new Random(41);
+        List<String> vocabulary = randomVocabulary(random, 400);
+        List<String> queries = randomQueries(random, vocabulary, 150);
+
+        for (boolean caseInsensitive : new boolean[]{true, false}) {
+            for (int maxDistance = 0; maxDistance <= 3; maxDistance++) {
+                for (double minSimilarity : new double[]{0.0, 0.6}) {
+                    TextMatcher scan = matcher(vocabulary, TextMatcher.SearchIndex.NONE, caseInsensitive, true,
+                            maxDistance, minSimilarity);
+                    for (TextMatcher.SearchIndex searchIndex : TextMatcher.SearchIndex.values()) {
+                        TextMatcher matcher = matcher(vocabulary, searchIndex, caseInsensitive, true,
+                                maxDistance, minSimilarity);
+                        String mode = searchIndex + ", caseInsensitive=" + caseInsensitive
+                                + ", maxDistance=" + maxDistance + ", minSimilarity=" + minSimilarity;
+                        for (String query : queries) {
+                            assertEquals(describe(scan.findBestMatch(query)), describe(matcher.findBestMatch(query)),
+                                    mode + ", query '" + query + "'");
+                            assertEquals(describe(scan.findAllMatches(query, 5)), describe(matcher.findAllMatches(query, 5)),
+                                    mode + ", query '" + query + "'");
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void batchMatchingMatchesSingleLookups() {
+        Random random = new Random(53);
+        List<String> vocabulary = randomVocabulary(random, 300);
+        List<String> queries = randomQueries(random, vocabulary, 200);
+        for (boolean weighted : new boolean[]{false, true}) {
+            TextMatcher matcher = matcher(vocabulary, TextMatcher.SearchIndex.QGRAM, true, weighted, 2, 0.6);
+            Map<String, TextMatcher.MatchResult> batch =
+                    matcher.snapshot().findBestMatches(queries, ForkJoinPool.commonPool());
+            for (String query : queries) {
+                assertEquals(describe(matcher.findBestMatch(query)), describe(batch.get(query)), query);
+            }
+        }
+    }
+
+    @Test
+    void snapshotForEitherModeMatchesConfiguredMatcher() {
+        Random random = new Random(59);
+        List<String> vocabulary = randomVocabulary(random, 300);
+        List<String> queries = randomQueries(random, vocabulary, 100);
+        TextMatcher matcher = matcher(vocabulary, TextMatcher.SearchIndex.BK_TREE, true, false, 2, 0.6);
+        for (boolean weighted : new boolean[]{true, false, true}) {
+            TextMatcher.Snapshot snapshot = matcher.snapshot(weighted);
+            TextMatcher configured = matcher(vocabulary, TextMatcher.SearchIndex.BK_TREE, true, weighted, 2, 0.6);
+            assertEquals(weighted, snapshot.isUseOCRWeights());
+            assertEquals(false, matcher.isUseOCRWeights());
+            for (String query : queries) {
+                assertEquals(describe(configured.findAllMatches(query, 5)), describe(snapshot.findAllMatches(query, 5)), query);
+            }
+        }
+    }
+
+    // ========== Baseline ==========
+
+    /**
+     * Same selection rules as {@link TextMatcher.Snapshot#findBestMatch}, scanning every
+     * entry with full-matrix Levenshtein distance.
+     */
+    private static TextMatcher.MatchResult bruteForceBest(TextMatcher matcher, String query) {
+        String input = matcher.isCaseInsensitive() ? query.toLowerCase() : query;
+        TextMatcher.MatchResult best = null;
+        for (String candidate : matcher.getVocabulary()) {
+            String normalized = matcher.isCaseInsensitive() ? candidate.toLowerCase() : candidate;
+            if (input.equals(normalized)) {
+                return new TextMatcher.MatchResult(candidate, query, 0.0, 1.0);
+            }
+            double distance = levenshtein(input, normalized);
+            double similarity = similarity(input, normalized, distance);
+            if (distance <= matcher.getMaxEditDistance() && similarity >= matcher.getMinSimilarity()
+                    && (best == null || distance < best.getEditDistance())) {
+                best = new TextMatcher.MatchResult(candidate, query, distance, similarity);
+            }
+        }
+        return best;
+    }
+
+    private static List<TextMatcher.MatchResult> bruteForceAll(TextMatcher matcher, String query, int maxResults) {
+        String input = matcher.isCaseInsensitive() ? query.toLowerCase() : query;
+        List<TextMatcher.MatchResult> matches = new ArrayList<>();
+        for (String candidate : matcher.getVocabulary()) {
+            String normalized = matcher.isCaseInsensitive() ? candidate.toLowerCase() : candidate;
+            double distance = levenshtein(input, normalized);
+            double similarity = similarity(input, normalized, distance);
+            if (distance <= matcher.getMaxEditDistance() && similarity >= matcher.getMinSimilarity()) {
+                matches.add(new TextMatcher.MatchResult(candidate, query, distance, similarity));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(TextMatcher.MatchResult::getEditDistance));
+        return matches.size() > maxResults ? matches.subList(0, maxResults) : matches;
+    }
+
+    private static double similarity(String a, String b, double distance) {
+        int maxLength = Math.max(a.length(), b.length());
+        return maxLength == 0 ? 1.0 : 1.0 - distance / maxLength;
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static double weighted(String a, String b, ConfusionCosts costs) {
+        double[][] d = new double[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                double substitute = d[i - 1][j - 1] + costs.cost(a.charAt(i - 1), b.charAt(j - 1));
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), substitute);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    // ========== Random data ==========
+
+    private static TextMatcher matcher(List<String> vocabulary, TextMatcher.SearchIndex searchIndex,
+                                       boolean caseInsensitive, boolean weighted,
+                                       int maxDistance, double minSimilarity) {
+        TextMatcher matcher = new TextMatcher(vocabulary);
+        matcher.setSearchIndex(searchIndex);
+        matcher.setCaseInsensitive(caseInsensitive);
+        matcher.setUseOCRWeights(weighted);
+        matcher.setMaxEditDistance(maxDistance);
+        matcher.setMinSimilarity(minSimilarity);
+        return matcher;
+    }
+
+    private static ConfusionCosts randomCosts(Random random) {
+        double[] choices = {0.3, 0.5, 0.7, 1.0};
+        int pairs = 5 + random.nextInt(20);
+        char[] first = new char[pairs * 2];
+        char[] second = new char[pairs * 2];
+        double[] weights = new double[pairs * 2];
+        for (int i = 0; i < pairs; i++) {
+            char a = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            char b = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            double weight = choices[random.nextInt(choices.length)];
+            first[2 * i] = a;
+            second[2 * i] = b;
+            first[2 * i + 1] = b;
+            second[2 * i + 1] = a;
+            weights[2 * i] = weight;
+            weights[2 * i + 1] = weight;
+        }
+        return new ConfusionCosts(first, second, weights);
+    }
+
+    /**
+     * Label-like values ("S23-0142", "HE", ...) mixed with short random strings.
+     */
+    private static List<String> randomVocabulary(Random random, int size) {
+        List<String> vocabulary = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(3) == 0) {
+                vocabulary.add(randomString(random, 1 + random.nextInt(8)));
+            } else {
+                vocabulary.add(String.format("%s%02d-%04d", random.nextBoolean() ? "S" : "B",
+                        random.nextInt(30), random.nextInt(10000)));
+            }
+        }
+        return vocabulary;
+    }
+
+    private static List<String> randomQueries(Random random, List<String> vocabulary, int count) {
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(10) < 7) {
+                String source = vocabulary.get(random.nextInt(vocabulary.size()));
+                String query = mutate(random, source, random.nextInt(4));
+                queries.add(query.isEmpty() ? source : query);
+            } else {
+                queries.add(randomString(random, 1 + random.nextInt(10)));
+            }
+        }
+        return queries;
+    }
+
+    private static String randomString(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Applies random insertions, deletions, substitutions and case flips.
+     */
+    private static String mutate(Random random, String value, int edits) {
+        StringBuilder sb = new StringBuilder(value);
+        for (int e = 0; e < edits; e++) {
+            int position = sb.length() == 0 ? 0 : random.nextInt(sb.length());
+            char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            switch (sb.length() == 0 ? 0 : random.nextInt(4)) {
+                case 0:
+                    sb.insert(position, c);
+                    break;
+                case 1:
+                    sb.deleteCharAt(position);
+                    break;
+                case 2:
+                    sb.setCharAt(position, c);
+                    break;
+                default:
+                    char old = sb.charAt(position);
+                    sb.setCharAt(position, Character.isUpperCase(old)
+                            ? Character.toLowerCase(old) : Character.toUpperCase(old));
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String describe(TextMatcher.MatchResult result) {
+        return result == null ? "none" : result.getMatchedValue() + " @ " + result.getEditDistance();
+    }
+
+    private static String describe(List<TextMatcher.MatchResult> results) {
+        return Arrays.toString(results.stream().map(TextMatcherEquivalenceTest::describe).toArray());
+    }
+}
@@ -0,0 +1,147 @@
+package qupath.ext.ocr4labels.utilities;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips of vocabulary files through {@link TextMatcher#loadVocabularyFromFile} and
+ * the {@code .vocabidx} sidecar it writes.
+ */
+class VocabularyCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loaderSkipsHeaderAndDuplicates() throws IOException {
+        // CRLF endings, a quoted first column and repeated values
+        File file = write("samples.csv", "Sample ID,Stain\r\n"
+                + "\"S-001, A\",HE\r\n"
+                + "S-002,HE\r\n"
+                + "\r\n"
+                + "S-001,PAS\r\n"
+                + "S-002,PAS\r\n"
+                + "s-003\r\n");
+
+        TextMatcher matcher = new TextMatcher();
+        matcher.loadVocabularyFromFile(file);
+
+        assertEquals(List.of("S-001, A", "S-002", "S-001", "s-003"), new ArrayList<>(matcher.getVocabulary()));
+    }
+
+    @Test
+    void sidecarRoundTripGivesSameVocabularyAndMatches() throws IOException {
+        Random random = new Random(7);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            lines.add(String.format("S%02d-%04d", random.nextInt(20), random.nextInt(2000)));
+        }
+        File file = write("ids.txt", String.join("\n", lines) + "\n");
+        List<String> expected = new ArrayList<>(new LinkedHashSet<>(lines));
+
+        TextMatcher first = new TextMatcher();
+        first.setSearchIndex(TextMatcher.SearchIndex.QGRAM);
+        first.loadVocabularyFromFile(file);
+        assertEquals(expected, new ArrayList<>(first.getVocabulary()));
+
+        File sidecar = VocabularyCache.sidecarFor(file);
+        assertTrue(sidecar.isFile());
+        VocabularyCache.Entry entry = VocabularyCache.read(sidecar, VocabularyCache.SourceKey.of(file));
+        assertNotNull(entry);
+        assertEquals(expected, new ArrayList<>(entry.vocabulary));
+        assertNotNull(entry.index);
+        assertTrue(entry.caseInsensitive);
+        assertFalse(entry.ocrWeights);
+
+        // A second load reads the sidecar and must behave exactly like the first
+        TextMatcher second = new TextMatcher();
+        second.setSearchIndex(TextMatcher.SearchIndex.QGRAM);
+        second.loadVocabularyFromFile(file);
+        assertEquals(expected, new ArrayList<>(second.getVocabulary()));
+
+        TextMatcher scan = new TextMatcher(expected);
+        scan.setSearchIndex(TextMatcher.SearchIndex.NONE);
+        for (int i = 0; i < 200; i++) {
+            String query = expected.get(random.nextInt(expected.size())).replace('0', 'O').replace('-', '_');
+            assertEquals(describe(scan.findAllMatches(query, 10)), describe(first.findAllMatches(query, 10)), query);
+            assertEquals(describe(scan.findAllMatches(query, 10)), describe(second.findAllMatches(query, 10)), query);
+        }
+    }
+
+    @Test
+    void changedOrCorruptSourceIsParsedAgain() throws IOException {
+        File file = write("stains.txt", "HE\nPAS\nHE\n");
+        new TextMatcher().loadVocabularyFromFile(file);
+        File sidecar = VocabularyCache.sidecarFor(file);
+        assertTrue(sidecar.isFile());
+
+        Files.writeString(file.toPath(), "CD3\nCD20\nKi67\n", StandardCharsets.UTF_8);
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        assertNull(VocabularyCache.read(sidecar, VocabularyCache.SourceKey.of(file)));
+
+        TextMatcher changed = new TextMatcher();
+        changed.loadVocabularyFromFile(file);
+        assertEquals(List.of("CD3", "CD20", "Ki67"), new ArrayList<>(changed.getVocabulary()));
+        assertNotNull(VocabularyCache.read(sidecar, VocabularyCache.SourceKey.of(file)));
+
+        Files.write(sidecar.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        TextMatcher corrupt = new TextMatcher();
+        corrupt.loadVocabularyFromFile(file);
+        assertEquals(List.of("CD3", "CD20", "Ki67"), new ArrayList<>(corrupt.getVocabulary()));
+    }
+
+    @Test
+    void multiByteCharactersAcrossReadBuffersAreDecoded() throws IOException {
+        // Well over one read buffer, with two- and three-byte characters at every offset
+        List<String> lines = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 120_000; i++) {
+            String value = (i % 2 == 0 ? "\u00e9" : "\u20ac") + i;
+            lines.add(value);
+            content.append(value).append('\n');
+        }
+        File file = write("accents.txt", content.toString());
+
+        TextMatcher matcher = new TextMatcher();
+        matcher.loadVocabularyFromFile(file);
+        assertEquals(lines, new ArrayList<>(matcher.getVocabulary()));
+
+        // Reading the sidecar must leave it replaceable
+        TextMatcher cached = new TextMatcher();
+        cached.loadVocabularyFromFile(file);
+        assertEquals(lines, new ArrayList<>(cached.getVocabulary()));
+        File sidecar = VocabularyCache.sidecarFor(file);
+        Files.move(sidecar.toPath(), tempDir.resolve("moved.vocabidx"));
+        assertFalse(sidecar.exists());
+    }
+
+    private File write(String name, String content) throws IOException {
+        Path path = tempDir.resolve(name);
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path.toFile();
+    }
+
+    private static String describe(List<TextMatcher.MatchResult> results) {
+        List<String> parts = new ArrayList<>();
+        for (TextMatcher.MatchResult result : results) {
+            parts.add(result.getMatchedValue() + " @ " + result.getEditDistance());
+        }
+        return parts.toString();
+    }
+}